@@ -0,0 +1,21 @@
+package at.ac.fhcampuswien.fhmdb.benchmarks;
+
+import at.ac.fhcampuswien.fhmdb.fixture.MovieFixtures;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+
+// synthetic catalogue generated from the sample fixture, shared by the benchmarks of one trial
+@State(Scope.Benchmark)
+public class Catalogue {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    public List<Movie> movies;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        movies = MovieFixtures.generate(size, 42);
+    }
+}
@@ -0,0 +1,88 @@
+package at.ac.fhcampuswien.fhmdb.benchmarks;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.search.FuzzyIndex;
+import at.ac.fhcampuswien.fhmdb.search.MovieIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// typo tolerant search, the fallback of filterByQuery and applyAllFilters when nothing contains the query.
+// vocabulary=english gives every title three words of a generated vocabulary of 190k words, about the size of
+// the dictionary of a real catalogue (all of them are used from size=100000 on); the fixture catalogue only has
+// the few hundred words of the sample, so the candidate filters have much less to do there
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class FuzzyIndexBenchmark {
+    private static final int VOCABULARY_SIZE = 190_000;
+
+    @Param({"fixture", "english"})
+    public String vocabulary;
+
+    private MovieIndex movieIndex;
+    private FuzzyIndex fuzzyIndex;
+
+    @Setup(Level.Trial)
+    public void setUp(Catalogue catalogue) {
+        List<Movie> movies = catalogue.movies;
+        if ("english".equals(vocabulary)) {
+            movies = withTitlesFrom(movies, Vocabulary.generate(VOCABULARY_SIZE, 42));
+        }
+        movieIndex = new MovieIndex(movies);
+        fuzzyIndex = new FuzzyIndex(movieIndex);
+    }
+
+    // the movies with titles of three consecutive words of the vocabulary, so every word is used once the
+    // catalogue is large enough
+    private static List<Movie> withTitlesFrom(List<Movie> movies, String[] words) {
+        List<Movie> result = new ArrayList<>(movies.size());
+        for (int i = 0; i < movies.size(); i++) {
+            Movie movie = movies.get(i);
+            String title = words[3 * i % words.length] + " " + words[(3 * i + 1) % words.length] + " "
+                    + words[(3 * i + 2) % words.length];
+            result.add(new Movie(movie.getId(), title, movie.getDescription(), movie.getGenres(),
+                    movie.getReleaseYear(), movie.getImgUrl(), movie.getLengthInMinutes(), movie.getDirectors(),
+                    movie.getWriters(), movie.getMainCast(), movie.getRating()));
+        }
+        return result;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public FuzzyIndex build() {
+        return new FuzzyIndex(movieIndex);
+    }
+
+    @Benchmark
+    public int[] oneTypo() {
+        return fuzzyIndex.search("godfahter", 100);
+    }
+
+    @Benchmark
+    public int[] shortWord() {
+        return fuzzyIndex.search("avtar", 100);
+    }
+
+    // six letters allow two edits, three letters one: the trigram filter can't rule out any word at these lengths
+    @Benchmark
+    public int[] sixLetters() {
+        return fuzzyIndex.search("matrix", 100);
+    }
+
+    @Benchmark
+    public int[] threeLetters() {
+        return fuzzyIndex.search("xyz", 100);
+    }
+
+    @Benchmark
+    public int[] titleAndName() {
+        return fuzzyIndex.search("wolf sigorney", 100);
+    }
+}
@@ -0,0 +1,107 @@
+package at.ac.fhcampuswien.fhmdb.benchmarks;
+
+import at.ac.fhcampuswien.fhmdb.HomeController;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.models.MovieCatalog;
+import at.ac.fhcampuswien.fhmdb.models.SortedState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// filter, sort and aggregation methods of HomeController, either over the movie objects or (layout=columns)
+// over the MovieCatalog columns that are used when the list is the controller's catalogue. the statistics the
+// controller keeps over its catalogue are dropped before every invocation, so each call computes them again
+// like the object layout does
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class HomeControllerBenchmark {
+    @Param({"objects", "columns"})
+    public String layout;
+
+    private BenchmarkedController homeController;
+    // the movies passed to the controller, its own catalogue for layout=columns
+    private List<Movie> movies;
+    private List<Movie> shuffled;
+    private String director;
+
+    @Setup(Level.Trial)
+    public void setUp(Catalogue catalogue) {
+        homeController = new BenchmarkedController();
+        movies = catalogue.movies;
+        if ("columns".equals(layout)) {
+            movies = homeController.useCatalogue(catalogue.movies);
+        }
+        shuffled = new ArrayList<>(catalogue.movies);
+        Collections.shuffle(shuffled, new Random(42));
+        director = catalogue.movies.get(0).getDirectors().get(0);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetState() {
+        homeController.show(shuffled);
+    }
+
+    @Benchmark
+    public List<Movie> filterByQuery() {
+        return homeController.filterByQuery(movies, "godfather");
+    }
+
+    @Benchmark
+    public List<Movie> filterByGenre() {
+        return homeController.filterByGenre(movies, Genre.DRAMA);
+    }
+
+    @Benchmark
+    public List<Movie> sortMovies() {
+        homeController.sortMovies();
+        return homeController.shown();
+    }
+
+    @Benchmark
+    public String getMostPopularActor() {
+        return homeController.getMostPopularActor(movies);
+    }
+
+    @Benchmark
+    public long countMoviesFrom() {
+        return homeController.countMoviesFrom(movies, director);
+    }
+
+    @Benchmark
+    public List<Movie> getMoviesBetweenYears() {
+        return homeController.getMoviesBetweenYears(movies, 1990, 2000);
+    }
+
+    @Benchmark
+    public int getLongestMovieTitle() {
+        return homeController.getLongestMovieTitle(movies);
+    }
+
+    // reaches the protected state of the controller the way the view would set it up
+    static class BenchmarkedController extends HomeController {
+        List<Movie> useCatalogue(List<Movie> movies) {
+            movieCatalog = MovieCatalog.of(movies);
+            allMovies = movieCatalog.asList();
+            return allMovies;
+        }
+
+        void show(List<Movie> movies) {
+            observableMovies.setAll(movies);
+            sortedState = SortedState.NONE;
+            catalogueSummary = null;
+        }
+
+        List<Movie> shown() {
+            return observableMovies;
+        }
+    }
+}
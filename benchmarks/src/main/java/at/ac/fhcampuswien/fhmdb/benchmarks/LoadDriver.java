@@ -0,0 +1,139 @@
+package at.ac.fhcampuswien.fhmdb.benchmarks;
+
+import at.ac.fhcampuswien.fhmdb.api.HttpClientSettings;
+import at.ac.fhcampuswien.fhmdb.api.MovieAPI;
+import at.ac.fhcampuswien.fhmdb.fixture.MovieFixtures;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.server.MovieServer;
+import at.ac.fhcampuswien.fhmdb.server.QueryService;
+import at.ac.fhcampuswien.fhmdb.sync.CatalogueStore;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// fires MovieAPI.getAllMovies from several concurrent clients and reports the latency distribution.
+// without --url an embedded stand-in server with a generated catalogue is started, e.g.
+// java -cp target/benchmarks.jar at.ac.fhcampuswien.fhmdb.benchmarks.LoadDriver --movies=100000 --clients=8 --requests=200 --latency=5-50
+// with --target=service the clients query an embedded QueryService instead (--threads and --queue size it), e.g.
+// --target=service --movies=100000 --clients=64 --threads=4 --queue=16 to see how many clients it sustains and
+// how many requests it sheds. requests are not retried, a shed request counts as failed
+public class LoadDriver {
+    private static final String[] QUERIES = {null, "the", "godfather", "wolf", "alien", "ring"};
+    private static final String[] YEARS = {null, "1972", "1995", "2009"};
+    private static final String[] RATINGS = {null, "5", "8", "9"};
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        int clients = Integer.parseInt(options.getOrDefault("clients", "4"));
+        int requests = Integer.parseInt(options.getOrDefault("requests", "100"));
+
+        // one kept-alive connection per client
+        HttpClientSettings defaults = HttpClientSettings.defaults();
+        MovieAPI.configure(new HttpClientSettings(clients, defaults.keepAlive(), defaults.http2(), defaults.compression(),
+                defaults.connectTimeout(), defaults.readTimeout(), defaults.callTimeout(), 0, Duration.ZERO,
+                defaults.maxRequests(), defaults.maxRequestsPerHost(), null, 0));
+
+        MovieServer server = null;
+        QueryService service = null;
+        if (options.containsKey("url")) {
+            MovieAPI.setBaseUrl(options.get("url"));
+        } else if ("service".equals(options.get("target"))) {
+            int movies = Integer.parseInt(options.getOrDefault("movies", "10000"));
+            CatalogueStore catalogue = new CatalogueStore();
+            catalogue.replace(MovieFixtures.generate(movies, 42));
+            service = new QueryService(catalogue, 0, Integer.parseInt(options.getOrDefault("threads", "4")),
+                    Integer.parseInt(options.getOrDefault("queue", "16")));
+            service.start();
+            MovieAPI.setBaseUrl(service.getUrl());
+        } else {
+            int movies = Integer.parseInt(options.getOrDefault("movies", "10000"));
+            server = new MovieServer(MovieFixtures.generate(movies, 42), 0);
+            String[] latency = options.getOrDefault("latency", "0").split("-");
+            server.setLatency(Long.parseLong(latency[0]), Long.parseLong(latency[latency.length - 1]));
+            server.setErrorRate(Double.parseDouble(options.getOrDefault("error-rate", "0")));
+            server.start();
+            MovieAPI.setBaseUrl(server.getUrl());
+        }
+
+        try {
+            run(clients, requests);
+            if (service != null) {
+                System.out.printf("service: %d served, %d shed%n", service.getServed(), service.getShed());
+            }
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+            if (service != null) {
+                service.stop();
+            }
+        }
+        // OkHttp keeps idle connections and dispatcher threads around for a while
+        System.exit(0);
+    }
+
+    private static void run(int clients, int requests) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        AtomicLong emptyResponses = new AtomicLong();
+        AtomicLong failedResponses = new AtomicLong();
+        List<Future<long[]>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int client = 0; client < clients; client++) {
+            long seed = client;
+            results.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                Genre[] genres = Genre.values();
+                long[] latencies = new long[requests];
+                for (int i = 0; i < requests; i++) {
+                    String query = QUERIES[random.nextInt(QUERIES.length)];
+                    Genre genre = random.nextBoolean() ? null : genres[random.nextInt(genres.length)];
+                    long requestStart = System.nanoTime();
+                    try {
+                        List<Movie> movies = MovieAPI.fetchMovies(query, genre,
+                                YEARS[random.nextInt(YEARS.length)], RATINGS[random.nextInt(RATINGS.length)]);
+                        if (movies.isEmpty()) {
+                            emptyResponses.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        failedResponses.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - requestStart;
+                }
+                return latencies;
+            }));
+        }
+
+        long[] all = new long[clients * requests];
+        int offset = 0;
+        for (Future<long[]> result : results) {
+            long[] latencies = result.get();
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+            offset += latencies.length;
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+
+        Arrays.sort(all);
+        System.out.printf("requests: %d from %d clients in %.1f s (%.1f requests/s)%n",
+                all.length, clients, elapsed / 1e9, all.length / (elapsed / 1e9));
+        System.out.printf("empty responses: %d, failed responses: %d%n", emptyResponses.get(), failedResponses.get());
+        System.out.printf("latency p50: %.2f ms, p90: %.2f ms, p99: %.2f ms, max: %.2f ms%n",
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), all[all.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
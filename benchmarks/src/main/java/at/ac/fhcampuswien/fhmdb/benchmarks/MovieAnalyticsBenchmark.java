@@ -0,0 +1,45 @@
+package at.ac.fhcampuswien.fhmdb.benchmarks;
+
+import at.ac.fhcampuswien.fhmdb.analytics.MovieAnalytics;
+import at.ac.fhcampuswien.fhmdb.models.MovieCatalog;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// the fused statistics pass over the catalogue columns with a growing number of worker threads,
+// compare with the single aggregations in HomeControllerBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class MovieAnalyticsBenchmark {
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private MovieCatalog catalog;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp(Catalogue catalogue) {
+        catalog = MovieCatalog.of(catalogue.movies);
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public MovieAnalytics.Summary summarize() {
+        return MovieAnalytics.summarize(catalog, pool);
+    }
+
+    @Benchmark
+    public int[] rowsBetweenYears() {
+        return MovieAnalytics.rowsBetweenYears(catalog, 1990, 2000);
+    }
+}
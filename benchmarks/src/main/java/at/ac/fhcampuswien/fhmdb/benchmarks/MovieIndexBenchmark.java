@@ -0,0 +1,66 @@
+package at.ac.fhcampuswien.fhmdb.benchmarks;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.search.MovieIndex;
+import at.ac.fhcampuswien.fhmdb.search.MovieSorter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// the local index that answers the filters of applyAllFilters, compare with HomeControllerBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class MovieIndexBenchmark {
+    private MovieIndex movieIndex;
+    private MovieSorter movieSorter;
+    private BitSet dramas;
+
+    @Setup(Level.Trial)
+    public void setUp(Catalogue catalogue) {
+        movieIndex = new MovieIndex(catalogue.movies);
+        movieSorter = new MovieSorter(movieIndex);
+        dramas = movieIndex.match(null, Genre.DRAMA, null, null);
+        // the cached orders are built once per catalogue, not per sort
+        movieSorter.sort(dramas, List.of(MovieSorter.SortOrder.ascending(MovieSorter.Key.TITLE),
+                MovieSorter.SortOrder.ascending(MovieSorter.Key.RATING)));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public MovieIndex build(Catalogue catalogue) {
+        return new MovieIndex(catalogue.movies);
+    }
+
+    @Benchmark
+    public BitSet query() {
+        return movieIndex.match("godfather", null, null, null);
+    }
+
+    @Benchmark
+    public BitSet genre() {
+        return movieIndex.match(null, Genre.DRAMA, null, null);
+    }
+
+    @Benchmark
+    public BitSet allFilters() {
+        return movieIndex.match("the", Genre.DRAMA, 1995, 8.0);
+    }
+
+    @Benchmark
+    public int[] sortByTitle() {
+        return movieSorter.sort(dramas, List.of(MovieSorter.SortOrder.descending(MovieSorter.Key.TITLE)));
+    }
+
+    @Benchmark
+    public int[] sortByRatingThenTitle() {
+        return movieSorter.sort(dramas, List.of(MovieSorter.SortOrder.descending(MovieSorter.Key.RATING),
+                MovieSorter.SortOrder.ascending(MovieSorter.Key.TITLE)));
+    }
+}
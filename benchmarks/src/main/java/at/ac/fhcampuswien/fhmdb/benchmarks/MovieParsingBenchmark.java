@@ -0,0 +1,39 @@
+package at.ac.fhcampuswien.fhmdb.benchmarks;
+
+import at.ac.fhcampuswien.fhmdb.api.MovieJson;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// compares Gson's reflection based binding of Movie[] (how MovieAPI used to parse) with the streaming
+// MovieTypeAdapter path that MovieAPI uses now
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class MovieParsingBenchmark {
+    private String json;
+    private final Gson reflectiveGson = new Gson();
+
+    @Setup
+    public void setUp(Catalogue catalogue) {
+        json = MovieJson.GSON.toJson(catalogue.movies);
+    }
+
+    @Benchmark
+    public Movie[] reflectiveGson() {
+        return reflectiveGson.fromJson(json, Movie[].class);
+    }
+
+    @Benchmark
+    public List<Movie> streamingTypeAdapter() throws IOException {
+        return MovieJson.readMovies(new StringReader(json));
+    }
+}
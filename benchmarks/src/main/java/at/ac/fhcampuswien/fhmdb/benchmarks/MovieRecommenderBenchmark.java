@@ -0,0 +1,58 @@
+package at.ac.fhcampuswien.fhmdb.benchmarks;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.recommend.MovieRecommender;
+import at.ac.fhcampuswien.fhmdb.search.MovieIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// "more like this": building the signatures and buckets once per catalogue, then top-k queries.
+// build runs on pools of different sizes, compare with the number of cores of the machine
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class MovieRecommenderBenchmark {
+    @Param({"1", "4"})
+    public int threads;
+
+    private MovieIndex movieIndex;
+    private MovieRecommender recommender;
+    private ForkJoinPool pool;
+    private Movie[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(Catalogue catalogue) {
+        movieIndex = new MovieIndex(catalogue.movies);
+        pool = new ForkJoinPool(threads);
+        recommender = new MovieRecommender(movieIndex, pool);
+        queries = new Movie[64];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = catalogue.movies.get((int) ((long) i * catalogue.movies.size() / queries.length));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public MovieRecommender build() {
+        return new MovieRecommender(movieIndex, pool);
+    }
+
+    @Benchmark
+    public List<MovieRecommender.Recommendation> top10() {
+        next = (next + 1) % queries.length;
+        return recommender.similarTo(queries[next], 10);
+    }
+}
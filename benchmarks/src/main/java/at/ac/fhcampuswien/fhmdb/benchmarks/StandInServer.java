@@ -0,0 +1,34 @@
+package at.ac.fhcampuswien.fhmdb.benchmarks;
+
+import at.ac.fhcampuswien.fhmdb.fixture.MovieFixtures;
+import at.ac.fhcampuswien.fhmdb.server.MovieServer;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+// starts a MovieServer with a generated catalogue, e.g.
+// java -cp target/benchmarks.jar at.ac.fhcampuswien.fhmdb.benchmarks.StandInServer --port=8080 --movies=100000 --seed=42
+// --latency=20-80 --error-rate=0.01 --local-posters=true
+public class StandInServer {
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        int movies = Integer.parseInt(options.getOrDefault("movies", "1000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        MovieServer server = new MovieServer(MovieFixtures.generate(movies, seed),
+                Integer.parseInt(options.getOrDefault("port", "8080")));
+        String[] latency = options.getOrDefault("latency", "0").split("-");
+        server.setLatency(Long.parseLong(latency[0]), Long.parseLong(latency[latency.length - 1]));
+        server.setErrorRate(Double.parseDouble(options.getOrDefault("error-rate", "0")));
+        server.setLocalPosters(Boolean.parseBoolean(options.getOrDefault("local-posters", "false")));
+        server.start();
+        System.out.println("Serving " + movies + " movies at " + server.getUrl());
+    }
+}
@@ -0,0 +1,54 @@
+package at.ac.fhcampuswien.fhmdb.benchmarks;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+// distinct English-like words built from common syllables, 2 to about 14 letters with most of them around 6 to 8,
+// so a dictionary of a real catalogue's size has a realistic number of words per length and per letter gram.
+// the fixture catalogue only knows the few hundred words of the sample
+final class Vocabulary {
+    private static final String[] ONSETS = {"", "", "b", "c", "d", "f", "g", "h", "j", "k", "l", "m", "n", "p", "r",
+            "s", "t", "v", "w", "y", "z", "bl", "br", "ch", "cl", "cr", "dr", "fl", "fr", "gl", "gr", "pl", "pr", "sc",
+            "sh", "sk", "sl", "sm", "sn", "sp", "st", "str", "sw", "th", "tr", "wh"};
+    private static final String[] NUCLEI = {"a", "a", "e", "e", "i", "i", "o", "o", "u", "ai", "ea", "ee", "ie", "oa",
+            "oo", "ou", "y"};
+    private static final String[] CODAS = {"", "", "", "b", "ck", "d", "ff", "g", "l", "ll", "m", "n", "nd", "ng",
+            "nk", "nt", "p", "r", "rd", "rk", "rn", "rt", "s", "ss", "st", "t", "th", "x"};
+    // share of words with 1, 2, 3 and 4 syllables
+    private static final double[] SYLLABLES = {0.15, 0.45, 0.3, 0.1};
+
+    private Vocabulary() {
+    }
+
+    static String[] generate(int size, long seed) {
+        Random random = new Random(seed);
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < size) {
+            StringBuilder word = new StringBuilder();
+            int syllables = syllables(random);
+            for (int i = 0; i < syllables; i++) {
+                word.append(pick(random, ONSETS)).append(pick(random, NUCLEI)).append(pick(random, CODAS));
+            }
+            if (word.length() >= 2) {
+                words.add(word.toString());
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+
+    private static int syllables(Random random) {
+        double share = random.nextDouble();
+        for (int i = 0; i < SYLLABLES.length; i++) {
+            share -= SYLLABLES[i];
+            if (share < 0) {
+                return i + 1;
+            }
+        }
+        return SYLLABLES.length;
+    }
+
+    private static String pick(Random random, String[] parts) {
+        return parts[random.nextInt(parts.length)];
+    }
+}
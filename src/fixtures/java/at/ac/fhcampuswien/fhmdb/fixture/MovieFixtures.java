@@ -0,0 +1,126 @@
+package at.ac.fhcampuswien.fhmdb.fixture;
+
+import at.ac.fhcampuswien.fhmdb.api.MovieJson;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.search.TextIndex;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// a small sample catalogue for the tests and benchmarks, plus a generator that derives synthetic
+// catalogues of any size from it (for benchmarks and offline testing). generated catalogues only depend
+// on count and seed, so the same arguments always produce the same movies
+public final class MovieFixtures {
+    private static final String SAMPLE = "/at/ac/fhcampuswien/fhmdb/fixtures/movies.json";
+    private static final Genre[] GENRES = Genre.values();
+
+    private MovieFixtures() {
+    }
+
+    public static List<Movie> sample() {
+        try (InputStream in = MovieFixtures.class.getResourceAsStream(SAMPLE)) {
+            if (in == null) {
+                throw new IllegalStateException("missing fixture " + SAMPLE);
+            }
+            return MovieJson.readMovies(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static List<Movie> generate(int count, long seed) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative");
+        }
+        List<Movie> sample = sample();
+        Random random = new Random(seed);
+
+        Set<String> words = new TreeSet<>();
+        Set<String> firstNames = new TreeSet<>();
+        Set<String> lastNames = new TreeSet<>();
+        for (Movie movie : sample) {
+            for (String word : TextIndex.tokenize(movie.getTitle())) {
+                words.add(Character.toUpperCase(word.charAt(0)) + word.substring(1));
+            }
+            for (List<String> people : List.of(movie.getDirectors(), movie.getWriters(), movie.getMainCast())) {
+                for (String person : people) {
+                    int space = person.lastIndexOf(' ');
+                    firstNames.add(space < 0 ? person : person.substring(0, space));
+                    lastNames.add(person.substring(space + 1));
+                }
+            }
+        }
+        Names names = new Names(firstNames.toArray(new String[0]), lastNames.toArray(new String[0]),
+                Math.max(50, count / 10));
+        String[] titleWords = words.toArray(new String[0]);
+
+        List<Movie> movies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Movie template = sample.get(random.nextInt(sample.size()));
+            movies.add(new Movie(
+                    new UUID(random.nextLong(), random.nextLong()).toString(),
+                    title(random, titleWords),
+                    template.getDescription(),
+                    genres(random),
+                    1950 + random.nextInt(74),
+                    template.getImgUrl(),
+                    70 + random.nextInt(130),
+                    names.pick(random, 1 + random.nextInt(2)),
+                    names.pick(random, 1 + random.nextInt(3)),
+                    names.pick(random, 2 + random.nextInt(4)),
+                    (10 + random.nextInt(91)) / 10.0));
+        }
+        return movies;
+    }
+
+    private static String title(Random random, String[] words) {
+        StringBuilder title = new StringBuilder(random.nextBoolean() ? "The" : words[random.nextInt(words.length)]);
+        int length = 1 + random.nextInt(3);
+        for (int i = 0; i < length; i++) {
+            title.append(' ').append(words[random.nextInt(words.length)]);
+        }
+        return title.toString();
+    }
+
+    private static List<Genre> genres(Random random) {
+        int count = 1 + random.nextInt(3);
+        List<Genre> genres = new ArrayList<>(count);
+        while (genres.size() < count) {
+            Genre genre = GENRES[random.nextInt(GENRES.length)];
+            if (!genres.contains(genre)) {
+                genres.add(genre);
+            }
+        }
+        return genres;
+    }
+
+    // pool of person names built from the first and last names of the sample. a few people appear in
+    // many movies and most in only a few, similar to a real catalogue
+    private static class Names {
+        private final String[] pool;
+
+        Names(String[] firstNames, String[] lastNames, int size) {
+            pool = new String[size];
+            for (int person = 0; person < size; person++) {
+                String name = firstNames[person % firstNames.length] + " "
+                        + lastNames[(person / firstNames.length) % lastNames.length];
+                int generation = person / (firstNames.length * lastNames.length);
+                pool[person] = generation == 0 ? name : name + " " + (generation + 1);
+            }
+        }
+
+        List<String> pick(Random random, int count) {
+            List<String> picked = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                double skew = random.nextDouble();
+                picked.add(pool[(int) (pool.length * skew * skew)]);
+            }
+            return picked;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package at.ac.fhcampuswien.fhmdb.server;
+
+import at.ac.fhcampuswien.fhmdb.api.MovieJson;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.search.MovieIndex;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+// local stand-in for the /movies API with the same query/genre/releaseYear/ratingFrom semantics,
+// so the tests and the benchmarks can run without the live service. latency and errors can be
+// injected to see how the client behaves under load
+public class MovieServer {
+    private static final int POSTER_WIDTH = 200;
+    private static final int POSTER_HEIGHT = 300;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private volatile Catalogue catalogue;
+    private volatile long minLatencyMillis;
+    private volatile long maxLatencyMillis;
+    private volatile double errorRate;
+    private volatile boolean localPosters;
+    private volatile boolean paging = true;
+
+    private record Catalogue(MovieIndex index, Map<String, Movie> byId, String etag) {
+    }
+
+    // port 0 picks a free port
+    public MovieServer(List<Movie> movies, int port) throws IOException {
+        setMovies(movies);
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+        server.setExecutor(executor);
+        server.createContext("/movies", this::handle);
+        server.createContext("/posters", this::handlePoster);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // base url to use for MovieAPI.setBaseUrl
+    public String getUrl() {
+        return "http://localhost:" + getPort() + "/movies";
+    }
+
+    // replaces the served catalogue, clients with the old etag get the new one on their next request
+    public void setMovies(List<Movie> movies) {
+        Map<String, Movie> byId = new HashMap<>();
+        for (Movie movie : movies) {
+            byId.put(movie.getId(), movie);
+        }
+        Catalogue previous = catalogue;
+        int version = previous == null ? 1 : Integer.parseInt(previous.etag().replace("\"", "")) + 1;
+        catalogue = new Catalogue(new MovieIndex(movies), byId, "\"" + version + "\"");
+    }
+
+    // every response is delayed by a random time between min and max
+    public void setLatency(long minMillis, long maxMillis) {
+        if (minMillis < 0 || maxMillis < minMillis) {
+            throw new IllegalArgumentException("invalid latency range " + minMillis + ".." + maxMillis);
+        }
+        this.minLatencyMillis = minMillis;
+        this.maxLatencyMillis = maxMillis;
+    }
+
+    // share of requests that fail with 500, between 0 and 1
+    public void setErrorRate(double errorRate) {
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("error rate must be between 0 and 1");
+        }
+        this.errorRate = errorRate;
+    }
+
+    // if set, the imgUrl of every served movie points at a poster generated by this server, so posters
+    // can be loaded offline
+    public void setLocalPosters(boolean localPosters) {
+        this.localPosters = localPosters;
+    }
+
+    // if cleared, page and size are ignored and the whole result is sent like by a server that doesn't page
+    public void setPaging(boolean paging) {
+        this.paging = paging;
+    }
+
+    // url of the generated poster of a movie
+    public String getPosterUrl(String movieId) {
+        return "http://localhost:" + getPort() + "/posters/" + movieId + ".png";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                QueryService.sendStatus(exchange, 405);
+                return;
+            }
+            injectLatency();
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                QueryService.sendStatus(exchange, 500);
+                return;
+            }
+
+            Catalogue current = catalogue;
+            String path = exchange.getRequestURI().getPath();
+            if (path.startsWith("/movies/") && path.length() > "/movies/".length()) {
+                Movie movie = current.byId().get(path.substring("/movies/".length()));
+                if (movie == null) {
+                    QueryService.sendStatus(exchange, 404);
+                } else {
+                    sendMovies(exchange, withPosters(List.of(movie)), false, null);
+                }
+                return;
+            }
+
+            Map<String, String> parameters = QueryService.parseQuery(exchange.getRequestURI().getRawQuery());
+            String page = parameters.remove("page");
+            String size = parameters.remove("size");
+            List<Movie> movies;
+            try {
+                String genre = parameters.get("genre");
+                movies = current.index().query(parameters.get("query"),
+                        genre == null || genre.isEmpty() ? null : Genre.valueOf(genre),
+                        parameters.get("releaseYear"), parameters.get("ratingFrom"));
+            } catch (IllegalArgumentException e) {
+                QueryService.sendStatus(exchange, 400);
+                return;
+            }
+
+            // only the unfiltered catalogue is versioned, filtered results are always sent
+            boolean unfiltered = parameters.values().stream().allMatch(String::isEmpty);
+            if (unfiltered && current.etag().equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.getResponseHeaders().set("ETag", current.etag());
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            if (page != null && size != null && paging) {
+                sendPage(exchange, movies, page, size);
+                return;
+            }
+            sendMovies(exchange, withPosters(movies), true, unfiltered ? current.etag() : null);
+        }
+    }
+
+    // page is zero based, the number of movies across all pages is sent in X-Total-Count
+    private void sendPage(HttpExchange exchange, List<Movie> movies, String page, String size) throws IOException {
+        int pageNumber;
+        int pageSize;
+        try {
+            pageNumber = Integer.parseInt(page);
+            pageSize = Integer.parseInt(size);
+        } catch (NumberFormatException e) {
+            QueryService.sendStatus(exchange, 400);
+            return;
+        }
+        if (pageNumber < 0 || pageSize <= 0) {
+            QueryService.sendStatus(exchange, 400);
+            return;
+        }
+        int from = (int) Math.min((long) pageNumber * pageSize, movies.size());
+        int to = Math.min(from + pageSize, movies.size());
+        exchange.getResponseHeaders().set("X-Total-Count", Integer.toString(movies.size()));
+        sendMovies(exchange, withPosters(movies.subList(from, to)), true, null);
+    }
+
+    // /posters/<movie id>.png, a plain poster in a color derived from the id
+    private void handlePoster(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                QueryService.sendStatus(exchange, 405);
+                return;
+            }
+            injectLatency();
+            String id = path.startsWith("/posters/") && path.endsWith(".png")
+                    ? path.substring("/posters/".length(), path.length() - ".png".length()) : "";
+            if (!catalogue.byId().containsKey(id)) {
+                QueryService.sendStatus(exchange, 404);
+                return;
+            }
+            byte[] png = posterPng(id, POSTER_WIDTH, POSTER_HEIGHT);
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+            exchange.getResponseHeaders().set("Cache-Control", "max-age=86400");
+            exchange.sendResponseHeaders(200, png.length);
+            exchange.getResponseBody().write(png);
+        }
+    }
+
+    private List<Movie> withPosters(List<Movie> movies) {
+        if (!localPosters) {
+            return movies;
+        }
+        List<Movie> result = new ArrayList<>(movies.size());
+        for (Movie movie : movies) {
+            result.add(new Movie(movie.getId(), movie.getTitle(), movie.getDescription(), movie.getGenres(),
+                    movie.getReleaseYear(), getPosterUrl(movie.getId()), movie.getLengthInMinutes(),
+                    movie.getDirectors(), movie.getWriters(), movie.getMainCast(), movie.getRating()));
+        }
+        return result;
+    }
+
+    // a vertical gradient as an 8 bit RGB png, written by hand so the server doesn't need java.desktop
+    static byte[] posterPng(String id, int width, int height) throws IOException {
+        int color = id.hashCode();
+        byte[] raw = new byte[height * (1 + width * 3)];
+        int position = 0;
+        for (int y = 0; y < height; y++) {
+            raw[position++] = 0; // no filter
+            double shade = 0.4 + 0.6 * (height - y) / height;
+            for (int x = 0; x < width; x++) {
+                raw[position++] = (byte) (((color >> 16) & 0xff) * shade);
+                raw[position++] = (byte) (((color >> 8) & 0xff) * shade);
+                raw[position++] = (byte) ((color & 0xff) * shade);
+            }
+        }
+        ByteArrayOutputStream pixels = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(pixels, new Deflater(Deflater.BEST_SPEED))) {
+            deflater.write(raw);
+        }
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(png);
+        out.write(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'});
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream headerOut = new DataOutputStream(header);
+        headerOut.writeInt(width);
+        headerOut.writeInt(height);
+        headerOut.write(new byte[]{8, 2, 0, 0, 0}); // 8 bit, truecolor, deflate, no filter, not interlaced
+        writeChunk(out, "IHDR", header.toByteArray());
+        writeChunk(out, "IDAT", pixels.toByteArray());
+        writeChunk(out, "IEND", new byte[0]);
+        return png.toByteArray();
+    }
+
+    private static void writeChunk(DataOutputStream out, String type, byte[] data) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        out.writeInt(data.length);
+        out.write(typeBytes);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private void injectLatency() {
+        long min = minLatencyMillis;
+        long max = maxLatencyMillis;
+        if (max <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(min == max ? min : ThreadLocalRandom.current().nextLong(min, max + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // the json is written straight to the (chunked) response body, no intermediate string
+    private static void sendMovies(HttpExchange exchange, List<Movie> movies, boolean asArray, String etag) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (etag != null) {
+            exchange.getResponseHeaders().set("ETag", etag);
+        }
+        exchange.sendResponseHeaders(200, 0);
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)))) {
+            if (asArray) {
+                writer.beginArray();
+            }
+            for (Movie movie : movies) {
+                MovieJson.GSON.toJson(movie, Movie.class, writer);
+            }
+            if (asArray) {
+                writer.endArray();
+            }
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package at.ac.fhcampuswien.fhmdb;
 
+import at.ac.fhcampuswien.fhmdb.api.CatalogueCache;
+import at.ac.fhcampuswien.fhmdb.metrics.Metrics;
+import at.ac.fhcampuswien.fhmdb.server.HeadlessMode;
+import at.ac.fhcampuswien.fhmdb.ui.FrameMonitor;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Objects;
 
 public class FhmdbApplication extends Application {
@@ -17,9 +22,21 @@ public class FhmdbApplication extends Application {
         stage.setScene(scene);
         stage.show();
 
+        if (Metrics.isEnabled()) {
+            FrameMonitor.install(scene);
+        }
     }
 
-    public static void main(String[] args) {
+    // --headless (or -Dfhmdb.headless=true) serves the catalogue to other tools instead of showing it
+    public static void main(String[] args) throws IOException {
+        Metrics.dumpOnExit();
+        if (Arrays.asList(args).contains("--headless") || Boolean.getBoolean("fhmdb.headless")) {
+            HeadlessMode headless = new HeadlessMode(CatalogueCache.createDefault());
+            headless.start();
+            System.out.println("Serving " + headless.getCatalogue().current().getMovies().size()
+                    + " movies at " + headless.getService().getUrl());
+            return;
+        }
         launch();
     }
 }
\ No newline at end of file
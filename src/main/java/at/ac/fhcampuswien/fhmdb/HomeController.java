@@ -1,13 +1,37 @@
 package at.ac.fhcampuswien.fhmdb;
 
+import at.ac.fhcampuswien.fhmdb.analytics.MovieAnalytics;
+import at.ac.fhcampuswien.fhmdb.api.CatalogueCache;
 import at.ac.fhcampuswien.fhmdb.api.MovieAPI;
+import at.ac.fhcampuswien.fhmdb.api.MovieResponseCache;
+import at.ac.fhcampuswien.fhmdb.metrics.Metrics;
+import at.ac.fhcampuswien.fhmdb.metrics.Timer;
 import at.ac.fhcampuswien.fhmdb.models.Genre;
 import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.models.MovieCatalog;
 import at.ac.fhcampuswien.fhmdb.models.SortedState;
+import at.ac.fhcampuswien.fhmdb.recommend.MovieRecommender;
+import at.ac.fhcampuswien.fhmdb.search.AsyncMovieSearch;
+import at.ac.fhcampuswien.fhmdb.search.FacetCounter;
+import at.ac.fhcampuswien.fhmdb.search.FuzzyIndex;
+import at.ac.fhcampuswien.fhmdb.search.IncrementalFilter;
+import at.ac.fhcampuswien.fhmdb.search.MoviePageSource;
+import at.ac.fhcampuswien.fhmdb.search.MovieIndex;
+import at.ac.fhcampuswien.fhmdb.search.MovieSorter;
+import at.ac.fhcampuswien.fhmdb.search.SearchScheduler;
+import at.ac.fhcampuswien.fhmdb.sync.CatalogueDelta;
+import at.ac.fhcampuswien.fhmdb.sync.CatalogueSnapshot;
+import at.ac.fhcampuswien.fhmdb.sync.CatalogueStore;
+import at.ac.fhcampuswien.fhmdb.sync.CatalogueSync;
+import at.ac.fhcampuswien.fhmdb.ui.FxPosterDecoder;
+import at.ac.fhcampuswien.fhmdb.ui.ListDiff;
 import at.ac.fhcampuswien.fhmdb.ui.MovieCell;
+import at.ac.fhcampuswien.fhmdb.ui.PagedMovieList;
+import at.ac.fhcampuswien.fhmdb.ui.PosterLoader;
 import com.jfoenix.controls.JFXButton;
 import com.jfoenix.controls.JFXComboBox;
 import com.jfoenix.controls.JFXListView;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -15,14 +39,24 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
+import javafx.scene.image.Image;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
-import static at.ac.fhcampuswien.fhmdb.api.MovieAPI.getAllMovies;
 
 public class HomeController implements Initializable {
+    private static final System.Logger LOGGER = System.getLogger(HomeController.class.getName());
+
     @FXML
     public JFXButton searchBtn;
 
@@ -33,26 +67,124 @@ public class HomeController implements Initializable {
     public JFXButton resetBtn;
 
     @FXML
-    public JFXListView movieListView;
+    public JFXListView<Movie> movieListView;
 
     @FXML
-    public JFXComboBox genreComboBox;
+    public JFXComboBox<Object> genreComboBox;
 
     @FXML
     public JFXButton sortBtn;
     @FXML
-    public JFXComboBox releaseYearComboBox;
+    public JFXComboBox<String> sortByComboBox;
+    @FXML
+    public JFXComboBox<Integer> releaseYearComboBox;
 
-    @FXML JFXComboBox ratingComboBox;
+    @FXML JFXComboBox<Double> ratingComboBox;
 
+    // the movies of the shown snapshot
     public List<Movie> allMovies;
 
     protected ObservableList<Movie> observableMovies = FXCollections.observableArrayList();
 
     protected SortedState sortedState;
+    // keys the movies are sorted by, the direction of the first one follows sortedState
+    protected List<MovieSorter.SortOrder> sortOrders = List.of(MovieSorter.SortOrder.ascending(MovieSorter.Key.TITLE));
+
+    // the choices of the "Sort by" combo box, the first key of a choice is its default direction
+    protected static final Map<String, List<MovieSorter.SortOrder>> SORT_CHOICES = new LinkedHashMap<>();
+
+    static {
+        SORT_CHOICES.put("Title", List.of(MovieSorter.SortOrder.ascending(MovieSorter.Key.TITLE)));
+        SORT_CHOICES.put("Best rated", List.of(MovieSorter.SortOrder.descending(MovieSorter.Key.RATING),
+                MovieSorter.SortOrder.ascending(MovieSorter.Key.TITLE)));
+        SORT_CHOICES.put("Newest", List.of(MovieSorter.SortOrder.descending(MovieSorter.Key.RELEASE_YEAR),
+                MovieSorter.SortOrder.descending(MovieSorter.Key.RATING)));
+        SORT_CHOICES.put("Shortest", List.of(MovieSorter.SortOrder.ascending(MovieSorter.Key.LENGTH),
+                MovieSorter.SortOrder.ascending(MovieSorter.Key.TITLE)));
+    }
 
-    public static ArrayList<Label> titlesList = new ArrayList<Label>();
-    public static ArrayList<Label> descriptionsList = new ArrayList<Label>();
+    // number of movies shown by "more like this"
+    protected static final int RECOMMENDATIONS = 20;
+
+    // results with more movies than this are not copied into observableMovies (-Dfhmdb.paging.threshold).
+    // a local result is shown as it is, a result of the API is loaded page by page while the list view scrolls
+    protected static final int PAGING_THRESHOLD = Integer.getInteger("fhmdb.paging.threshold", 10_000);
+    private static final int PAGE_SIZE = 200;
+    private static final int MAX_PAGES = 8;
+    // loads the pages of a paged result, a few at a time
+    private static final ExecutorService PAGE_LOADER = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "page-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // local result shown in place of observableMovies, null otherwise
+    protected List<Movie> largeResult;
+    // result of the API that is loaded page by page, null otherwise
+    protected PagedMovieList pagedMovies;
+
+    // local index over allMovies, filters are answered from it instead of calling the API again
+    protected MovieIndex movieIndex;
+    // narrows the previous result when the filters only got stricter
+    protected IncrementalFilter incrementalFilter;
+    // sorts filter results by the cached order of the whole catalogue
+    protected MovieSorter movieSorter;
+    // docs of the last filter result, null until the first filter
+    private BitSet currentMatches;
+    // best matches first if currentMatches came from the typo tolerant search or the recommendations, null otherwise
+    private int[] ranking;
+    // counts per genre, year and rating for the filter combo boxes
+    protected FacetCounter facetCounter;
+    // catalog behind allMovies (same positions), filters and statistics over allMovies scan its arrays
+    protected MovieCatalog movieCatalog;
+    // statistics over a movieCatalog that is not the one of the snapshot, computed on first use (again if null)
+    protected MovieAnalytics.Summary catalogueSummary;
+    // typo tolerant search over a movieIndex that is not the one of the snapshot
+    private CompletableFuture<FuzzyIndex> fuzzyIndex;
+    private MovieIndex fuzzyIndexOf;
+    // the fuzzy index that the filters are applied again for once it is built
+    private CompletableFuture<FuzzyIndex> awaitedFuzzyIndex;
+
+    protected final CatalogueCache catalogueCache = CatalogueCache.createDefault();
+    // the newest version of the catalogue. a refresh publishes the next version from a background thread, the
+    // FX thread then takes it over as a whole (showSnapshot). allMovies, movieIndex, movieSorter and movieCatalog
+    // are the parts of the shown snapshot and only change on the FX thread
+    protected final CatalogueStore catalogue = new CatalogueStore();
+    protected CatalogueSnapshot snapshot;
+    // merges refreshed catalogues into the index of a snapshot, created by the first refresh
+    private volatile CatalogueSync catalogueSync;
+
+    // remembers API responses for filter combinations that are used again and again
+    protected final MovieResponseCache responseCache = MovieResponseCache.createDefault();
+
+    protected final AsyncMovieSearch movieSearch = new AsyncMovieSearch(observableMovies, responseCache);
+
+    // posters of the movie cells, loaded in the background and cached in memory and on disk
+    protected final PosterLoader<Image> posterLoader = PosterLoader.createDefault(new FxPosterDecoder(),
+            MovieCell.POSTER_WIDTH, MovieCell.POSTER_HEIGHT);
+
+    // typing in the search field searches once the user pauses. the local index answers quickly, so it gets
+    // a shorter pause than the API. while typing continues, results are shown at the latest after MAX_SEARCH_DELAY
+    private static final Duration LOCAL_DEBOUNCE = Duration.ofMillis(Long.getLong("fhmdb.search.localDebounceMs", 80));
+    private static final Duration REMOTE_DEBOUNCE = Duration.ofMillis(Long.getLong("fhmdb.search.remoteDebounceMs", 300));
+    private static final Duration MAX_SEARCH_DELAY = Duration.ofMillis(Long.getLong("fhmdb.search.maxDelayMs", 600));
+    private static final ScheduledExecutorService SEARCH_TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    protected final SearchScheduler searchScheduler = new SearchScheduler(SEARCH_TIMER, Platform::runLater, MAX_SEARCH_DELAY);
+
+    // time spent filtering and sorting, see Metrics
+    private static final Timer FILTER = Metrics.timer("home.applyAllFilters");
+    private static final Timer FILTER_BY_QUERY = Metrics.timer("home.filterByQuery");
+    private static final Timer FILTER_BY_GENRE = Metrics.timer("home.filterByGenre");
+    private static final Timer SORT = Metrics.timer("home.sort");
+
+    // labels of the movie cells that are alive, the list view creates and drops cells on its own,
+    // so they are only referenced weakly
+    public static final Set<Label> titlesList = Collections.newSetFromMap(new WeakHashMap<>());
+    public static final Set<Label> descriptionsList = Collections.newSetFromMap(new WeakHashMap<>());
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
@@ -62,22 +194,206 @@ public class HomeController implements Initializable {
 
     public void initializeState() {
         //allMovies = Movie.initializeMovies();
-        allMovies = getAllMovies();
-        observableMovies.clear();
-        observableMovies.addAll(allMovies); // add all movies to the observable list
+        CatalogueCache.Snapshot cached = catalogueCache.load();
+        // show the cached catalogue right away, the API is only asked once the cache is outdated
+        List<Movie> movies = cached != null ? cached.movies() : downloadCatalogue();
         sortedState = SortedState.NONE;
+        if (!Platform.isFxApplicationThread()) {
+            // e.g. the tests, nothing is painted so the snapshot is simply built here
+            showSnapshot(catalogue.replace(movies));
+            showCatalogue();
+            refreshIfOutdated(cached);
+            return;
+        }
+        // indexing, sorting and counting the catalogue would delay the first paint. the plain list is shown
+        // meanwhile and filters are sent to the API, until the FX thread takes the snapshot over
+        allMovies = movies;
+        showCatalogue();
+        CompletableFuture.supplyAsync(() -> catalogue.replace(movies))
+                .thenAccept(snapshot -> {
+                    Platform.runLater(this::showLatestSnapshot);
+                    refreshIfOutdated(cached);
+                })
+                .exceptionally(e -> {
+                    LOGGER.log(System.Logger.Level.WARNING, "Could not index movies: {0}", e.getMessage());
+                    return null;
+                });
+    }
+
+    private void showCatalogue() {
+        if (allMovies.size() > PAGING_THRESHOLD) {
+            showLarge(allMovies);
+        } else {
+            observableMovies.clear();
+            observableMovies.addAll(allMovies); // add all movies to the observable list
+        }
+    }
+
+    private void refreshIfOutdated(CatalogueCache.Snapshot cached) {
+        if (cached != null && !catalogueCache.isFresh(cached)) {
+            refreshCatalogueInBackground(cached);
+        }
+    }
+
+    private List<Movie> downloadCatalogue() {
+        try {
+            MovieAPI.CatalogueResponse response = MovieAPI.getCatalogue(null, null);
+            catalogueCache.save(response.movies(), response.etag(), response.lastModified());
+            return response.movies();
+        } catch (IOException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Could not download movies: {0}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    // asks the API whether the cached catalogue is still up to date and only swaps it in if it has changed
+    // the next snapshot is built on the refresh thread, the FX thread only swaps it in
+    private void refreshCatalogueInBackground(CatalogueCache.Snapshot cached) {
+        CatalogueSnapshot base = catalogue.current();
+        CompletableFuture.supplyAsync(() -> {
+                    try {
+                        MovieAPI.CatalogueResponse response = MovieAPI.getCatalogue(cached.etag(), cached.lastModified());
+                        if (response.notModified()) {
+                            catalogueCache.touch();
+                        } else {
+                            catalogueCache.save(response.movies(), response.etag(), response.lastModified());
+                        }
+                        return response;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .thenAccept(response -> {
+                    if (response.notModified()) {
+                        return;
+                    }
+                    CatalogueSnapshot next = refreshedSnapshot(base, response.movies());
+                    // a newer version that was published meanwhile wins, the refresh is then outdated
+                    if (next != null && catalogue.publish(base, next)) {
+                        Platform.runLater(this::showLatestSnapshot);
+                    }
+                })
+                .exceptionally(e -> {
+                    LOGGER.log(System.Logger.Level.WARNING, "Could not refresh movies: {0}", e.getMessage());
+                    return null;
+                });
+    }
+
+    // the version after base with the fetched movies, null if nothing has changed. runs on the refresh thread.
+    // movies with unique ids are merged into the index of base: only the changed movies are indexed and the sort
+    // orders are extended (see CatalogueSync, MovieSorter). until the sync compacts the index, the merged version
+    // has no single catalog, so the statistics shortcuts over movieCatalog are skipped and getSummary copies the
+    // movies once; listing the live docs (allMovies) is still linear in the size of the catalogue
+    protected CatalogueSnapshot refreshedSnapshot(CatalogueSnapshot base, List<Movie> fetched) {
+        CatalogueSync sync = catalogueSync(base.getIndex());
+        if (sync != null && CatalogueSync.canSync(fetched)) {
+            // only the movies that changed are indexed
+            CatalogueDelta delta = sync.diff(fetched);
+            return delta.isEmpty() ? null : base.next(sync.apply(delta));
+        }
+        return sameCatalogue(base.getMovies(), fetched) ? null : base.next(fetched);
+    }
+
+    private static boolean sameCatalogue(List<Movie> current, List<Movie> refreshed) {
+        if (current.size() != refreshed.size()) {
+            return false;
+        }
+        for (int i = 0; i < current.size(); i++) {
+            Movie movie = current.get(i);
+            Movie other = refreshed.get(i);
+            if (!Objects.equals(movie.getId(), other.getId()) || !movie.equals(other)
+                    || movie.getReleaseYear() != other.getReleaseYear() || movie.getRating() != other.getRating()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // sync of the given index, null if its movies can't be matched by id. runs on the refresh thread
+    private CatalogueSync catalogueSync(MovieIndex index) {
+        if (index == null) {
+            return null;
+        }
+        if (catalogueSync == null || catalogueSync.getIndex() != index) {
+            try {
+                catalogueSync = new CatalogueSync(index);
+            } catch (IllegalArgumentException e) {
+                catalogueSync = null;
+            }
+        }
+        return catalogueSync;
+    }
+
+    // takes over the newest published snapshot and filters it again. several refreshes in a row only
+    // show the last one
+    protected void showLatestSnapshot() {
+        CatalogueSnapshot latest = catalogue.current();
+        if (latest == snapshot) {
+            return;
+        }
+        // a search that was sent to the API before the first snapshot was ready is answered locally now
+        movieSearch.cancel();
+        responseCache.invalidateAll();
+        showSnapshot(latest);
+        applyCurrentFilters();
+    }
+
+    // the filters keep state about the previous result, so they start over with every snapshot
+    private void showSnapshot(CatalogueSnapshot snapshot) {
+        this.snapshot = snapshot;
+        allMovies = snapshot.getMovies();
+        movieIndex = snapshot.getIndex();
+        movieSorter = snapshot.getSorter();
+        movieCatalog = snapshot.getCatalog();
+        // both start from what the snapshot computed before it was published, nothing is counted here
+        incrementalFilter = snapshot.newFilter();
+        facetCounter = snapshot.newFacetCounter();
+        currentMatches = null;
+        ranking = null;
+        // built in the background, so the first query with a typo or the first recommendation doesn't wait for it
+        snapshot.getFuzzyIndex();
+        snapshot.getRecommender();
+    }
+
+    // true if the movies are the rows of movieCatalog, they can then be answered from its columns
+    private boolean isCatalogue(List<Movie> movies) {
+        return movieCatalog != null && movieCatalog.isRows(movies);
+    }
+
+    protected MovieAnalytics.Summary catalogueSummary() {
+        if (snapshot != null && snapshot.getCatalog() == movieCatalog) {
+            // shared with every other reader of the snapshot
+            return snapshot.getSummary();
+        }
+        if (catalogueSummary == null || catalogueSummary.getCatalog() != movieCatalog) {
+            catalogueSummary = MovieAnalytics.summarize(movieCatalog);
+        }
+        return catalogueSummary;
     }
 
     public void initializeLayout() {
-        movieListView.setItems(observableMovies);   // set the items of the listview to the observable list
-        movieListView.setCellFactory(movieListView -> new MovieCell()); // apply custom cells to the listview
+        // set the items of the listview to the observable list (or the whole catalogue if it is very large)
+        movieListView.setItems(largeResult != null ? FXCollections.observableList(largeResult) : observableMovies);
+        movieListView.setCellFactory(movieListView -> new MovieCell(posterLoader, this::showSimilar)); // apply custom cells to the listview
+        searchField.textProperty().addListener((observable, oldText, newText) ->
+                searchScheduler.submit(this::applyCurrentFilters, movieIndex != null ? LOCAL_DEBOUNCE : REMOTE_DEBOUNCE));
 
-        Object[] genres = Genre.values();   // get all genres
-        genreComboBox.getItems().add("No filter");  // add "no filter" to the combobox
-        genreComboBox.getItems().addAll(genres);    // add all genres to the combobox
-        genreComboBox.setPromptText("Filter by Genre");
+        sortByComboBox.setPromptText("Sort by");
+        sortByComboBox.getItems().addAll(SORT_CHOICES.keySet());
 
+        genreComboBox.setPromptText("Filter by Genre");
         releaseYearComboBox.setPromptText("Filter by Release Year");
+        ratingComboBox.setPromptText("Filter by rating");
+        if (facetCounter != null) {
+            // only offer values that return movies
+            updateFacets(null, null, null, null);
+            return;
+        }
+
+        Genre[] genres = Genre.values();   // get all genres
+        genreComboBox.getItems().add("No filter");  // add "no filter" to the combobox
+        genreComboBox.getItems().addAll((Object[]) genres);    // add all genres to the combobox
+
         Integer[] releaseYears = new Integer[78];
         for (int i = 0; i < 78; i++) {
             releaseYears[i] = 2023 - i;
@@ -85,64 +401,405 @@ public class HomeController implements Initializable {
         //releaseYearComboBox.getItems().add("No filter");
         releaseYearComboBox.getItems().addAll(releaseYears);
 
-        ratingComboBox.setPromptText("Filter by rating");
         Double[] rating = new Double[]{1.00, 2.00, 3.00, 4.00, 5.00, 6.00, 7.00, 8.00, 9.00, 10.00};
         ratingComboBox.getItems().addAll(rating);
     }
+
+    // fills the combo boxes with the values that return movies together with the other filters,
+    // the selected values are kept even if they don't
+    private void updateFacets(String query, Genre genre, Integer releaseYear, Double ratingFrom) {
+        if (facetCounter == null || genreComboBox == null) {
+            return;
+        }
+        FacetCounter.Facets facets = facetCounter.count(query, genre, releaseYear, ratingFrom);
+
+        List<Object> genres = new ArrayList<>();
+        genres.add("No filter");
+        for (Genre value : Genre.values()) {
+            if (facets.genres().containsKey(value) || value == genre) {
+                genres.add(value);
+            }
+        }
+        replaceItems(genreComboBox, genres);
+
+        List<Integer> releaseYears = new ArrayList<>(facets.releaseYears().keySet());
+        if (releaseYear != null && !releaseYears.contains(releaseYear)) {
+            releaseYears.add(releaseYear);
+        }
+        replaceItems(releaseYearComboBox, releaseYears);
+
+        List<Double> ratings = new ArrayList<>();
+        for (int rating : facets.ratingsFrom().keySet()) {
+            ratings.add((double) rating);
+        }
+        if (ratingFrom != null && !ratings.contains(ratingFrom)) {
+            ratings.add(ratingFrom);
+        }
+        replaceItems(ratingComboBox, ratings);
+    }
+
+    private static <T> void replaceItems(JFXComboBox<T> comboBox, List<T> items) {
+        if (comboBox.getItems().equals(items)) {
+            return;
+        }
+        T selected = comboBox.getSelectionModel().getSelectedItem();
+        comboBox.getItems().setAll(items);
+        if (selected != null) {
+            comboBox.getSelectionModel().select(selected);
+        }
+    }
+
     // sort movies based on sortedState
     // by default sorted state is NONE
     // afterwards it switches between ascending and descending
     public void sortMovies() {
-        if (sortedState == SortedState.NONE || sortedState == SortedState.DESCENDING) {
-            observableMovies.sort(Comparator.comparing(Movie::getTitle));
-            sortedState = SortedState.ASCENDING;
-        } else if (sortedState == SortedState.ASCENDING) {
-            observableMovies.sort(Comparator.comparing(Movie::getTitle).reversed());
-            sortedState = SortedState.DESCENDING;
+        sortedState = sortedState == SortedState.ASCENDING ? SortedState.DESCENDING : SortedState.ASCENDING;
+        applySortOrder();
+    }
+
+    // sorts by several keys, e.g. rating descending and then title. the sort button toggles the direction of the first key
+    public void sortBy(List<MovieSorter.SortOrder> orders) {
+        if (orders == null || orders.isEmpty()) {
+            throw new IllegalArgumentException("at least one sort order is required");
         }
+        sortOrders = List.copyOf(orders);
+        sortedState = orders.get(0).descending() ? SortedState.DESCENDING : SortedState.ASCENDING;
+        applySortOrder();
     }
 
+    // keys for the current sortedState, empty if the list is not sorted
+    protected List<MovieSorter.SortOrder> currentSortOrders() {
+        if (sortedState == null || sortedState == SortedState.NONE) {
+            return List.of();
+        }
+        MovieSorter.SortOrder first = sortOrders.get(0);
+        if (first.descending() == (sortedState == SortedState.DESCENDING)) {
+            return sortOrders;
+        }
+        List<MovieSorter.SortOrder> orders = new ArrayList<>(sortOrders);
+        orders.set(0, first.reversed());
+        return orders;
+    }
 
-    public List<Movie> filterByQuery(List<Movie> movies, String query){
-        if(query == null || query.isEmpty()) return movies;
+    // puts the shown movies in the current order, without changing the direction
+    private void applySortOrder() {
+        Timer.Sample start = SORT.start();
+        try {
+            if (movieSorter != null) {
+                showMatches();
+                return;
+            }
+            if (largeResult != null) {
+                showLarge(MovieSorter.sorted(largeResult, currentSortOrders()));
+            } else if (pagedMovies == null) {
+                // pages of the API keep its order, only the rows that have been loaded could be sorted.
+                // a single change for the list view
+                observableMovies.setAll(MovieSorter.sorted(observableMovies, currentSortOrders()));
+            }
+        } finally {
+            SORT.stop(start);
+        }
+    }
 
-        if(movies == null) {
-            throw new IllegalArgumentException("movies must not be null");
+    // shows the last filter result (all movies before the first filter) in the current order. the sorter walks
+    // its cached order of the whole catalogue instead of sorting the result again
+    private void showMatches() {
+        if (currentMatches == null) {
+            currentMatches = movieIndex.match(null, null, null, null);
+        }
+        List<MovieSorter.SortOrder> orders = currentSortOrders();
+        List<Movie> movies;
+        if (!orders.isEmpty()) {
+            movies = movieSorter.sortedMovies(currentMatches, orders);
+        } else if (ranking != null) {
+            movies = new ArrayList<>(currentMatches.cardinality());
+            for (int doc : ranking) {
+                if (currentMatches.get(doc)) {
+                    movies.add(movieIndex.get(doc));
+                }
+            }
+        } else {
+            movies = movieIndex.toMovies(currentMatches);
+        }
+        if (movies.size() > PAGING_THRESHOLD) {
+            showLarge(movies);
+        } else {
+            showAll(movies);
         }
+    }
 
-        return movies.stream()
-                .filter(Objects::nonNull)
-                .filter(movie ->
-                    movie.getTitle().toLowerCase().contains(query.toLowerCase()) ||
-                    movie.getDescription().toLowerCase().contains(query.toLowerCase())
-                )
-                .toList();
+    // the list view reads the result directly, observableMovies stays empty meanwhile
+    private void showLarge(List<Movie> movies) {
+        largeResult = movies;
+        pagedMovies = null;
+        observableMovies.clear();
+        if (movieListView != null) {
+            movieListView.setItems(FXCollections.observableList(movies));
+        }
     }
 
-    public List<Movie> filterByGenre(List<Movie> movies, Genre genre){
-        if(genre == null) return movies;
+    // the list view only loads the pages around the rows it shows, far away pages are dropped again
+    private void showPages(MoviePageSource pages) {
+        largeResult = null;
+        pagedMovies = new PagedMovieList(pages, PAGE_SIZE, MAX_PAGES, PAGE_LOADER, Platform::runLater);
+        observableMovies.clear();
+        if (movieListView != null) {
+            movieListView.setItems(pagedMovies);
+        }
+    }
 
-        if(movies == null) {
-            throw new IllegalArgumentException("movies must not be null");
+    private void showAll(List<Movie> movies) {
+        if (largeResult != null || pagedMovies != null) {
+            leaveLarge();
+            observableMovies.setAll(movies);
+            return;
         }
+        // only the rows that changed are removed from or inserted into the list view. movies of the index are
+        // new views on every filter, they are matched by the catalog row they show
+        ListDiff.apply(observableMovies, movies, MovieCatalog::rowKey);
+    }
 
-        return movies.stream()
-                .filter(Objects::nonNull)
-                .filter(movie -> movie.getGenres().contains(genre))
-                .toList();
+    private void leaveLarge() {
+        largeResult = null;
+        pagedMovies = null;
+        if (movieListView != null) {
+            movieListView.setItems(observableMovies);
+        }
+    }
+
+    public List<Movie> filterByQuery(List<Movie> movies, String query){
+        Timer.Sample start = FILTER_BY_QUERY.start();
+        try {
+            if(query == null || query.isEmpty()) return movies;
+
+            if(movies == null) {
+                throw new IllegalArgumentException("movies must not be null");
+            }
+
+            // movies of the index (all of them or an earlier filter result) are answered from the text index
+            BitSet docs = movieIndex == null ? null : movieIndex.docsOf(movies);
+            if (docs != null) {
+                BitSet matches = movieIndex.match(query, null, null, null, docs);
+                if (!matches.isEmpty()) {
+                    return movieIndex.retain(movies, matches);
+                }
+                // the same fallbacks as applyAllFilters
+                QueryFallback fallback = fallbackMatches(query, docs);
+                if (fallback.ranking() == null) {
+                    return movieIndex.retain(movies, fallback.docs());
+                }
+                List<Movie> result = new ArrayList<>(fallback.ranking().length);
+                for (int doc : fallback.ranking()) {
+                    result.add(movieIndex.get(doc));
+                }
+                return result;
+            }
+
+            String lowerCaseQuery = query.toLowerCase();
+            return movies.stream()
+                    .filter(Objects::nonNull)
+                    .filter(movie ->
+                        movie.getTitle().toLowerCase().contains(lowerCaseQuery) ||
+                        movie.getDescription().toLowerCase().contains(lowerCaseQuery)
+                    )
+                    .toList();
+        } finally {
+            FILTER_BY_QUERY.stop(start);
+        }
+    }
+
+    public List<Movie> filterByGenre(List<Movie> movies, Genre genre){
+        Timer.Sample start = FILTER_BY_GENRE.start();
+        try {
+            if(genre == null) return movies;
+
+            if(movies == null) {
+                throw new IllegalArgumentException("movies must not be null");
+            }
+
+            if (isCatalogue(movies)) {
+                List<Movie> result = new ArrayList<>();
+                for (int row = 0; row < movieCatalog.size(); row++) {
+                    if (movieCatalog.hasGenre(row, genre)) {
+                        result.add(movies.get(row));
+                    }
+                }
+                return result;
+            }
+
+            return movies.stream()
+                    .filter(Objects::nonNull)
+                    .filter(movie -> movie.getGenres().contains(genre))
+                    .toList();
+        } finally {
+            FILTER_BY_GENRE.stop(start);
+        }
     }
 
     public void applyAllFilters(String searchQuery, Object genre, String releaseYear, String rating) {
-        List<Movie> filteredMovies = searchQuery.isEmpty() && genre == "No filter" && releaseYear == "Filter by Release Year" && rating == "Filter by rating" ? getAllMovies(null, null, null, null)
-                : getAllMovies(searchQuery.isEmpty() ? null : searchQuery,
-                genre == "No filter" ? null : (Genre) genre,
-                releaseYear == "Filter by Release Year" ? null : releaseYear,
-                rating == "Filter by rating" ? null : rating);
-        observableMovies.clear();
-        observableMovies.addAll(filteredMovies);
+        Timer.Sample start = FILTER.start();
+        try {
+            String query = queryFilter(searchQuery);
+            Genre genreFilter = genreFilter(genre);
+            String releaseYearFilter = valueFilter(releaseYear, "Filter by Release Year");
+            String ratingFilter = valueFilter(rating, "Filter by rating");
+            if (incrementalFilter != null) {
+                Integer year = MovieIndex.parseYear(releaseYearFilter);
+                Double ratingFrom = MovieIndex.parseRating(ratingFilter);
+                currentMatches = incrementalFilter.apply(query, genreFilter, year, ratingFrom);
+                ranking = null;
+                if (currentMatches.isEmpty() && query != null) {
+                    QueryFallback fallback = fallbackMatches(query,
+                            movieIndex.match(null, genreFilter, year, ratingFrom));
+                    currentMatches = fallback.docs();
+                    ranking = fallback.ranking();
+                }
+                updateFacets(query, genreFilter, year, ratingFrom);
+                showMatches();
+                return;
+            }
+            List<Movie> filteredMovies = responseCache.getAllMovies(query, genreFilter, releaseYearFilter, ratingFilter);
+            showAll(filteredMovies);
+        } finally {
+            FILTER.stop(start);
+        }
+    }
+
+    // shows the movies most similar to the given one, best first, until the filters change. the recommender is
+    // built and asked in the background, the list changes once the answer is back on the FX thread
+    public void showSimilar(Movie movie) {
+        if (snapshot == null || snapshot.getIndex() == null || snapshot.getIndex() != movieIndex) {
+            return;
+        }
+        CatalogueSnapshot shown = snapshot;
+        shown.getRecommender()
+                .thenApplyAsync(recommender -> recommender.similarTo(movie, RECOMMENDATIONS))
+                .thenAccept(similar -> Platform.runLater(() -> {
+                    // a refresh may have replaced the catalogue meanwhile, the docs would then be outdated
+                    if (snapshot == shown && movieIndex == shown.getIndex()) {
+                        showSimilar(similar);
+                    }
+                }))
+                .exceptionally(e -> {
+                    LOGGER.log(System.Logger.Level.WARNING, "Could not recommend movies: {0}", e.getMessage());
+                    return null;
+                });
+    }
+
+    private void showSimilar(List<MovieRecommender.Recommendation> similar) {
+        ranking = new int[similar.size()];
+        currentMatches = new BitSet(movieIndex.size());
+        for (int i = 0; i < ranking.length; i++) {
+            ranking[i] = similar.get(i).doc();
+            currentMatches.set(ranking[i]);
+        }
+        // most similar first, the sort button still sorts them
+        sortedState = SortedState.NONE;
+        showMatches();
+    }
+
+    // docs of a fallback for a query, ranking holds them best first if they came from the typo tolerant search
+    private record QueryFallback(BitSet docs, int[] ranking) {
+    }
+
+    // what a query matches among the candidates (the docs passing the other filters) when no movie contains it as
+    // typed, for filterByQuery and applyAllFilters alike: first the movies with all of its words in any order,
+    // then the ones matching it with typos, best first. while the fuzzy index is still being built, the typo
+    // tolerant step matches nothing, and the current filters are applied again once the index is ready
+    private QueryFallback fallbackMatches(String query, BitSet candidates) {
+        BitSet docs = movieIndex.matchTokens(query);
+        docs.and(candidates);
+        if (!docs.isEmpty()) {
+            return new QueryFallback(docs, null);
+        }
+        FuzzyIndex fuzzy = fuzzyIndex();
+        if (fuzzy == null) {
+            return new QueryFallback(docs, null);
+        }
+        IntStream.Builder ranked = IntStream.builder();
+        for (int doc : fuzzy.search(query, Integer.MAX_VALUE)) {
+            if (candidates.get(doc)) {
+                docs.set(doc);
+                ranked.add(doc);
+            }
+        }
+        return new QueryFallback(docs, ranked.build().toArray());
+    }
+
+    // the fuzzy index of movieIndex, null while it is built in the background (never on the FX thread). the
+    // filters are then applied again once it is ready, so a query with a typo finds its movies a moment later
+    private FuzzyIndex fuzzyIndex() {
+        CompletableFuture<FuzzyIndex> future;
+        if (snapshot != null && snapshot.getIndex() == movieIndex) {
+            future = snapshot.getFuzzyIndex();
+        } else {
+            if (fuzzyIndex == null || fuzzyIndexOf != movieIndex) {
+                MovieIndex index = movieIndex;
+                fuzzyIndex = CompletableFuture.supplyAsync(() -> new FuzzyIndex(index));
+                fuzzyIndexOf = movieIndex;
+            }
+            future = fuzzyIndex;
+        }
+        if (future.isDone()) {
+            return future.isCompletedExceptionally() ? null : future.join();
+        }
+        if (awaitedFuzzyIndex != future) {
+            awaitedFuzzyIndex = future;
+            MovieIndex index = movieIndex;
+            future.thenRun(() -> Platform.runLater(() -> {
+                if (movieIndex == index) {
+                    applyCurrentFilters();
+                }
+            }));
+        }
+        return null;
+    }
+
+    // same as applyAllFilters, but the request runs in the background and the list is updated once the response
+    // arrives. only the first page is asked for: a very large result is then loaded page by page while the list
+    // view scrolls, any other result is streamed into observableMovies (see AsyncMovieSearch). a newer search
+    // cancels the request of this one, repeated filters are answered from the response cache
+    public void applyAllFiltersAsync(String searchQuery, Object genre, String releaseYear, String rating) {
+        String query = queryFilter(searchQuery);
+        Genre genreFilter = genreFilter(genre);
+        String releaseYearFilter = valueFilter(releaseYear, "Filter by Release Year");
+        String ratingFilter = valueFilter(rating, "Filter by rating");
+        if (largeResult != null || pagedMovies != null) {
+            leaveLarge();
+        }
+        movieSearch.search(query, genreFilter, releaseYearFilter, ratingFilter, PAGE_SIZE, PAGING_THRESHOLD,
+                this::showPages, this::sortShownMovies);
+    }
+
+    // sorts a result of the API, keeping the current direction (sortMovies would toggle it)
+    private void sortShownMovies() {
+        if (sortedState != SortedState.NONE) {
+            Timer.Sample start = SORT.start();
+            observableMovies.setAll(MovieSorter.sorted(observableMovies, currentSortOrders()));
+            SORT.stop(start);
+        }
+    }
+
+    private static String queryFilter(String searchQuery) {
+        return searchQuery == null || searchQuery.isEmpty() ? null : searchQuery;
+    }
+
+    private static Genre genreFilter(Object genre) {
+        return genre instanceof Genre ? (Genre) genre : null;
+    }
+
+    private static String valueFilter(String value, String placeholder) {
+        return value == null || value.isEmpty() || value.equals(placeholder) ? null : value;
     }
 
     public void searchBtnClicked(ActionEvent actionEvent) {
+        // the search runs now, a search still waiting for the user to stop typing is no longer needed
+        searchScheduler.cancel();
+        applyCurrentFilters();
+    }
+
+    // applies the filters that are currently selected in the UI
+    protected void applyCurrentFilters() {
         String searchQuery = searchField.getText().trim().toLowerCase();
         Object genre = genreComboBox.getSelectionModel().getSelectedItem();
         String releaseYear = "";
@@ -152,10 +809,11 @@ public class HomeController implements Initializable {
         if (ratingComboBox.getSelectionModel().getSelectedItem() != null)
             rating = ratingComboBox.getSelectionModel().getSelectedItem().toString();
 
-        applyAllFilters(searchQuery, genre, releaseYear, rating);
-
-        if(sortedState != SortedState.NONE) {
-            sortMovies();
+        if (movieIndex != null) {
+            // the result keeps the current sort order
+            applyAllFilters(searchQuery, genre, releaseYear, rating);
+        } else {
+            applyAllFiltersAsync(searchQuery, genre, releaseYear, rating);
         }
     }
 
@@ -170,13 +828,26 @@ public class HomeController implements Initializable {
         sortMovies();
     }
 
+    public void sortByComboBoxChanged(ActionEvent actionEvent) {
+        String choice = sortByComboBox.getSelectionModel().getSelectedItem();
+        if (choice != null) {
+            sortBy(SORT_CHOICES.get(choice));
+        }
+    }
+
     public long countMoviesFrom(List<Movie> movies, String director) {
+        if (isCatalogue(movies)) {
+            return catalogueSummary().moviesFrom(director);
+        }
         return movies.stream()
                 .filter(movie -> movie.getDirectors().contains(director))
                 .count();
     }
 
     public int getLongestMovieTitle(List<Movie> movies) {
+        if (isCatalogue(movies)) {
+            return catalogueSummary().getLongestTitle();
+        }
         return movies.stream()
                 .map(Movie::getTitle)
                 .mapToInt(String::length)
@@ -185,12 +856,23 @@ public class HomeController implements Initializable {
     }
 
     public List<Movie> getMoviesBetweenYears(List<Movie> movies, int startYear, int endYear) {
+        if (isCatalogue(movies)) {
+            int[] rows = MovieAnalytics.rowsBetweenYears(movieCatalog, startYear, endYear);
+            List<Movie> result = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                result.add(movies.get(row));
+            }
+            return result;
+        }
         return movies.stream()
                 .filter(movie -> movie.getReleaseYear() >= startYear && movie.getReleaseYear() <= endYear)
                 .collect(Collectors.toList());
     }
 
     public String getMostPopularActor(List<Movie> movies) {
+        if (isCatalogue(movies)) {
+            return mostPopularActor(movieCatalog, catalogueSummary());
+        }
         return movies.stream()
                 .flatMap(movie -> movie.getMainCast().stream())
                 .collect(Collectors.groupingBy(String::toLowerCase, Collectors.counting()))
@@ -200,4 +882,31 @@ public class HomeController implements Initializable {
                 .orElse("");
     }
 
-}
\ No newline at end of file
+    // uses the counts per person id and only lower cases every distinct name once. names are merged in the
+    // order they first appear, so ties are resolved the same way as in the stream version
+    private static String mostPopularActor(MovieCatalog catalog, MovieAnalytics.Summary summary) {
+        MovieCatalog.People mainCast = catalog.mainCast();
+        int positions = catalog.size() == 0 ? 0 : mainCast.to(catalog.size() - 1);
+        // one mutable counter per name instead of a boxed count per merge
+        Map<String, int[]> byName = new HashMap<>();
+        boolean[] merged = new boolean[catalog.personCount()];
+        for (int position = 0; position < positions; position++) {
+            int person = mainCast.get(position);
+            if (!merged[person]) {
+                merged[person] = true;
+                byName.computeIfAbsent(catalog.person(person).toLowerCase(), name -> new int[1])[0] +=
+                        summary.castCount(person);
+            }
+        }
+        String mostPopular = "";
+        int highest = -1;
+        for (Map.Entry<String, int[]> entry : byName.entrySet()) {
+            // the first name with the highest count wins, like Stream.max
+            if (entry.getValue()[0] > highest) {
+                highest = entry.getValue()[0];
+                mostPopular = entry.getKey();
+            }
+        }
+        return mostPopular;
+    }
+}
@@ -0,0 +1,241 @@
+package at.ac.fhcampuswien.fhmdb.analytics;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.MovieCatalog;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+// statistics over a MovieCatalog, computed in a single pass over its columns. the rows are split into
+// ranges that are counted in parallel on a fork join pool, every range counts into plain int arrays
+// indexed by person id / genre ordinal / decade / rating and the arrays are summed up afterwards
+public final class MovieAnalytics {
+    private static final Genre[] GENRES = Genre.values();
+    // ratings are counted in buckets of one point, 10.0 falls into the last bucket
+    private static final int RATING_BUCKETS = 10;
+
+    private MovieAnalytics() {
+    }
+
+    public record PersonCount(String name, int count) {
+    }
+
+    public static Summary summarize(MovieCatalog catalog) {
+        return summarize(catalog, ForkJoinPool.commonPool());
+    }
+
+    public static Summary summarize(MovieCatalog catalog, ForkJoinPool pool) {
+        int minYear = Integer.MAX_VALUE;
+        int maxYear = Integer.MIN_VALUE;
+        for (int row = 0; row < catalog.size(); row++) {
+            minYear = Math.min(minYear, catalog.releaseYear(row));
+            maxYear = Math.max(maxYear, catalog.releaseYear(row));
+        }
+        int firstDecade = catalog.size() == 0 ? 0 : Math.floorDiv(minYear, 10);
+        int decades = catalog.size() == 0 ? 0 : Math.floorDiv(maxYear, 10) - firstDecade + 1;
+        // a few ranges per core, but not so small that allocating the counters outweighs counting
+        int threshold = Math.max(10_000, catalog.size() / (pool.getParallelism() * 4));
+        Counts counts = pool.invoke(new CountTask(catalog, 0, catalog.size(), threshold, firstDecade, decades));
+        return new Summary(catalog, counts, firstDecade);
+    }
+
+    // rows whose release year is between start and end (both inclusive), in catalogue order
+    public static int[] rowsBetweenYears(MovieCatalog catalog, int startYear, int endYear) {
+        return IntStream.range(0, catalog.size())
+                .parallel()
+                .filter(row -> catalog.releaseYear(row) >= startYear && catalog.releaseYear(row) <= endYear)
+                .toArray();
+    }
+
+    public static final class Summary {
+        private final MovieCatalog catalog;
+        private final Counts counts;
+        private final int firstDecade;
+
+        private Summary(MovieCatalog catalog, Counts counts, int firstDecade) {
+            this.catalog = catalog;
+            this.counts = counts;
+            this.firstDecade = firstDecade;
+        }
+
+        public MovieCatalog getCatalog() {
+            return catalog;
+        }
+
+        public int getMovies() {
+            return catalog.size();
+        }
+
+        public int getLongestTitle() {
+            return counts.longestTitle;
+        }
+
+        // number of movies the person is part of the main cast of, indexed by person id
+        public int castCount(int person) {
+            return counts.cast[person];
+        }
+
+        // number of movies the person directed, 0 for unknown names
+        public int moviesFrom(String director) {
+            int person = catalog.personId(director);
+            return person < 0 ? 0 : counts.directors[person];
+        }
+
+        public List<PersonCount> topActors(int k) {
+            return top(counts.cast, k);
+        }
+
+        public List<PersonCount> topDirectors(int k) {
+            return top(counts.directors, k);
+        }
+
+        public Map<Genre, Integer> moviesPerGenre() {
+            Map<Genre, Integer> perGenre = new EnumMap<>(Genre.class);
+            for (Genre genre : GENRES) {
+                perGenre.put(genre, counts.genres[genre.ordinal()]);
+            }
+            return perGenre;
+        }
+
+        // key is the first year of the decade, e.g. 1990
+        public SortedMap<Integer, Integer> moviesPerDecade() {
+            SortedMap<Integer, Integer> perDecade = new TreeMap<>();
+            for (int decade = 0; decade < counts.decades.length; decade++) {
+                if (counts.decades[decade] > 0) {
+                    perDecade.put((firstDecade + decade) * 10, counts.decades[decade]);
+                }
+            }
+            return perDecade;
+        }
+
+        // histogram[i] is the number of movies rated at least i and less than i + 1
+        public int[] ratingHistogram() {
+            return counts.ratings.clone();
+        }
+
+        // most frequent people first, ties are broken by name
+        private List<PersonCount> top(int[] perPerson, int k) {
+            PriorityQueue<Integer> best = new PriorityQueue<>(Math.max(1, k), (a, b) -> perPerson[a] != perPerson[b]
+                    ? Integer.compare(perPerson[a], perPerson[b])
+                    : catalog.person(b).compareTo(catalog.person(a)));
+            for (int person = 0; person < perPerson.length && k > 0; person++) {
+                if (perPerson[person] == 0) {
+                    continue;
+                }
+                best.add(person);
+                if (best.size() > k) {
+                    best.poll();
+                }
+            }
+            List<PersonCount> top = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                int person = best.poll();
+                top.add(new PersonCount(catalog.person(person), perPerson[person]));
+            }
+            Collections.reverse(top);
+            return top;
+        }
+    }
+
+    private static final class Counts {
+        final int[] cast;
+        final int[] directors;
+        final int[] genres = new int[GENRES.length];
+        final int[] decades;
+        final int[] ratings = new int[RATING_BUCKETS];
+        int longestTitle;
+
+        Counts(int people, int decades) {
+            cast = new int[people];
+            directors = new int[people];
+            this.decades = new int[decades];
+        }
+
+        void add(Counts other) {
+            sum(cast, other.cast);
+            sum(directors, other.directors);
+            sum(genres, other.genres);
+            sum(decades, other.decades);
+            sum(ratings, other.ratings);
+            longestTitle = Math.max(longestTitle, other.longestTitle);
+        }
+
+        private static void sum(int[] target, int[] values) {
+            for (int i = 0; i < target.length; i++) {
+                target[i] += values[i];
+            }
+        }
+    }
+
+    private static final class CountTask extends RecursiveTask<Counts> {
+        private static final long serialVersionUID = 1L;
+
+        private final MovieCatalog catalog;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final int firstDecade;
+        private final int decades;
+
+        CountTask(MovieCatalog catalog, int from, int to, int threshold, int firstDecade, int decades) {
+            this.catalog = catalog;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.firstDecade = firstDecade;
+            this.decades = decades;
+        }
+
+        @Override
+        protected Counts compute() {
+            if (to - from <= threshold) {
+                return count();
+            }
+            int middle = (from + to) >>> 1;
+            CountTask left = new CountTask(catalog, from, middle, threshold, firstDecade, decades);
+            left.fork();
+            Counts counts = new CountTask(catalog, middle, to, threshold, firstDecade, decades).compute();
+            counts.add(left.join());
+            return counts;
+        }
+
+        private Counts count() {
+            Counts counts = new Counts(catalog.personCount(), decades);
+            MovieCatalog.People cast = catalog.mainCast();
+            MovieCatalog.People directors = catalog.directors();
+            for (int row = from; row < to; row++) {
+                for (int position = cast.from(row); position < cast.to(row); position++) {
+                    counts.cast[cast.get(position)]++;
+                }
+                for (int position = directors.from(row); position < directors.to(row); position++) {
+                    // movies are counted per director, even if a name is listed twice
+                    if (!listedBefore(directors, directors.from(row), position)) {
+                        counts.directors[directors.get(position)]++;
+                    }
+                }
+                for (long genres = catalog.genres(row); genres != 0; genres &= genres - 1) {
+                    counts.genres[Long.numberOfTrailingZeros(genres)]++;
+                }
+                counts.decades[Math.floorDiv(catalog.releaseYear(row), 10) - firstDecade]++;
+                int bucket = (int) catalog.rating(row);
+                counts.ratings[Math.max(0, Math.min(RATING_BUCKETS - 1, bucket))]++;
+                String title = catalog.title(row);
+                if (title != null) {
+                    counts.longestTitle = Math.max(counts.longestTitle, title.length());
+                }
+            }
+            return counts;
+        }
+
+        private static boolean listedBefore(MovieCatalog.People people, int from, int position) {
+            for (int earlier = from; earlier < position; earlier++) {
+                if (people.get(earlier) == people.get(position)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
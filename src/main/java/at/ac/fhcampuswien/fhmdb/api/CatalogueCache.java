@@ -0,0 +1,177 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// keeps a binary snapshot of the full movie catalogue on disk, so the application can show movies
+// right away on the next start. the snapshot is read into memory in one go and parsed from there, it is not
+// memory mapped, because a mapping keeps the file open and Windows refuses to replace a file that is mapped.
+// the modification time of the file is the time the catalogue was last confirmed by the API
+public class CatalogueCache {
+    private static final System.Logger LOGGER = System.getLogger(CatalogueCache.class.getName());
+    private static final int MAGIC = 0x46484d43; // "FHMC"
+    private static final int VERSION = 1;
+    private static final Genre[] GENRES = Genre.values();
+    // stands for a null entry in the genres of a movie
+    private static final int NO_GENRE = -1;
+
+    private final Path file;
+    private final Duration maxAge;
+
+    public record Snapshot(List<Movie> movies, String etag, String lastModified, Instant fetchedAt) {
+    }
+
+    public CatalogueCache(Path file, Duration maxAge) {
+        this.file = file;
+        this.maxAge = maxAge;
+    }
+
+    // cache location and maximum age can be changed with -Dfhmdb.cache.dir and -Dfhmdb.cache.maxAgeMinutes
+    public static CatalogueCache createDefault() {
+        Path directory = Path.of(System.getProperty("fhmdb.cache.dir", System.getProperty("user.home") + "/.fhmdb"));
+        long maxAgeMinutes = Long.getLong("fhmdb.cache.maxAgeMinutes", 60);
+        return new CatalogueCache(directory.resolve("catalogue.bin"), Duration.ofMinutes(maxAgeMinutes));
+    }
+
+    // a snapshot is fresh as long as it is younger than maxAge, fresh snapshots don't need a refresh
+    public boolean isFresh(Snapshot snapshot) {
+        return snapshot.fetchedAt().plus(maxAge).isAfter(Instant.now());
+    }
+
+    // returns null if there is no snapshot yet or it can't be read
+    public Snapshot load() {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            String etag = readString(buffer);
+            String lastModified = readString(buffer);
+            int count = buffer.getInt();
+            List<Movie> movies = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                movies.add(readMovie(buffer));
+            }
+            return new Snapshot(movies, etag, lastModified, Files.getLastModifiedTime(file).toInstant());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Could not read movie cache: {0}", e.getMessage());
+            return null;
+        }
+    }
+
+    public void save(List<Movie> movies, String etag, String lastModified) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        // write to a temporary file first, so a crash never leaves a half written snapshot behind
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, etag);
+            writeString(out, lastModified);
+            out.writeInt(movies.size());
+            for (Movie movie : movies) {
+                writeMovie(out, movie);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // the API confirmed that the cached catalogue is still up to date
+    public void touch() throws IOException {
+        if (Files.isRegularFile(file)) {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+        }
+    }
+
+    private static void writeMovie(DataOutputStream out, Movie movie) throws IOException {
+        writeString(out, movie.getId());
+        writeString(out, movie.getTitle());
+        writeString(out, movie.getDescription());
+        writeString(out, movie.getImgUrl());
+        out.writeInt(movie.getReleaseYear());
+        out.writeInt(movie.getLengthInMinutes());
+        out.writeDouble(movie.getRating());
+        List<Genre> genres = movie.getGenres() == null ? List.of() : movie.getGenres();
+        out.writeByte(genres.size());
+        for (Genre genre : genres) {
+            out.writeByte(genre == null ? NO_GENRE : genre.ordinal());
+        }
+        writeStrings(out, movie.getDirectors());
+        writeStrings(out, movie.getWriters());
+        writeStrings(out, movie.getMainCast());
+    }
+
+    private static Movie readMovie(ByteBuffer buffer) {
+        String id = readString(buffer);
+        String title = readString(buffer);
+        String description = readString(buffer);
+        String imgUrl = readString(buffer);
+        int releaseYear = buffer.getInt();
+        int lengthInMinutes = buffer.getInt();
+        double rating = buffer.getDouble();
+        int genreCount = buffer.get();
+        List<Genre> genres = new ArrayList<>(genreCount);
+        for (int i = 0; i < genreCount; i++) {
+            int genre = buffer.get();
+            genres.add(genre == NO_GENRE ? null : GENRES[genre]);
+        }
+        List<String> directors = readStrings(buffer);
+        List<String> writers = readStrings(buffer);
+        List<String> mainCast = readStrings(buffer);
+        return new Movie(id, title, description, genres, releaseYear, imgUrl, lengthInMinutes,
+                directors, writers, mainCast, rating);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        List<String> strings = values == null ? List.of() : values;
+        out.writeInt(strings.size());
+        for (String value : strings) {
+            writeString(out, value);
+        }
+    }
+
+    private static List<String> readStrings(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(buffer));
+        }
+        return values;
+    }
+
+    // strings are stored as utf-8 bytes with an int length prefix, -1 stands for null
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
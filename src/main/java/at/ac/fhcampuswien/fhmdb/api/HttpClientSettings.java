@@ -0,0 +1,79 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import okhttp3.*;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// settings of the HTTP client behind MovieAPI. connections are pooled and kept alive between queries, so only the
+// first request to the API pays for the TCP/TLS setup. failed requests are retried with exponential backoff.
+// callTimeout limits a whole call including the download of its body, so it is off (0) by default: a large
+// catalogue is streamed and may take longer than any fixed limit, readTimeout still catches a stalled response
+public record HttpClientSettings(
+        int maxIdleConnections,
+        Duration keepAlive,
+        boolean http2,
+        boolean compression,
+        Duration connectTimeout,
+        Duration readTimeout,
+        Duration callTimeout,
+        int maxRetries,
+        Duration retryBackoff,
+        int maxRequests,
+        int maxRequestsPerHost,
+        String cacheDir,
+        long cacheSizeMb) {
+
+    public static HttpClientSettings defaults() {
+        return new HttpClientSettings(8, Duration.ofMinutes(5), true, true, Duration.ofSeconds(5),
+                Duration.ofSeconds(15), Duration.ZERO, 2, Duration.ofMillis(100), 64, 16, null, 50);
+    }
+
+    // every setting can be changed with a -Dfhmdb.http.* system property, e.g. -Dfhmdb.http.maxRetries=0
+    public static HttpClientSettings fromSystemProperties() {
+        HttpClientSettings defaults = defaults();
+        return new HttpClientSettings(
+                Integer.getInteger("fhmdb.http.maxIdleConnections", defaults.maxIdleConnections()),
+                Duration.ofSeconds(Long.getLong("fhmdb.http.keepAliveSeconds", defaults.keepAlive().toSeconds())),
+                Boolean.parseBoolean(System.getProperty("fhmdb.http.http2", Boolean.toString(defaults.http2()))),
+                Boolean.parseBoolean(System.getProperty("fhmdb.http.compression", Boolean.toString(defaults.compression()))),
+                Duration.ofMillis(Long.getLong("fhmdb.http.connectTimeoutMs", defaults.connectTimeout().toMillis())),
+                Duration.ofMillis(Long.getLong("fhmdb.http.readTimeoutMs", defaults.readTimeout().toMillis())),
+                Duration.ofMillis(Long.getLong("fhmdb.http.callTimeoutMs", defaults.callTimeout().toMillis())),
+                Integer.getInteger("fhmdb.http.maxRetries", defaults.maxRetries()),
+                Duration.ofMillis(Long.getLong("fhmdb.http.retryBackoffMs", defaults.retryBackoff().toMillis())),
+                Integer.getInteger("fhmdb.http.maxRequests", defaults.maxRequests()),
+                Integer.getInteger("fhmdb.http.maxRequestsPerHost", defaults.maxRequestsPerHost()),
+                System.getProperty("fhmdb.http.cacheDir", defaults.cacheDir()),
+                Long.getLong("fhmdb.http.cacheSizeMb", defaults.cacheSizeMb()));
+    }
+
+    public OkHttpClient createClient() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAlive.toMillis(), TimeUnit.MILLISECONDS))
+                .dispatcher(dispatcher)
+                // HTTP/2 is only used with servers that offer it during the TLS handshake
+                .protocols(http2 ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1) : List.of(Protocol.HTTP_1_1))
+                .connectTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                .callTimeout(callTimeout)
+                .addInterceptor(new RetryInterceptor(maxRetries, retryBackoff));
+        if (!compression) {
+            // OkHttp asks for gzip on its own and unpacks the response transparently, unless the header is set
+            builder.addInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                    .header("Accept-Encoding", "identity")
+                    .build()));
+        }
+        // responses are also kept in OkHttp's disk cache, as far as the server's cache headers allow it
+        if (cacheDir != null) {
+            builder.cache(new Cache(new File(cacheDir), cacheSizeMb * 1024 * 1024));
+        }
+        return builder.build();
+    }
+}
@@ -1,48 +1,314 @@
 package at.ac.fhcampuswien.fhmdb.api;
 
+import at.ac.fhcampuswien.fhmdb.metrics.Counter;
+import at.ac.fhcampuswien.fhmdb.metrics.Metrics;
+import at.ac.fhcampuswien.fhmdb.metrics.TimedReader;
+import at.ac.fhcampuswien.fhmdb.metrics.Timer;
 import at.ac.fhcampuswien.fhmdb.models.Genre;
 import at.ac.fhcampuswien.fhmdb.models.Movie;
-import com.google.gson.Gson;
 import okhttp3.*;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
 
 
 public class MovieAPI {
-    private static final String URL = "https://prog2.fh-campuswien.ac.at/movies";
+    private static final String DEFAULT_URL = "https://prog2.fh-campuswien.ac.at/movies";
+    // can be pointed at a local stand-in server with -Dfhmdb.api.url or setBaseUrl
+    private static volatile String baseUrl = System.getProperty("fhmdb.api.url", DEFAULT_URL);
     private static final String DELIMITER = "&";
-    private static final OkHttpClient client = new OkHttpClient();
-    private static final Gson gson = new Gson();
+    private static final System.Logger LOGGER = System.getLogger(MovieAPI.class.getName());
+    // request: until the response headers arrived, download: waiting for the body, parse: the rest of reading it
+    private static final Timer REQUEST = Metrics.timer("api.request");
+    private static final Timer DOWNLOAD = Metrics.timer("api.download");
+    private static final Timer PARSE = Metrics.timer("api.parse");
+    private static final Counter FAILURES = Metrics.counter("api.failures");
+    // one client for all requests, so they share its connection pool and dispatcher
+    private static volatile OkHttpClient client = HttpClientSettings.fromSystemProperties().createClient();
+
+    // replaces the client, e.g. to turn off retries in tests. calls that are already running keep the old one
+    public static void configure(HttpClientSettings settings) {
+        OkHttpClient old = client;
+        client = settings.createClient();
+        old.connectionPool().evictAll();
+    }
+
+    public static String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public static void setBaseUrl(String url) {
+        baseUrl = url == null ? DEFAULT_URL : url;
+    }
 
     private static String buildURL(String query, Genre genre, String releaseYear, String ratingFrom) {
-        StringBuilder url = new StringBuilder(URL);
+        StringBuilder url = new StringBuilder(baseUrl);
         if (query != null || genre != null || releaseYear != null || ratingFrom != null) {
             url.append("?query=").append(query != null ? query : "").append(DELIMITER)
                     .append("genre=").append(genre != null ? genre : "").append(DELIMITER)
                     .append("releaseYear=").append(releaseYear != null ? releaseYear : "").append(DELIMITER)
                     .append("ratingFrom=").append(ratingFrom != null ? ratingFrom : "");
         }
-        System.out.println("New API Request: " + url.toString());
+        LOGGER.log(System.Logger.Level.DEBUG, "New API Request: {0}", url);
         return url.toString();
     }
 
-    public static List<Movie> getAllMovies(String query, Genre genre, String releaseYear, String ratingFrom) {
-        Request request = new Request.Builder()
+    private static Request buildRequest(String query, Genre genre, String releaseYear, String ratingFrom) {
+        return new Request.Builder()
                 .url(buildURL(query, genre, releaseYear, ratingFrom))
                 .removeHeader("User-Agent")
                 .addHeader("User-Agent", "http.agent")
                 .build();
-        try (Response response = client.newCall(request).execute()) {
-            return Arrays.asList(gson.fromJson(response.body().string(), Movie[].class));
+    }
+
+    private static Response execute(Request request) throws IOException {
+        Timer.Sample start = REQUEST.start();
+        try {
+            Response response = client.newCall(request).execute();
+            REQUEST.stop(start);
+            return response;
         } catch (IOException e) {
-            System.err.println(e.getMessage());
+            FAILURES.increment();
+            throw e;
+        }
+    }
+
+    private static List<Movie> parseMovies(Response response) throws IOException {
+        if (!Metrics.isEnabled()) {
+            return MovieJson.readMovies(response.body().charStream());
+        }
+        // the body is parsed while it downloads, the time spent waiting for it is measured separately
+        long start = System.nanoTime();
+        TimedReader reader = new TimedReader(response.body().charStream());
+        List<Movie> movies = MovieJson.readMovies(reader);
+        DOWNLOAD.record(reader.getReadNanos());
+        PARSE.record(System.nanoTime() - start - reader.getReadNanos());
+        return movies;
+    }
+
+    // measured like parseMovies, the time the consumer takes for a movie counts as parse time
+    private static void streamMovies(Response response, Consumer<Movie> consumer) throws IOException {
+        if (!Metrics.isEnabled()) {
+            MovieJson.streamMovies(response.body().charStream(), consumer);
+            return;
+        }
+        long start = System.nanoTime();
+        TimedReader reader = new TimedReader(response.body().charStream());
+        MovieJson.streamMovies(reader, consumer);
+        DOWNLOAD.record(reader.getReadNanos());
+        PARSE.record(System.nanoTime() - start - reader.getReadNanos());
+    }
+
+    public static List<Movie> getAllMovies(String query, Genre genre, String releaseYear, String ratingFrom) {
+        try {
+            return fetchMovies(query, genre, releaseYear, ratingFrom);
+        } catch (IOException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "API request failed: {0}", e.getMessage());
         }
         return List.of();
     }
 
+    // like getAllMovies, but failures are reported to the caller instead of being turned into an empty list
+    public static List<Movie> fetchMovies(String query, Genre genre, String releaseYear, String ratingFrom) throws IOException {
+        Request request = buildRequest(query, genre, releaseYear, ratingFrom);
+        try (Response response = execute(request)) {
+            if (!response.isSuccessful()) {
+                FAILURES.increment();
+                throw new IOException("Unexpected response code " + response.code());
+            }
+            return parseMovies(response);
+        }
+    }
+
     public static List<Movie> getAllMovies() {
         return getAllMovies(null, null, null, null);
     }
+
+    // result of a conditional catalogue request, movies is null if the catalogue has not changed
+    public record CatalogueResponse(List<Movie> movies, String etag, String lastModified) {
+        public boolean notModified() {
+            return movies == null;
+        }
+    }
+
+    // downloads the full catalogue unless it is unchanged since the given etag / last modified date
+    public static CatalogueResponse getCatalogue(String etag, String lastModified) throws IOException {
+        Request.Builder request = buildRequest(null, null, null, null).newBuilder();
+        if (etag != null) {
+            request.header("If-None-Match", etag);
+        }
+        if (lastModified != null) {
+            request.header("If-Modified-Since", lastModified);
+        }
+        try (Response response = execute(request.build())) {
+            if (response.code() == 304) {
+                return new CatalogueResponse(null, etag, lastModified);
+            }
+            if (!response.isSuccessful()) {
+                FAILURES.increment();
+                throw new IOException("Unexpected response code " + response.code());
+            }
+            return new CatalogueResponse(parseMovies(response), response.header("ETag"), response.header("Last-Modified"));
+        }
+    }
+
+    // one page of a result, totalCount is the number of movies across all pages
+    public record MoviePage(List<Movie> movies, int page, int size, int totalCount) {
+    }
+
+    // fetches only the movies of one page (page is zero based). servers that don't support paging answer with
+    // the whole result and no X-Total-Count header, it is then returned as a single page that holds every movie,
+    // so callers can keep it instead of downloading the whole result again for the next page
+    public static MoviePage fetchPage(String query, Genre genre, String releaseYear, String ratingFrom,
+                                      int page, int size) throws IOException {
+        try (Response response = execute(buildPageRequest(query, genre, releaseYear, ratingFrom, page, size))) {
+            if (!response.isSuccessful()) {
+                FAILURES.increment();
+                throw new IOException("Unexpected response code " + response.code());
+            }
+            List<Movie> movies = parseMovies(response);
+            int totalCount = totalCount(response);
+            if (totalCount < 0) {
+                return new MoviePage(movies, 0, movies.size(), movies.size());
+            }
+            return new MoviePage(movies, page, size, totalCount);
+        }
+    }
+
+    private static Request buildPageRequest(String query, Genre genre, String releaseYear, String ratingFrom,
+                                            int page, int size) {
+        if (page < 0 || size <= 0) {
+            throw new IllegalArgumentException("invalid page " + page + " of size " + size);
+        }
+        Request request = buildRequest(query, genre, releaseYear, ratingFrom);
+        HttpUrl url = request.url().newBuilder()
+                .addQueryParameter("page", Integer.toString(page))
+                .addQueryParameter("size", Integer.toString(size))
+                .build();
+        return request.newBuilder().url(url).build();
+    }
+
+    // number of movies across all pages, -1 if the server answered with the whole result
+    private static int totalCount(Response response) throws IOException {
+        String totalCount = response.header("X-Total-Count");
+        if (totalCount == null) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(totalCount);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid X-Total-Count " + totalCount, e);
+        }
+    }
+
+    // cuts one page out of a complete result, e.g. a cached catalogue
+    public static MoviePage slice(List<Movie> movies, int page, int size) {
+        int from = (int) Math.min((long) page * size, movies.size());
+        int to = Math.min(from + size, movies.size());
+        return new MoviePage(movies.subList(from, to), page, size, movies.size());
+    }
+
+    // call for a poster image on the shared client, the caller enqueues it and may cancel it.
+    // throws IllegalArgumentException if url is not an http(s) url
+    public static Call posterCall(String url) {
+        return client.newCall(new Request.Builder()
+                .url(url)
+                .header("User-Agent", "http.agent")
+                .build());
+    }
+
+    // call for the movies matching the filters, it is only sent once it is passed to streamMoviesAsync.
+    // callers that may cancel it can keep a reference to it before the request starts
+    public static Call moviesCall(String query, Genre genre, String releaseYear, String ratingFrom) {
+        return client.newCall(buildRequest(query, genre, releaseYear, ratingFrom));
+    }
+
+    // call for one page of the movies matching the filters (page is zero based), sent like moviesCall
+    public static Call pageCall(String query, Genre genre, String releaseYear, String ratingFrom, int page, int size) {
+        return client.newCall(buildPageRequest(query, genre, releaseYear, ratingFrom, page, size));
+    }
+
+    // sends the call without blocking: it runs on OkHttp's dispatcher threads and the movies are handed over
+    // in batches of batchSize while the response is still downloading.
+    // the call can be cancelled once its result is no longer needed, nothing is reported after that.
+    // responses that are not successful are reported to onFailure instead of being parsed.
+    // the request time includes the wait for a free dispatcher thread, cancelled calls are no failures
+    public static void streamMoviesAsync(Call call, int batchSize, Consumer<List<Movie>> onBatch, Runnable onComplete,
+                                         Consumer<IOException> onFailure) {
+        streamMoviesAsync(call, batchSize, totalCount -> true, onBatch, onComplete, onFailure);
+    }
+
+    // same, but onTotalCount is asked before the movies are read, with the number of movies across all pages
+    // (-1 if the server answered with the whole result). if it returns false the response is dropped unread and
+    // neither onBatch nor onComplete are called
+    public static void streamMoviesAsync(Call call, int batchSize, IntPredicate onTotalCount,
+                                         Consumer<List<Movie>> onBatch, Runnable onComplete,
+                                         Consumer<IOException> onFailure) {
+        Timer.Sample start = REQUEST.start();
+        call.enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                REQUEST.stop(start);
+                try (response) {
+                    if (!response.isSuccessful()) {
+                        throw new IOException("Unexpected response code " + response.code());
+                    }
+                    if (call.isCanceled() || !onTotalCount.test(totalCount(response))) {
+                        return;
+                    }
+                    MovieBatcher batcher = new MovieBatcher(batchSize, movies -> {
+                        if (!call.isCanceled()) {
+                            onBatch.accept(movies);
+                        }
+                    });
+                    streamMovies(response, batcher);
+                    if (!call.isCanceled()) {
+                        batcher.flush();
+                        onComplete.run();
+                    }
+                } catch (IOException e) {
+                    onFailure(call, e);
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (!call.isCanceled()) {
+                    FAILURES.increment();
+                    onFailure.accept(e);
+                }
+            }
+        });
+    }
+
+    // collects streamed movies into lists of a fixed size
+    private static class MovieBatcher implements Consumer<Movie> {
+        private final int batchSize;
+        private final Consumer<List<Movie>> target;
+        private List<Movie> batch;
+
+        MovieBatcher(int batchSize, Consumer<List<Movie>> target) {
+            this.batchSize = batchSize;
+            this.target = target;
+            this.batch = new ArrayList<>(batchSize);
+        }
+
+        @Override
+        public void accept(Movie movie) {
+            batch.add(movie);
+            if (batch.size() == batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!batch.isEmpty()) {
+                target.accept(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// the one Gson instance of the application, Gson is thread safe and caches its type adapters
+public final class MovieJson {
+    public static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(Movie.class, new MovieTypeAdapter())
+            .create();
+    private static final TypeAdapter<Movie> MOVIE_ADAPTER = GSON.getAdapter(Movie.class);
+
+    private MovieJson() {
+    }
+
+    // reads a json array of movies element by element, so the whole document never has to be in memory
+    public static void streamMovies(Reader json, Consumer<Movie> consumer) throws IOException {
+        try (JsonReader reader = new JsonReader(json)) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                consumer.accept(MOVIE_ADAPTER.read(reader));
+            }
+            reader.endArray();
+        }
+    }
+
+    public static List<Movie> readMovies(Reader json) throws IOException {
+        List<Movie> movies = new ArrayList<>();
+        streamMovies(json, movies::add);
+        return movies;
+    }
+}
@@ -0,0 +1,230 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// bounded cache in front of MovieAPI.getAllMovies, keyed by the normalized filter combination.
+// entries expire after a time to live and the least recently used entry is evicted once the cache is full.
+// concurrent requests for the same filters share a single call to the API
+public class MovieResponseCache {
+    private static final System.Logger LOGGER = System.getLogger(MovieResponseCache.class.getName());
+    private final MovieLoader loader;
+    private final int maxEntries;
+    private final long timeToLiveNanos;
+    // access ordered, so the first entry is always the least recently used one
+    private final LinkedHashMap<FilterKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<FilterKey, Load> inFlight = new ConcurrentHashMap<>();
+    // bumped by invalidateAll, loads that started before must neither be cached nor joined. guarded by entries
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @FunctionalInterface
+    public interface MovieLoader {
+        List<Movie> load(String query, Genre genre, String releaseYear, String ratingFrom) throws IOException;
+    }
+
+    // filters that return the same movies map to the same key: case and surrounding whitespace of the query
+    // don't matter, neither does "9" vs. "9.0" for the rating
+    public record FilterKey(String query, Genre genre, Integer releaseYear, Double ratingFrom) {
+        // null if the year or rating is not a number, such filters are passed to the API as they are and not cached
+        public static FilterKey of(String query, Genre genre, String releaseYear, String ratingFrom) {
+            String normalizedQuery = query == null || query.isBlank() ? null : query.trim().toLowerCase();
+            try {
+                Integer year = releaseYear == null || releaseYear.isBlank() ? null : Integer.valueOf(releaseYear.trim());
+                Double rating = ratingFrom == null || ratingFrom.isBlank() ? null : Double.valueOf(ratingFrom.trim());
+                return new FilterKey(normalizedQuery, genre, year, rating);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    private record Entry(List<Movie> movies, long expiresAtNanos) {
+    }
+
+    private record Load(CompletableFuture<List<Movie>> request, long generation) {
+    }
+
+    public MovieResponseCache(MovieLoader loader, int maxEntries, Duration timeToLive) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.loader = loader;
+        this.maxEntries = maxEntries;
+        this.timeToLiveNanos = timeToLive.toNanos();
+    }
+
+    // size and time to live can be changed with -Dfhmdb.responseCache.maxEntries and -Dfhmdb.responseCache.ttlSeconds
+    public static MovieResponseCache createDefault() {
+        return new MovieResponseCache(MovieAPI::fetchMovies,
+                Integer.getInteger("fhmdb.responseCache.maxEntries", 64),
+                Duration.ofSeconds(Long.getLong("fhmdb.responseCache.ttlSeconds", 300)));
+    }
+
+    // same contract as MovieAPI.getAllMovies: failures are logged and result in an empty list
+    public List<Movie> getAllMovies(String query, Genre genre, String releaseYear, String ratingFrom) {
+        try {
+            return fetchMovies(query, genre, releaseYear, ratingFrom);
+        } catch (IOException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "API request failed: {0}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    public List<Movie> fetchMovies(String query, Genre genre, String releaseYear, String ratingFrom) throws IOException {
+        FilterKey key = FilterKey.of(query, genre, releaseYear, ratingFrom);
+        if (key == null) {
+            misses.incrementAndGet();
+            return loader.load(query, genre, releaseYear, ratingFrom);
+        }
+        List<Movie> cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Load load = new Load(new CompletableFuture<>(), generation());
+        while (true) {
+            Load running = inFlight.putIfAbsent(key, load);
+            if (running == null) {
+                break;
+            }
+            if (running.generation() == load.generation()) {
+                // somebody else is already asking the API for the same filters
+                coalesced.incrementAndGet();
+                return await(running.request());
+            }
+            // the running load started before the last invalidateAll, its answer may be outdated
+            if (inFlight.replace(key, running, load)) {
+                break;
+            }
+        }
+        misses.incrementAndGet();
+        CompletableFuture<List<Movie>> request = load.request();
+        try {
+            List<Movie> movies = Collections.unmodifiableList(new ArrayList<>(loader.load(key.query(), key.genre(),
+                    key.releaseYear() == null ? null : key.releaseYear().toString(),
+                    key.ratingFrom() == null ? null : key.ratingFrom().toString())));
+            put(key, movies, load.generation());
+            request.complete(movies);
+            return movies;
+        } catch (IOException | RuntimeException e) {
+            request.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    private static List<Movie> await(CompletableFuture<List<Movie>> request) throws IOException {
+        try {
+            return request.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for movies", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    // cached movies for the filters or null, expired entries count as missing
+    public List<Movie> getIfPresent(FilterKey key) {
+        if (key == null) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAtNanos() - System.nanoTime() > 0) {
+                hits.incrementAndGet();
+                return entry.movies();
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+            }
+            return null;
+        }
+    }
+
+    // current generation, capture it before loading movies elsewhere and hand it to put
+    public long generation() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+
+    // adds movies that were loaded elsewhere, e.g. by an asynchronous search
+    public void put(FilterKey key, List<Movie> movies) {
+        put(key, movies, generation());
+    }
+
+    // adds movies whose load started at the given generation, dropped if the cache was invalidated since
+    public void put(FilterKey key, List<Movie> movies, long loadGeneration) {
+        if (key == null) {
+            return;
+        }
+        Entry entry = new Entry(movies, System.nanoTime() + timeToLiveNanos);
+        synchronized (entries) {
+            if (loadGeneration != generation) {
+                return;
+            }
+            entries.put(key, entry);
+            Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+            while (entries.size() > maxEntries) {
+                leastRecentlyUsed.next();
+                leastRecentlyUsed.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    // e.g. after the catalogue has been refreshed
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "MovieResponseCache{size=" + size() + ", hits=" + hits + ", misses=" + misses
+                + ", coalesced=" + coalesced + ", evictions=" + evictions + "}";
+    }
+}
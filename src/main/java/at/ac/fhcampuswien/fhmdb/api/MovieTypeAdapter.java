@@ -0,0 +1,210 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// reads and writes movies field by field instead of going through Gson's reflection based binding.
+// names of directors, writers and actors repeat a lot across movies, so they are interned
+public class MovieTypeAdapter extends TypeAdapter<Movie> {
+    // upper bound for the interned names, the pool is cleared once it is exceeded
+    private static final int MAX_INTERNED = 100_000;
+    // most movies have only a handful of genres and people per role
+    private static final int LIST_CAPACITY = 4;
+
+    private final Map<String, String> interned = new ConcurrentHashMap<>();
+
+    @Override
+    public Movie read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String id = null;
+        String title = null;
+        String description = null;
+        List<Genre> genres = null;
+        int releaseYear = 0;
+        String imgUrl = null;
+        int lengthInMinutes = 0;
+        List<String> directors = null;
+        List<String> writers = null;
+        List<String> mainCast = null;
+        double rating = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id" -> id = readString(in);
+                case "title" -> title = readString(in);
+                case "description" -> description = readString(in);
+                case "genres" -> genres = readGenres(in);
+                case "releaseYear" -> releaseYear = readInt(in);
+                case "imgUrl" -> imgUrl = readString(in);
+                case "lengthInMinutes" -> lengthInMinutes = readInt(in);
+                case "directors" -> directors = readNames(in);
+                case "writers" -> writers = readNames(in);
+                case "mainCast" -> mainCast = readNames(in);
+                case "rating" -> rating = readDouble(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return new Movie(id, title, description, genres != null ? genres : new ArrayList<>(), releaseYear, imgUrl,
+                lengthInMinutes, directors != null ? directors : new ArrayList<>(),
+                writers != null ? writers : new ArrayList<>(), mainCast != null ? mainCast : new ArrayList<>(), rating);
+    }
+
+    @Override
+    public void write(JsonWriter out, Movie movie) throws IOException {
+        if (movie == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("id").value(movie.getId());
+        out.name("title").value(movie.getTitle());
+        out.name("description").value(movie.getDescription());
+        out.name("genres").beginArray();
+        if (movie.getGenres() != null) {
+            for (Genre genre : movie.getGenres()) {
+                // the catalogue cache keeps null genres, read skips them again
+                if (genre == null) {
+                    out.nullValue();
+                } else {
+                    out.value(genre.name());
+                }
+            }
+        }
+        out.endArray();
+        out.name("releaseYear").value(movie.getReleaseYear());
+        out.name("imgUrl").value(movie.getImgUrl());
+        out.name("lengthInMinutes").value(movie.getLengthInMinutes());
+        writeNames(out, "directors", movie.getDirectors());
+        writeNames(out, "writers", movie.getWriters());
+        writeNames(out, "mainCast", movie.getMainCast());
+        out.name("rating").value(movie.getRating());
+        out.endObject();
+    }
+
+    private static void writeNames(JsonWriter out, String name, List<String> values) throws IOException {
+        out.name(name).beginArray();
+        if (values != null) {
+            for (String value : values) {
+                out.value(value);
+            }
+        }
+        out.endArray();
+    }
+
+    private static String readString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private static int readInt(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextInt();
+    }
+
+    private static double readDouble(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextDouble();
+    }
+
+    private List<String> readNames(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<String> names = new ArrayList<>(LIST_CAPACITY);
+        in.beginArray();
+        while (in.hasNext()) {
+            String name = readString(in);
+            if (name != null) {
+                names.add(intern(name));
+            }
+        }
+        in.endArray();
+        return names;
+    }
+
+    private String intern(String value) {
+        String existing = interned.putIfAbsent(value, value);
+        if (existing != null) {
+            return existing;
+        }
+        if (interned.size() > MAX_INTERNED) {
+            interned.clear();
+        }
+        return value;
+    }
+
+    private static List<Genre> readGenres(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<Genre> genres = new ArrayList<>(LIST_CAPACITY);
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() != JsonToken.STRING) {
+                in.skipValue();
+                continue;
+            }
+            Genre genre = toGenre(in.nextString());
+            if (genre != null) {
+                genres.add(genre);
+            }
+        }
+        in.endArray();
+        return genres;
+    }
+
+    // string switches compile to a lookup on the string's hash code, which avoids Enum.valueOf and its
+    // exception for unknown values. unknown genres are skipped
+    static Genre toGenre(String name) {
+        return switch (name) {
+            case "ACTION" -> Genre.ACTION;
+            case "ADVENTURE" -> Genre.ADVENTURE;
+            case "ANIMATION" -> Genre.ANIMATION;
+            case "BIOGRAPHY" -> Genre.BIOGRAPHY;
+            case "COMEDY" -> Genre.COMEDY;
+            case "CRIME" -> Genre.CRIME;
+            case "DRAMA" -> Genre.DRAMA;
+            case "DOCUMENTARY" -> Genre.DOCUMENTARY;
+            case "FAMILY" -> Genre.FAMILY;
+            case "FANTASY" -> Genre.FANTASY;
+            case "HISTORY" -> Genre.HISTORY;
+            case "HORROR" -> Genre.HORROR;
+            case "MUSICAL" -> Genre.MUSICAL;
+            case "MYSTERY" -> Genre.MYSTERY;
+            case "ROMANCE" -> Genre.ROMANCE;
+            case "SCIENCE_FICTION" -> Genre.SCIENCE_FICTION;
+            case "SPORT" -> Genre.SPORT;
+            case "THRILLER" -> Genre.THRILLER;
+            case "WAR" -> Genre.WAR;
+            case "WESTERN" -> Genre.WESTERN;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,101 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+
+// retries GET requests that failed with an I/O error, 429 or a 5xx status. the wait before attempt n is
+// backoff * 2^(n-1) with random jitter of up to the same amount, so clients that failed together don't retry together.
+// a 429 or 503 with a Retry-After header waits as long as the server asks for instead
+public class RetryInterceptor implements Interceptor {
+    private static final System.Logger LOGGER = System.getLogger(RetryInterceptor.class.getName());
+    // a server that asks for a longer pause gets its response back instead of a call that blocks that long
+    static final long MAX_RETRY_AFTER_MILLIS = 10_000;
+
+    private final int maxRetries;
+    private final long backoffMillis;
+
+    public RetryInterceptor(int maxRetries, Duration backoff) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("maxRetries must not be negative");
+        }
+        this.maxRetries = maxRetries;
+        this.backoffMillis = backoff.toMillis();
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!"GET".equals(request.method())) {
+            return chain.proceed(request);
+        }
+        for (int attempt = 0; ; attempt++) {
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (InterruptedIOException e) {
+                // timeouts and cancelled calls are not retried, the call's time budget is used up
+                throw e;
+            } catch (IOException e) {
+                if (attempt >= maxRetries || chain.call().isCanceled()) {
+                    throw e;
+                }
+                LOGGER.log(System.Logger.Level.DEBUG, "Retrying {0} after {1}", request.url(), e.toString());
+                sleep(backoff(attempt));
+                continue;
+            }
+            if (!isRetryable(response.code()) || attempt >= maxRetries) {
+                return response;
+            }
+            long retryAfter = retryAfterMillis(response);
+            if (retryAfter > MAX_RETRY_AFTER_MILLIS) {
+                return response;
+            }
+            LOGGER.log(System.Logger.Level.DEBUG, "Retrying {0} after status {1}", request.url(), response.code());
+            response.close();
+            sleep(retryAfter >= 0 ? retryAfter : backoff(attempt));
+        }
+    }
+
+    private static boolean isRetryable(int code) {
+        return code == 429 || code >= 500;
+    }
+
+    // the wait the server asks for in Retry-After (seconds or an HTTP date), -1 if it doesn't ask for one
+    static long retryAfterMillis(Response response) {
+        if (response.code() != 429 && response.code() != 503) {
+            return -1;
+        }
+        String value = response.header("Retry-After");
+        if (value == null) {
+            return -1;
+        }
+        try {
+            long seconds = Long.parseLong(value.trim());
+            return seconds < 0 ? -1 : seconds > MAX_RETRY_AFTER_MILLIS / 1000 ? Long.MAX_VALUE : seconds * 1000;
+        } catch (NumberFormatException e) {
+            Date date = response.headers().getDate("Retry-After");
+            return date == null ? -1 : Math.max(0, date.getTime() - System.currentTimeMillis());
+        }
+    }
+
+    private long backoff(int attempt) {
+        long delay = backoffMillis << Math.min(attempt, 10);
+        return delay + ThreadLocalRandom.current().nextLong(delay + 1);
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting to retry");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package at.ac.fhcampuswien.fhmdb.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// counts events, e.g. failed requests. like Timer it does nothing while metrics are disabled
+public final class Counter {
+    private final String name;
+    private final LongAdder count = new LongAdder();
+
+    Counter(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    public void add(long amount) {
+        if (Metrics.isEnabled()) {
+            count.add(amount);
+        }
+    }
+
+    public long get() {
+        return count.sum();
+    }
+
+    void reset() {
+        count.reset();
+    }
+}
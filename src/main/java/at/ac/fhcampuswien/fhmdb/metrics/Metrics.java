@@ -0,0 +1,101 @@
+package at.ac.fhcampuswien.fhmdb.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// registry of the timers and counters of the application. metrics are off unless the application is started with
+// -Dfhmdb.metrics=true (or setEnabled is called), with -Dfhmdb.metrics.file the report is written to that file
+// when the application exits. timers also emit a TimerEvent into a running flight recording
+public final class Metrics {
+    private static volatile boolean enabled = Boolean.getBoolean("fhmdb.metrics");
+
+    // sorted by name, so the report is grouped by prefix
+    private static final Map<String, Timer> TIMERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, Counter> COUNTERS = new ConcurrentSkipListMap<>();
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    // returns the timer with this name, it is created on first use
+    public static Timer timer(String name) {
+        return TIMERS.computeIfAbsent(name, Timer::new);
+    }
+
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, Counter::new);
+    }
+
+    public static Map<String, Timer> getTimers() {
+        return TIMERS;
+    }
+
+    public static Map<String, Counter> getCounters() {
+        return COUNTERS;
+    }
+
+    public static void reset() {
+        TIMERS.values().forEach(timer -> timer.getHistogram().reset());
+        COUNTERS.values().forEach(Counter::reset);
+    }
+
+    // one line per timer (times in milliseconds) and counter, timers that never ran are left out
+    public static String report() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "%-28s %10s %10s %10s %10s %10s %10s%n",
+                "timer", "count", "mean", "p50", "p90", "p99", "max"));
+        for (Timer timer : TIMERS.values()) {
+            Histogram histogram = timer.getHistogram();
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            report.append(String.format(Locale.ROOT, "%-28s %10d %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+                    timer.getName(), histogram.getCount(), histogram.getMean() / 1e6,
+                    histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(90) / 1e6,
+                    histogram.getValueAtPercentile(99) / 1e6, histogram.getMax() / 1e6));
+        }
+        report.append(String.format(Locale.ROOT, "%n%-28s %10s%n", "counter", "count"));
+        for (Counter counter : COUNTERS.values()) {
+            report.append(String.format(Locale.ROOT, "%-28s %10d%n", counter.getName(), counter.get()));
+        }
+        return report.toString();
+    }
+
+    public static void dump(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(file, report(), StandardCharsets.UTF_8);
+    }
+
+    // writes the report to -Dfhmdb.metrics.file when the JVM exits, if metrics are enabled
+    public static void dumpOnExit() {
+        String file = System.getProperty("fhmdb.metrics.file");
+        if (file == null) {
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (enabled) {
+                try {
+                    dump(Path.of(file));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }, "metrics-dump"));
+    }
+}
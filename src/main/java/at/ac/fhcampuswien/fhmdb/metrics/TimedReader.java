@@ -0,0 +1,39 @@
+package at.ac.fhcampuswien.fhmdb.metrics;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+// adds up the time spent waiting for the underlying reader, e.g. for a response body that is parsed while it
+// is still downloading. the rest of the parse time is then spent in the parser itself
+public class TimedReader extends FilterReader {
+    private long readNanos;
+
+    public TimedReader(Reader in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        try {
+            return super.read();
+        } finally {
+            readNanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return super.read(buffer, offset, length);
+        } finally {
+            readNanos += System.nanoTime() - start;
+        }
+    }
+
+    public long getReadNanos() {
+        return readNanos;
+    }
+}
@@ -0,0 +1,60 @@
+package at.ac.fhcampuswien.fhmdb.metrics;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+// measures how long an operation takes:
+//     Timer.Sample sample = TIMER.start();
+//     ... operation ...
+//     TIMER.stop(sample);
+// while metrics are disabled start returns NOT_STARTED without reading the clock and stop ignores it
+public final class Timer {
+    private static final EventType EVENT_TYPE;
+
+    static {
+        FlightRecorder.register(TimerEvent.class);
+        EVENT_TYPE = EventType.getEventType(TimerEvent.class);
+    }
+
+    private final String name;
+    private final Histogram histogram = new Histogram();
+
+    Timer(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // durations in nanoseconds
+    public Histogram getHistogram() {
+        return histogram;
+    }
+
+    public Sample start() {
+        return Metrics.isEnabled() ? new Sample(System.nanoTime(), true) : Sample.NOT_STARTED;
+    }
+
+    public void stop(Sample sample) {
+        if (sample.started()) {
+            record(System.nanoTime() - sample.startNanos());
+        }
+    }
+
+    public void record(long nanos) {
+        histogram.record(Math.max(0, nanos));
+        if (EVENT_TYPE.isEnabled()) {
+            TimerEvent event = new TimerEvent();
+            event.timer = name;
+            event.elapsed = nanos;
+            event.commit();
+        }
+    }
+
+    // the start of one measurement. a sample taken while metrics were disabled is not started, whatever the clock
+    // would have read
+    public record Sample(long startNanos, boolean started) {
+        public static final Sample NOT_STARTED = new Sample(0, false);
+    }
+}
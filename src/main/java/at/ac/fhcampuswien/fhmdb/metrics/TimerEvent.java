@@ -0,0 +1,19 @@
+package at.ac.fhcampuswien.fhmdb.metrics;
+
+import jdk.jfr.*;
+
+// one measurement of a Timer in a flight recording, e.g. java -XX:StartFlightRecording=filename=fhmdb.jfr.
+// only committed while a recording has the event enabled
+@Name("at.ac.fhcampuswien.fhmdb.Timer")
+@Label("FHMDb Timer")
+@Category("FHMDb")
+@Description("Duration of an instrumented operation")
+@StackTrace(false)
+class TimerEvent extends Event {
+    @Label("Timer")
+    String timer;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+}
@@ -3,6 +3,7 @@ package at.ac.fhcampuswien.fhmdb.models;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 public class Movie {
     private final String title;
@@ -12,20 +13,28 @@ public class Movie {
     private final int releaseYear;
     private final String imgUrl;
     private final int lengthInMinutes;
-    private final List<String> directors = new ArrayList<>();
-    private final List<String> writers = new ArrayList<>();
-    private final List<String> mainCast = new ArrayList<>();
+    private final List<String> directors;
+    private final List<String> writers;
+    private final List<String> mainCast;
     private final double rating;
 
     public Movie(String title, String description, List<Genre> genres) {
+        this("", title, description, genres, 0, "", 0, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), 0.0);
+    }
+
+    public Movie(String id, String title, String description, List<Genre> genres, int releaseYear, String imgUrl,
+                 int lengthInMinutes, List<String> directors, List<String> writers, List<String> mainCast, double rating) {
+        this.id = id;
         this.title = title;
         this.description = description;
         this.genres = genres;
-        this.id = "";
-        this.releaseYear = 0;
-        this.imgUrl = "";
-        this.lengthInMinutes = 0;
-        this.rating = 0.0;
+        this.releaseYear = releaseYear;
+        this.imgUrl = imgUrl;
+        this.lengthInMinutes = lengthInMinutes;
+        this.directors = directors;
+        this.writers = writers;
+        this.mainCast = mainCast;
+        this.rating = rating;
     }
 
     @Override
@@ -42,6 +51,12 @@ public class Movie {
         return this.title.equals(other.title) && this.description.equals(other.description) && this.genres.equals(other.genres);
     }
 
+    // same fields as equals, so equal movies land in the same bucket of a hash set
+    @Override
+    public int hashCode() {
+        return Objects.hash(title, description, genres);
+    }
+
     public String getTitle() {
         return title;
     }
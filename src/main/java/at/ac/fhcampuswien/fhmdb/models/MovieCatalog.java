@@ -0,0 +1,311 @@
+package at.ac.fhcampuswien.fhmdb.models;
+
+import java.util.*;
+
+// column-wise copy of a movie catalogue: one array per field instead of one object per movie.
+// genres are stored as a bitmask (bit = ordinal of the genre) and people as ids into a shared dictionary,
+// so every name is kept only once no matter in how many movies it appears. the genre lists themselves are
+// kept once per distinct list, so views return them in their original order.
+// rows are addressed by their position in the catalogue, get returns a lightweight Movie view of a row.
+// the movies the catalog was built from are not referenced, they can be dropped once it exists
+public class MovieCatalog {
+    private final String[] ids;
+    private final String[] titles;
+    private final String[] descriptions;
+    private final String[] imgUrls;
+    private final int[] releaseYear;
+    private final int[] lengthInMinutes;
+    private final double[] rating;
+    private final long[] genres;
+    // distinct genre lists (null if a movie has none), genreLists[row] is the position of the row's list
+    private final List<List<Genre>> genreListDictionary;
+    private final int[] genreLists;
+
+    // dictionary of all people, a person id is the position in this array
+    private final String[] people;
+    private final Map<String, Integer> personIds;
+    private final People directors;
+    private final People writers;
+    private final People mainCast;
+
+    // people of one role for every movie: the ids of movie m are ids[offsets[m]] until ids[offsets[m + 1]]
+    public static final class People {
+        private final int[] offsets;
+        private final int[] ids;
+
+        private People(int[] offsets, int[] ids) {
+            this.offsets = offsets;
+            this.ids = ids;
+        }
+
+        public int from(int movie) {
+            return offsets[movie];
+        }
+
+        public int to(int movie) {
+            return offsets[movie + 1];
+        }
+
+        // person id at a position between from and to
+        public int get(int position) {
+            return ids[position];
+        }
+
+        public boolean contains(int movie, int person) {
+            for (int position = offsets[movie]; position < offsets[movie + 1]; position++) {
+                if (ids[position] == person) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private MovieCatalog(List<Movie> movies) {
+        int size = movies.size();
+        ids = new String[size];
+        titles = new String[size];
+        descriptions = new String[size];
+        imgUrls = new String[size];
+        releaseYear = new int[size];
+        lengthInMinutes = new int[size];
+        rating = new double[size];
+        genres = new long[size];
+        genreLists = new int[size];
+
+        Map<List<Genre>, Integer> genreListIds = new HashMap<>();
+        List<List<Genre>> distinctGenreLists = new ArrayList<>();
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        PeopleBuilder directorsBuilder = new PeopleBuilder(size);
+        PeopleBuilder writersBuilder = new PeopleBuilder(size);
+        PeopleBuilder mainCastBuilder = new PeopleBuilder(size);
+        for (int row = 0; row < size; row++) {
+            Movie movie = movies.get(row);
+            if (movie == null) {
+                throw new IllegalArgumentException("movies must not contain null");
+            }
+            ids[row] = movie.getId();
+            titles[row] = movie.getTitle();
+            descriptions[row] = movie.getDescription();
+            imgUrls[row] = movie.getImgUrl();
+            releaseYear[row] = movie.getReleaseYear();
+            lengthInMinutes[row] = movie.getLengthInMinutes();
+            rating[row] = movie.getRating();
+            genres[row] = genreMask(movie.getGenres());
+            genreLists[row] = genreListIds.computeIfAbsent(movie.getGenres(), genreList -> {
+                distinctGenreLists.add(genreList == null ? null : Collections.unmodifiableList(new ArrayList<>(genreList)));
+                return distinctGenreLists.size() - 1;
+            });
+            directorsBuilder.add(movie.getDirectors(), dictionary, names);
+            writersBuilder.add(movie.getWriters(), dictionary, names);
+            mainCastBuilder.add(movie.getMainCast(), dictionary, names);
+        }
+        genreListDictionary = distinctGenreLists;
+        people = names.toArray(new String[0]);
+        personIds = dictionary;
+        directors = directorsBuilder.build();
+        writers = writersBuilder.build();
+        mainCast = mainCastBuilder.build();
+    }
+
+    public static MovieCatalog of(List<Movie> movies) {
+        if (movies == null) {
+            throw new IllegalArgumentException("movies must not be null");
+        }
+        return new MovieCatalog(movies);
+    }
+
+    public static long genreMask(Collection<Genre> genres) {
+        long mask = 0;
+        if (genres != null) {
+            for (Genre genre : genres) {
+                if (genre != null) {
+                    mask |= genreBit(genre);
+                }
+            }
+        }
+        return mask;
+    }
+
+    public static long genreBit(Genre genre) {
+        return 1L << genre.ordinal();
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    // a new view on every call, views of the same row are equal but not identical (see rowKey).
+    // people lists that were null are empty in the view
+    public Movie get(int row) {
+        Objects.checkIndex(row, size());
+        return new Row(this, row);
+    }
+
+    // identifies the row of a view, views of the same row of the same catalog have equal keys
+    public record RowKey(MovieCatalog catalog, int row) {
+    }
+
+    // key of the row the movie is a view of, null if it is not a view of a catalog
+    public static RowKey rowKey(Movie movie) {
+        return movie instanceof Row view ? new RowKey(view.catalog, view.row) : null;
+    }
+
+    // all rows as movie views
+    public List<Movie> asList() {
+        return new MovieList();
+    }
+
+    // true if the list is asList of this catalog, position i of the list is then row i
+    public boolean isRows(List<Movie> movies) {
+        return movies instanceof MovieList list && list.catalog() == this;
+    }
+
+    public String id(int row) {
+        return ids[row];
+    }
+
+    public String title(int row) {
+        return titles[row];
+    }
+
+    public String description(int row) {
+        return descriptions[row];
+    }
+
+    public int releaseYear(int row) {
+        return releaseYear[row];
+    }
+
+    public int lengthInMinutes(int row) {
+        return lengthInMinutes[row];
+    }
+
+    public double rating(int row) {
+        return rating[row];
+    }
+
+    public long genres(int row) {
+        return genres[row];
+    }
+
+    public boolean hasGenre(int row, Genre genre) {
+        return (genres[row] & genreBit(genre)) != 0;
+    }
+
+    public int personCount() {
+        return people.length;
+    }
+
+    public String person(int id) {
+        return people[id];
+    }
+
+    // id of the person or -1 if the name doesn't appear in the catalogue
+    public int personId(String name) {
+        Integer id = personIds.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public People directors() {
+        return directors;
+    }
+
+    public People writers() {
+        return writers;
+    }
+
+    public People mainCast() {
+        return mainCast;
+    }
+
+    private static class PeopleBuilder {
+        private final int[] offsets;
+        private int[] ids = new int[16];
+        private int size;
+        private int movie;
+
+        PeopleBuilder(int movies) {
+            offsets = new int[movies + 1];
+        }
+
+        void add(List<String> names, Map<String, Integer> dictionary, List<String> people) {
+            if (names != null) {
+                for (String name : names) {
+                    if (name == null) {
+                        continue;
+                    }
+                    Integer id = dictionary.get(name);
+                    if (id == null) {
+                        id = people.size();
+                        dictionary.put(name, id);
+                        people.add(name);
+                    }
+                    if (size == ids.length) {
+                        ids = Arrays.copyOf(ids, size * 2);
+                    }
+                    ids[size++] = id;
+                }
+            }
+            offsets[++movie] = size;
+        }
+
+        People build() {
+            return new People(offsets, Arrays.copyOf(ids, size));
+        }
+    }
+
+    private static final class Row extends Movie {
+        private final MovieCatalog catalog;
+        private final int row;
+
+        Row(MovieCatalog catalog, int row) {
+            super(catalog.ids[row], catalog.titles[row], catalog.descriptions[row],
+                    catalog.genreListDictionary.get(catalog.genreLists[row]), catalog.releaseYear[row],
+                    catalog.imgUrls[row], catalog.lengthInMinutes[row], catalog.new PersonList(catalog.directors, row),
+                    catalog.new PersonList(catalog.writers, row), catalog.new PersonList(catalog.mainCast, row),
+                    catalog.rating[row]);
+            this.catalog = catalog;
+            this.row = row;
+        }
+    }
+
+    private class MovieList extends AbstractList<Movie> implements RandomAccess {
+        @Override
+        public Movie get(int index) {
+            return MovieCatalog.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return MovieCatalog.this.size();
+        }
+
+        MovieCatalog catalog() {
+            return MovieCatalog.this;
+        }
+    }
+
+    // read-only list view of the people of one role in one movie
+    private class PersonList extends AbstractList<String> implements RandomAccess {
+        private final People role;
+        private final int row;
+
+        PersonList(People role, int row) {
+            this.role = role;
+            this.row = row;
+        }
+
+        @Override
+        public String get(int index) {
+            Objects.checkIndex(index, size());
+            return people[role.get(role.from(row) + index)];
+        }
+
+        @Override
+        public int size() {
+            return role.to(row) - role.from(row);
+        }
+    }
+}
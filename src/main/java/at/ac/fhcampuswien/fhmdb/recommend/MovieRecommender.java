@@ -0,0 +1,311 @@
+package at.ac.fhcampuswien.fhmdb.recommend;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.search.MovieIndex;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// "more like this": movies that share people (main cast, directors, writers) and genres with a given movie.
+// comparing a movie with every other one is too slow for a large catalogue, so the people of every movie are
+// reduced to a MinHash signature once per index. two movies get the same value for one hash function with a
+// probability equal to the Jaccard similarity of their people. the signature is cut into bands, and movies with
+// an identical band land in the same bucket (locality sensitive hashing): a query only looks at the movies that
+// share a bucket with it and ranks them by their exact similarity. if that leaves too few movies, the list is
+// filled up with the best rated movies of the same genres, then of the most similar genre combinations.
+// doc ids are the ones of the MovieIndex, deleted docs are never recommended
+public class MovieRecommender {
+    // 16 bands of 2 hashes: movies sharing about a quarter of their people are likely to meet in a bucket
+    private static final int BANDS = 16;
+    private static final int ROWS = 2;
+    private static final long[] SEEDS = new long[BANDS * ROWS];
+    // buckets of very common bands are only looked at partially, so a query stays fast
+    private static final int MAX_BUCKET_SCAN = 500;
+    // weight of the people in the score, the genres make up the rest
+    private static final double PEOPLE_WEIGHT = 0.75;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5eedL);
+        for (int i = 0; i < SEEDS.length; i++) {
+            SEEDS[i] = random.nextLong();
+        }
+    }
+
+    public record Recommendation(int doc, double score) {
+    }
+
+    // lower score first, then higher doc id, i.e. the worst recommendation is the smallest
+    private static final Comparator<Recommendation> RANKING = Comparator.comparingDouble(Recommendation::score)
+            .thenComparing(Recommendation::doc, Comparator.reverseOrder());
+
+    private final MovieIndex movieIndex;
+    // per band the docs ordered by band hash, bandHashes[band][i] is the hash of bandDocs[band][i]
+    private final int[][] bandHashes;
+    private final int[][] bandDocs;
+    // docs with the same genres, best rated first
+    private final Map<Long, int[]> docsByGenres;
+
+    public MovieRecommender(MovieIndex movieIndex) {
+        this(movieIndex, ForkJoinPool.commonPool());
+    }
+
+    // the signatures and the buckets of the bands are computed in parallel on the pool
+    public MovieRecommender(MovieIndex movieIndex, ForkJoinPool pool) {
+        this.movieIndex = movieIndex;
+        int size = movieIndex.size();
+        int[][] hashes = new int[BANDS][size];
+        boolean[] indexed = new boolean[size];
+        pool.submit(() -> IntStream.range(0, size).parallel().forEach(doc -> {
+            if (movieIndex.isDeleted(doc)) {
+                return;
+            }
+            long[] people = people(movieIndex.get(doc));
+            if (people.length == 0) {
+                return;
+            }
+            int[] bands = bands(people);
+            for (int band = 0; band < BANDS; band++) {
+                hashes[band][doc] = bands[band];
+            }
+            indexed[doc] = true;
+        })).join();
+
+        int count = 0;
+        for (boolean value : indexed) {
+            count += value ? 1 : 0;
+        }
+        bandHashes = new int[BANDS][];
+        bandDocs = new int[BANDS][];
+        int indexedDocs = count;
+        pool.submit(() -> IntStream.range(0, BANDS).parallel().forEach(band -> {
+            // hash and doc packed into one long, so a primitive sort orders by hash and then doc
+            long[] packed = new long[indexedDocs];
+            int i = 0;
+            for (int doc = 0; doc < size; doc++) {
+                if (indexed[doc]) {
+                    packed[i++] = (long) hashes[band][doc] << 32 | doc;
+                }
+            }
+            Arrays.sort(packed);
+            int[] bucketHashes = new int[indexedDocs];
+            int[] bucketDocs = new int[indexedDocs];
+            for (i = 0; i < indexedDocs; i++) {
+                bucketHashes[i] = (int) (packed[i] >> 32);
+                bucketDocs[i] = (int) packed[i];
+            }
+            bandHashes[band] = bucketHashes;
+            bandDocs[band] = bucketDocs;
+        })).join();
+
+        Map<Long, List<Integer>> byGenres = new HashMap<>();
+        for (int doc = 0; doc < size; doc++) {
+            if (!movieIndex.isDeleted(doc)) {
+                byGenres.computeIfAbsent(movieIndex.genres(doc), mask -> new ArrayList<>()).add(doc);
+            }
+        }
+        docsByGenres = new HashMap<>();
+        Comparator<Integer> bestRated = Comparator.comparingDouble(doc -> -movieIndex.rating(doc));
+        byGenres.forEach((mask, docs) -> {
+            docs.sort(bestRated);
+            docsByGenres.put(mask, docs.stream().mapToInt(Integer::intValue).toArray());
+        });
+    }
+
+    // the movies most similar to the given one, best first. the movie itself (same id or equal) is left out
+    public List<Recommendation> similarTo(Movie movie, int k) {
+        if (movie == null || k <= 0) {
+            return List.of();
+        }
+        long[] people = people(movie);
+        long genres = genreMask(movie);
+
+        // candidates from the buckets, scored by their exact similarity
+        Set<Integer> candidates = new HashSet<>();
+        if (people.length > 0) {
+            int[] bands = bands(people);
+            for (int band = 0; band < BANDS; band++) {
+                int[] hashes = bandHashes[band];
+                int from = firstIndexOf(hashes, bands[band]);
+                for (int i = from; i < hashes.length && i - from < MAX_BUCKET_SCAN && hashes[i] == bands[band]; i++) {
+                    candidates.add(bandDocs[band][i]);
+                }
+            }
+        }
+        PriorityQueue<Recommendation> best = new PriorityQueue<>(RANKING);
+        for (int doc : candidates) {
+            offer(best, movie, people, genres, doc, k);
+        }
+        if (best.size() < k && genres != 0) {
+            // the same genres first, then the genre combinations that overlap most
+            List<Long> masks = new ArrayList<>();
+            for (long mask : docsByGenres.keySet()) {
+                if ((mask & genres) != 0) {
+                    masks.add(mask);
+                }
+            }
+            masks.sort(Comparator.comparingDouble((Long mask) -> -jaccard(mask, genres)).thenComparing(mask -> mask));
+            int missing = k - best.size();
+            for (int i = 0; i < masks.size() && missing > 0; i++) {
+                for (int doc : docsByGenres.get(masks.get(i))) {
+                    if (missing == 0) {
+                        break;
+                    }
+                    if (candidates.add(doc) && offer(best, movie, people, genres, doc, k)) {
+                        missing--;
+                    }
+                }
+            }
+        }
+
+        List<Recommendation> result = new ArrayList<>(best);
+        result.sort(RANKING.reversed());
+        return result;
+    }
+
+    // scores the doc and keeps it if it is among the k best (a min-heap). false for the movie itself
+    private boolean offer(PriorityQueue<Recommendation> best, Movie movie, long[] people, long genres, int doc, int k) {
+        Movie candidate = movieIndex.get(doc);
+        if (isSame(movie, candidate)) {
+            return false;
+        }
+        Recommendation recommendation = new Recommendation(doc, PEOPLE_WEIGHT * jaccard(people, people(candidate))
+                + (1 - PEOPLE_WEIGHT) * jaccard(genres, genreMask(candidate)));
+        if (best.size() < k) {
+            best.add(recommendation);
+        } else if (RANKING.compare(recommendation, best.peek()) > 0) {
+            best.poll();
+            best.add(recommendation);
+        }
+        return true;
+    }
+
+    private static boolean isSame(Movie movie, Movie other) {
+        if (movie.getId() != null && !movie.getId().isEmpty()) {
+            return movie.getId().equals(other.getId());
+        }
+        return movie.equals(other);
+    }
+
+    // position of the first entry with the given hash, or where it would be
+    private static int firstIndexOf(int[] hashes, int hash) {
+        int low = 0;
+        int high = hashes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (hashes[mid] < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // 64 bit hashes of the people of a movie, sorted and without duplicates. the role is part of the hash,
+    // so an actor who also directed a movie counts twice
+    static long[] people(Movie movie) {
+        int count = size(movie.getMainCast()) + size(movie.getDirectors()) + size(movie.getWriters());
+        long[] people = new long[count];
+        int i = add(people, 0, movie.getMainCast(), 1);
+        i = add(people, i, movie.getDirectors(), 2);
+        i = add(people, i, movie.getWriters(), 3);
+        Arrays.sort(people, 0, i);
+        int distinct = 0;
+        for (int j = 0; j < i; j++) {
+            if (distinct == 0 || people[distinct - 1] != people[j]) {
+                people[distinct++] = people[j];
+            }
+        }
+        return distinct == people.length ? people : Arrays.copyOf(people, distinct);
+    }
+
+    private static int size(List<String> names) {
+        return names == null ? 0 : names.size();
+    }
+
+    private static int add(long[] people, int i, List<String> names, int role) {
+        if (names != null) {
+            for (String name : names) {
+                if (name != null) {
+                    people[i++] = mix(nameHash(name.toLowerCase(Locale.ROOT)) ^ role);
+                }
+            }
+        }
+        return i;
+    }
+
+    private static long genreMask(Movie movie) {
+        long mask = 0;
+        if (movie.getGenres() != null) {
+            for (Genre genre : movie.getGenres()) {
+                if (genre != null) {
+                    mask |= 1L << genre.ordinal();
+                }
+            }
+        }
+        return mask;
+    }
+
+    // the MinHash signature cut into bands, every band hashed into one int
+    static int[] bands(long[] people) {
+        int[] bands = new int[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long hash = band;
+            for (int row = 0; row < ROWS; row++) {
+                long seed = SEEDS[band * ROWS + row];
+                long min = Long.MAX_VALUE;
+                for (long person : people) {
+                    min = Math.min(min, mix(person ^ seed));
+                }
+                hash = mix(hash ^ min);
+            }
+            bands[band] = (int) (hash ^ (hash >>> 32));
+        }
+        return bands;
+    }
+
+    static double jaccard(long[] a, long[] b) {
+        if (a.length == 0 && b.length == 0) {
+            return 0;
+        }
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                shared++;
+                i++;
+                j++;
+            }
+        }
+        return (double) shared / (a.length + b.length - shared);
+    }
+
+    private static double jaccard(long a, long b) {
+        long union = a | b;
+        return union == 0 ? 0 : (double) Long.bitCount(a & b) / Long.bitCount(union);
+    }
+
+    // 64 bit FNV-1a hash of a name. String.hashCode has only 32 bits, and among the hundreds of thousands of
+    // names of a large catalogue some would collide and count as the same person
+    static long nameHash(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            hash = (hash ^ name.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // the finalizer of SplitMix64, spreads the bits of similar inputs
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
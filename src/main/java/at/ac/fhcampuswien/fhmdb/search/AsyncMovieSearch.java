@@ -0,0 +1,258 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import at.ac.fhcampuswien.fhmdb.api.MovieAPI;
+import at.ac.fhcampuswien.fhmdb.api.MovieResponseCache;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import okhttp3.Call;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+// runs movie searches against the API without blocking the JavaFX application thread.
+// results are streamed into the list in batches while the response is still downloading.
+// only the newest search is allowed to publish its results, older ones are cancelled or discarded
+public class AsyncMovieSearch {
+    private static final System.Logger LOGGER = System.getLogger(AsyncMovieSearch.class.getName());
+    private static final int BATCH_SIZE = 100;
+
+    private final ObservableList<Movie> target;
+    private final MovieResponseCache cache;
+    // runs the updates of the target list, the FX thread in the application
+    private final Executor publisher;
+    private final AtomicLong generation = new AtomicLong();
+    // guarded by this, together with changes of generation that cancel it
+    private Call inFlight;
+
+    // time-to-first-result metrics, measured from search() until the results are visible in the list
+    private final AtomicLong completedSearches = new AtomicLong();
+    private final AtomicLong cancelledSearches = new AtomicLong();
+    private final AtomicLong staleResponses = new AtomicLong();
+    private final AtomicLong failedSearches = new AtomicLong();
+    private final AtomicLong totalTimeToFirstResultNanos = new AtomicLong();
+    private volatile long lastTimeToFirstResultNanos = -1;
+
+    public AsyncMovieSearch(ObservableList<Movie> target) {
+        this(target, null);
+    }
+
+    // searches whose filters are in the cache are answered without a request, completed searches are added to it
+    public AsyncMovieSearch(ObservableList<Movie> target, MovieResponseCache cache) {
+        this(target, cache, Platform::runLater);
+    }
+
+    public AsyncMovieSearch(ObservableList<Movie> target, MovieResponseCache cache, Executor publisher) {
+        this.target = target;
+        this.cache = cache;
+        this.publisher = publisher;
+    }
+
+    // starts a new search and cancels the one that is still running (if any).
+    // onPublished runs on the FX thread right after the last results were put into the target list
+    public void search(String query, Genre genre, String releaseYear, String ratingFrom, Runnable onPublished) {
+        long searchGeneration = generation.incrementAndGet();
+        long startNanos = System.nanoTime();
+        MovieResponseCache.FilterKey key = MovieResponseCache.FilterKey.of(query, genre, releaseYear, ratingFrom);
+        if (publishCached(searchGeneration, startNanos, key, onPublished)) {
+            return;
+        }
+        send(searchGeneration, startNanos, key, MovieAPI.moviesCall(query, genre, releaseYear, ratingFrom),
+                totalCount -> true, onPublished);
+    }
+
+    // same, but only the first page of pageSize movies is requested. a server that doesn't page answers with the
+    // whole result and a result that fits into the first page is complete as well, both are streamed as usual.
+    // a result of more than pagingThreshold movies is handed to onLarge on the FX thread instead, to be loaded
+    // page by page; any other result is requested again as a whole and streamed
+    public void search(String query, Genre genre, String releaseYear, String ratingFrom, int pageSize,
+                       int pagingThreshold, Consumer<MoviePageSource> onLarge, Runnable onPublished) {
+        long searchGeneration = generation.incrementAndGet();
+        long startNanos = System.nanoTime();
+        MovieResponseCache.FilterKey key = MovieResponseCache.FilterKey.of(query, genre, releaseYear, ratingFrom);
+        if (publishCached(searchGeneration, startNanos, key, onPublished)) {
+            return;
+        }
+        send(searchGeneration, startNanos, key, MovieAPI.pageCall(query, genre, releaseYear, ratingFrom, 0, pageSize),
+                totalCount -> {
+                    if (totalCount <= pageSize) {
+                        return true;
+                    }
+                    complete(searchGeneration);
+                    if (totalCount > pagingThreshold) {
+                        MoviePageSource pages = RemoteMoviePageSource.ofSize(query, genre, releaseYear, ratingFrom,
+                                totalCount);
+                        publish(searchGeneration, () -> {
+                            onLarge.accept(pages);
+                            recordTimeToFirstResult(System.nanoTime() - startNanos);
+                        });
+                    } else {
+                        send(searchGeneration, startNanos, key,
+                                MovieAPI.moviesCall(query, genre, releaseYear, ratingFrom), count -> true, onPublished);
+                    }
+                    return false;
+                }, onPublished);
+    }
+
+    // publishes the cached movies for key, false if there are none and the API has to be asked
+    private boolean publishCached(long searchGeneration, long startNanos, MovieResponseCache.FilterKey key,
+                                  Runnable onPublished) {
+        List<Movie> cached = cache == null ? null : cache.getIfPresent(key);
+        if (cached == null) {
+            return false;
+        }
+        register(searchGeneration, null);
+        publish(searchGeneration, () -> {
+            target.setAll(cached);
+            recordTimeToFirstResult(System.nanoTime() - startNanos);
+            if (onPublished != null) {
+                onPublished.run();
+            }
+        });
+        return true;
+    }
+
+    // streams the response of call into the target list, see MovieAPI.streamMoviesAsync for onTotalCount
+    private void send(long searchGeneration, long startNanos, MovieResponseCache.FilterKey key, Call call,
+                      IntPredicate onTotalCount, Runnable onPublished) {
+        // a refresh while the call is running must not let its answer into the cache
+        long cacheGeneration = cache == null ? 0 : cache.generation();
+        // the call is registered before it is sent, so a cancel() or a newer search always reaches it
+        if (!register(searchGeneration, call)) {
+            return;
+        }
+        boolean[] firstBatch = {true};
+        List<Movie> received = new ArrayList<>();
+        MovieAPI.streamMoviesAsync(call, BATCH_SIZE, onTotalCount,
+                movies -> {
+                    received.addAll(movies);
+                    publish(searchGeneration, () -> {
+                        // the first batch replaces the previous results, the following ones are appended
+                        if (firstBatch[0]) {
+                            firstBatch[0] = false;
+                            target.setAll(movies);
+                            recordTimeToFirstResult(System.nanoTime() - startNanos);
+                        } else {
+                            target.addAll(movies);
+                        }
+                    });
+                },
+                () -> {
+                    complete(searchGeneration);
+                    if (cache != null) {
+                        cache.put(key, Collections.unmodifiableList(received), cacheGeneration);
+                    }
+                    publish(searchGeneration, () -> {
+                        if (firstBatch[0]) {
+                            firstBatch[0] = false;
+                            target.clear();
+                            recordTimeToFirstResult(System.nanoTime() - startNanos);
+                        }
+                        if (onPublished != null) {
+                            onPublished.run();
+                        }
+                    });
+                },
+                e -> {
+                    complete(searchGeneration);
+                    LOGGER.log(System.Logger.Level.WARNING, "Search failed: {0}", e.getMessage());
+                    publish(searchGeneration, failedSearches::incrementAndGet);
+                });
+    }
+
+    // cancels the running search, results that are already on their way are dropped as well
+    public void cancel() {
+        Call previous;
+        synchronized (this) {
+            generation.incrementAndGet();
+            previous = inFlight;
+            inFlight = null;
+        }
+        cancel(previous);
+    }
+
+    // makes call the search in flight and cancels the previous one. false if a newer search or a cancel()
+    // came first, the call must then not be sent
+    private boolean register(long searchGeneration, Call call) {
+        Call previous;
+        synchronized (this) {
+            if (searchGeneration != generation.get()) {
+                return false;
+            }
+            previous = inFlight;
+            inFlight = call;
+        }
+        cancel(previous);
+        return true;
+    }
+
+    private void cancel(Call call) {
+        if (call != null && !call.isCanceled()) {
+            call.cancel();
+            cancelledSearches.incrementAndGet();
+        }
+    }
+
+    // the response of the current search has arrived, so there is nothing left to cancel
+    private synchronized void complete(long searchGeneration) {
+        if (searchGeneration == generation.get()) {
+            inFlight = null;
+        }
+    }
+
+    // runs the update on the FX thread, unless a newer search has been started in the meantime
+    private void publish(long searchGeneration, Runnable update) {
+        if (searchGeneration != generation.get()) {
+            staleResponses.incrementAndGet();
+            return;
+        }
+        publisher.execute(() -> {
+            // a newer search may have been started while this update was queued
+            if (searchGeneration != generation.get()) {
+                staleResponses.incrementAndGet();
+                return;
+            }
+            update.run();
+        });
+    }
+
+    private void recordTimeToFirstResult(long nanos) {
+        lastTimeToFirstResultNanos = nanos;
+        totalTimeToFirstResultNanos.addAndGet(nanos);
+        completedSearches.incrementAndGet();
+    }
+
+    public long getLastTimeToFirstResultMillis() {
+        long nanos = lastTimeToFirstResultNanos;
+        return nanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    public double getAverageTimeToFirstResultMillis() {
+        long completed = completedSearches.get();
+        return completed == 0 ? 0 : totalTimeToFirstResultNanos.get() / 1_000_000.0 / completed;
+    }
+
+    public long getCompletedSearches() {
+        return completedSearches.get();
+    }
+
+    public long getCancelledSearches() {
+        return cancelledSearches.get();
+    }
+
+    public long getStaleResponses() {
+        return staleResponses.get();
+    }
+
+    // searches of the newest generation that failed, counted once the failure reached the publisher
+    public long getFailedSearches() {
+        return failedSearches.get();
+    }
+}
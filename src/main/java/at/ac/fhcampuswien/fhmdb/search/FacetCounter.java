@@ -0,0 +1,123 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+
+import java.util.*;
+
+// counts how many movies each genre, release year and minimum rating would return together with the other
+// filters that are currently set. a facet ignores its own filter, so the genre counts answer "how many movies
+// would I get if I picked this genre instead". the counts of a facet are only computed again when one of the
+// other filters has changed
+public class FacetCounter {
+    private static final Genre[] GENRES = Genre.values();
+    // ratings are counted per whole point, the last bucket holds the 10.0 ratings
+    private static final int RATING_BUCKETS = 11;
+
+    // the faceted fields are read from the columns of the index, so a counter costs nothing to create
+    private final MovieIndex movieIndex;
+
+    private Filters genreKey;
+    private Map<Genre, Integer> genreCounts;
+    private Filters releaseYearKey;
+    private SortedMap<Integer, Integer> releaseYearCounts;
+    private Filters ratingKey;
+    private SortedMap<Integer, Integer> ratingCounts;
+    private long computations;
+
+    public record Facets(Map<Genre, Integer> genres, SortedMap<Integer, Integer> releaseYears,
+                         SortedMap<Integer, Integer> ratingsFrom) {
+    }
+
+    private record Filters(String query, Genre genre, Integer releaseYear, Double ratingFrom) {
+    }
+
+    public FacetCounter(MovieIndex movieIndex) {
+        this.movieIndex = movieIndex;
+    }
+
+    // a counter that already knows the facets without any filter, e.g. counted when the catalogue was loaded.
+    // the first count for an unfiltered catalogue then doesn't have to match anything
+    public FacetCounter(MovieIndex movieIndex, Facets unfiltered) {
+        this.movieIndex = movieIndex;
+        Filters none = new Filters(null, null, null, null);
+        genreKey = none;
+        genreCounts = unfiltered.genres();
+        releaseYearKey = none;
+        releaseYearCounts = unfiltered.releaseYears();
+        ratingKey = none;
+        ratingCounts = unfiltered.ratingsFrom();
+    }
+
+    public Facets count(String query, Genre genre, Integer releaseYear, Double ratingFrom) {
+        String lowerCaseQuery = query == null || query.isEmpty() ? null : query.toLowerCase();
+
+        Filters withoutGenre = new Filters(lowerCaseQuery, null, releaseYear, ratingFrom);
+        if (!withoutGenre.equals(genreKey)) {
+            genreCounts = countGenres(match(withoutGenre));
+            genreKey = withoutGenre;
+        }
+        Filters withoutYear = new Filters(lowerCaseQuery, genre, null, ratingFrom);
+        if (!withoutYear.equals(releaseYearKey)) {
+            releaseYearCounts = countReleaseYears(match(withoutYear));
+            releaseYearKey = withoutYear;
+        }
+        Filters withoutRating = new Filters(lowerCaseQuery, genre, releaseYear, null);
+        if (!withoutRating.equals(ratingKey)) {
+            ratingCounts = countRatings(match(withoutRating));
+            ratingKey = withoutRating;
+        }
+        return new Facets(genreCounts, releaseYearCounts, ratingCounts);
+    }
+
+    // number of facets that had to be counted again, the others were reused
+    public long getComputations() {
+        return computations;
+    }
+
+    private BitSet match(Filters filters) {
+        computations++;
+        return movieIndex.match(filters.query(), filters.genre(), filters.releaseYear(), filters.ratingFrom());
+    }
+
+    private Map<Genre, Integer> countGenres(BitSet docs) {
+        int[] counts = new int[GENRES.length];
+        for (int doc = docs.nextSetBit(0); doc >= 0; doc = docs.nextSetBit(doc + 1)) {
+            for (long genres = movieIndex.genres(doc); genres != 0; genres &= genres - 1) {
+                counts[Long.numberOfTrailingZeros(genres)]++;
+            }
+        }
+        Map<Genre, Integer> result = new EnumMap<>(Genre.class);
+        for (Genre genre : GENRES) {
+            if (counts[genre.ordinal()] > 0) {
+                result.put(genre, counts[genre.ordinal()]);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    // newest year first, like the combo box
+    private SortedMap<Integer, Integer> countReleaseYears(BitSet docs) {
+        SortedMap<Integer, Integer> result = new TreeMap<>(Comparator.reverseOrder());
+        for (int doc = docs.nextSetBit(0); doc >= 0; doc = docs.nextSetBit(doc + 1)) {
+            result.merge(movieIndex.releaseYear(doc), 1, Integer::sum);
+        }
+        return Collections.unmodifiableSortedMap(result);
+    }
+
+    // key is the minimum rating, value the number of movies rated at least that much
+    private SortedMap<Integer, Integer> countRatings(BitSet docs) {
+        int[] buckets = new int[RATING_BUCKETS];
+        for (int doc = docs.nextSetBit(0); doc >= 0; doc = docs.nextSetBit(doc + 1)) {
+            buckets[Math.max(0, Math.min(RATING_BUCKETS - 1, (int) movieIndex.rating(doc)))]++;
+        }
+        SortedMap<Integer, Integer> result = new TreeMap<>();
+        int atLeast = 0;
+        for (int rating = RATING_BUCKETS - 1; rating >= 1; rating--) {
+            atLeast += buckets[rating];
+            if (atLeast > 0) {
+                result.put(rating, atLeast);
+            }
+        }
+        return Collections.unmodifiableSortedMap(result);
+    }
+}
@@ -0,0 +1,328 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.util.*;
+
+// typo tolerant search over the titles, main cast and directors of a MovieIndex, e.g. "avtar" finds "Avatar".
+// every word of the query has to be within a small Levenshtein distance of a word of the movie (0 for words of
+// up to 2 letters, 1 up to 5 letters, 2 above). the words of all movies form a dictionary, and the padded trigrams
+// of every dictionary word are indexed: a word within distance k of the query word shares at least
+// (trigrams of the query word - 3k) of them, so only those candidates are verified with the real distance.
+// that bound is 0 for query words of 3 and 6 letters, their candidates are found by the padded bigrams instead
+// (at least bigrams - 2k shared), which are only indexed for the short words such a query can match.
+// results are ranked by the summed distance, a match in the title ranks before one in a name.
+// doc ids are the ones of the MovieIndex, deleted docs are left out
+public class FuzzyIndex {
+    private static final char PADDING = '\u0000';
+    // longest dictionary word with bigrams indexed: the longest query word the trigram filter can't handle has
+    // 6 letters and allows 2 edits
+    private static final int SHORT_WORD_LENGTH = 6 + maxDistance(6);
+
+    // sorted dictionary, a word id is the position in this array
+    private final String[] words;
+    // docs whose title resp. cast or directors contain the word, sorted doc ids
+    private final int[][] titlePostings;
+    private final int[][] peoplePostings;
+    // padded trigrams of all words and padded bigrams of the short words, each as sorted grams and the ids of
+    // the words containing them
+    private final GramIndex trigrams;
+    private final GramIndex bigrams;
+
+    public FuzzyIndex(MovieIndex movieIndex) {
+        int docCount = movieIndex.size();
+        Map<String, IntList[]> postings = new HashMap<>();
+        for (int doc = 0; doc < docCount; doc++) {
+            if (movieIndex.isDeleted(doc)) {
+                continue;
+            }
+            Movie movie = movieIndex.get(doc);
+            addWords(postings, movie.getTitle(), 0, doc);
+            addPeople(postings, movie.getMainCast(), doc);
+            addPeople(postings, movie.getDirectors(), doc);
+        }
+
+        words = postings.keySet().toArray(new String[0]);
+        Arrays.sort(words);
+        titlePostings = new int[words.length][];
+        peoplePostings = new int[words.length][];
+        Map<Long, IntList> trigramMap = new HashMap<>();
+        Map<Long, IntList> bigramMap = new HashMap<>();
+        for (int word = 0; word < words.length; word++) {
+            IntList[] lists = postings.get(words[word]);
+            titlePostings[word] = lists[0] == null ? new int[0] : lists[0].toArray();
+            peoplePostings[word] = lists[1] == null ? new int[0] : lists[1].toArray();
+            addGrams(trigramMap, words[word], 3, word);
+            if (words[word].length() <= SHORT_WORD_LENGTH) {
+                addGrams(bigramMap, words[word], 2, word);
+            }
+        }
+        trigrams = new GramIndex(3, trigramMap);
+        bigrams = new GramIndex(2, bigramMap);
+    }
+
+    // sorted grams of one length and the ids of the words containing them, ascending
+    private static class GramIndex {
+        final int length;
+        final long[] grams;
+        final int[][] words;
+
+        GramIndex(int length, Map<Long, IntList> gramMap) {
+            this.length = length;
+            grams = new long[gramMap.size()];
+            int i = 0;
+            for (Long gram : gramMap.keySet()) {
+                grams[i++] = gram;
+            }
+            Arrays.sort(grams);
+            words = new int[grams.length][];
+            for (i = 0; i < grams.length; i++) {
+                words[i] = gramMap.get(grams[i]).toArray();
+            }
+        }
+
+        int[] wordsOf(long gram) {
+            int slot = Arrays.binarySearch(grams, gram);
+            return slot < 0 ? new int[0] : words[slot];
+        }
+    }
+
+    private static void addGrams(Map<Long, IntList> gramMap, String word, int length, int id) {
+        String padded = pad(word);
+        for (int i = 0; i + length <= padded.length(); i++) {
+            IntList gramList = gramMap.computeIfAbsent(gram(padded, i, length), g -> new IntList());
+            // words are added in ascending order, a word with a repeated gram only once
+            if (gramList.last() != id) {
+                gramList.add(id);
+            }
+        }
+    }
+
+    private static void addPeople(Map<String, IntList[]> postings, List<String> people, int doc) {
+        if (people != null) {
+            for (String person : people) {
+                addWords(postings, person, 1, doc);
+            }
+        }
+    }
+
+    private static void addWords(Map<String, IntList[]> postings, String text, int field, int doc) {
+        for (String word : words(text)) {
+            IntList[] lists = postings.computeIfAbsent(word, w -> new IntList[2]);
+            if (lists[field] == null) {
+                lists[field] = new IntList();
+            }
+            // docs are added in ascending order, so a doc only has to be compared with the last entry
+            if (lists[field].last() != doc) {
+                lists[field].add(doc);
+            }
+        }
+    }
+
+    // case and accent insensitive words of a text
+    private static List<String> words(String text) {
+        List<String> words = TextIndex.tokenize(text);
+        words.replaceAll(MovieSorter::collationKey);
+        return words;
+    }
+
+    private static String pad(String word) {
+        return PADDING + word + PADDING;
+    }
+
+    private static long gram(String text, int from, int length) {
+        long gram = 0;
+        for (int i = from; i < from + length; i++) {
+            gram = gram << 16 | text.charAt(i);
+        }
+        return gram;
+    }
+
+    // distinct padded grams of a query word
+    private static Set<Long> grams(String word, int length) {
+        String padded = pad(word);
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + length <= padded.length(); i++) {
+            grams.add(gram(padded, i, length));
+        }
+        return grams;
+    }
+
+    public int wordCount() {
+        return words.length;
+    }
+
+    // edits allowed for a query word of the given length
+    static int maxDistance(int length) {
+        return length <= 2 ? 0 : length <= 5 ? 1 : 2;
+    }
+
+    // docs matching every word of the query, best matches first (ties in doc id order). at most limit docs.
+    // only the docs in the postings of the matching words are looked at, a search allocates nothing per doc of
+    // the catalogue
+    public int[] search(String query, int limit) {
+        List<String> queryWords = words(query);
+        if (queryWords.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+        // docs that matched every query word so far, ascending, each packed with its cost: the sum over the
+        // query words of 2 * distance, +1 if the word only matched a name
+        long[] matches = null;
+        for (String queryWord : queryWords) {
+            long[] wordMatches = match(queryWord);
+            matches = matches == null ? wordMatches : intersect(matches, wordMatches);
+            if (matches.length == 0) {
+                return new int[0];
+            }
+        }
+        return rank(matches, limit);
+    }
+
+    // docs with a word within the allowed distance of the query word, ascending and packed with the lowest cost
+    private long[] match(String queryWord) {
+        int maxDistance = maxDistance(queryWord.length());
+        IntList matchedWords = new IntList();
+        IntList distances = new IntList();
+        int postings = 0;
+        for (int word : candidates(queryWord, maxDistance)) {
+            int distance = distance(queryWord, words[word], maxDistance);
+            if (distance <= maxDistance) {
+                matchedWords.add(word);
+                distances.add(distance);
+                postings += titlePostings[word].length + peoplePostings[word].length;
+            }
+        }
+        long[] packed = new long[postings];
+        int size = 0;
+        int[] matched = matchedWords.toArray();
+        int[] wordDistances = distances.toArray();
+        for (int i = 0; i < matched.length; i++) {
+            for (int doc : titlePostings[matched[i]]) {
+                packed[size++] = pack(doc, 2 * wordDistances[i]);
+            }
+            for (int doc : peoplePostings[matched[i]]) {
+                packed[size++] = pack(doc, 2 * wordDistances[i] + 1);
+            }
+        }
+        // by doc and then cost, so the first entry of a doc has its lowest cost
+        Arrays.sort(packed);
+        int distinct = 0;
+        for (int i = 0; i < packed.length; i++) {
+            if (distinct == 0 || doc(packed[i]) != doc(packed[distinct - 1])) {
+                packed[distinct++] = packed[i];
+            }
+        }
+        return Arrays.copyOf(packed, distinct);
+    }
+
+    // docs in both, with the costs added up
+    private static long[] intersect(long[] a, long[] b) {
+        long[] result = new long[Math.min(a.length, b.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            int compared = Integer.compare(doc(a[i]), doc(b[j]));
+            if (compared < 0) {
+                i++;
+            } else if (compared > 0) {
+                j++;
+            } else {
+                result[size++] = pack(doc(a[i]), cost(a[i++]) + cost(b[j++]));
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static long pack(int doc, int cost) {
+        return (long) doc << 32 | cost;
+    }
+
+    private static int doc(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int cost(long packed) {
+        return (int) packed;
+    }
+
+    // costs are small numbers, so the docs are put in order by counting instead of sorting
+    private static int[] rank(long[] matches, int limit) {
+        int maxCost = 0;
+        for (long match : matches) {
+            maxCost = Math.max(maxCost, cost(match));
+        }
+        int[] starts = new int[maxCost + 2];
+        for (long match : matches) {
+            starts[cost(match) + 1]++;
+        }
+        for (int i = 1; i < starts.length; i++) {
+            starts[i] += starts[i - 1];
+        }
+        int[] ranked = new int[matches.length];
+        for (long match : matches) {
+            ranked[starts[cost(match)]++] = doc(match);
+        }
+        return ranked.length <= limit ? ranked : Arrays.copyOf(ranked, limit);
+    }
+
+    // word ids that may be within maxDistance of the query word
+    private int[] candidates(String queryWord, int maxDistance) {
+        Set<Long> queryGrams = grams(queryWord, trigrams.length);
+        GramIndex index = trigrams;
+        if (queryGrams.size() - trigrams.length * maxDistance <= 0) {
+            queryGrams = grams(queryWord, bigrams.length);
+            index = bigrams;
+        }
+        // every edit destroys at most one gram per letter of a gram
+        int threshold = queryGrams.size() - index.length * maxDistance;
+        IntList result = new IntList();
+        if (threshold <= 0) {
+            // only words with few distinct letters, e.g. "ababab": the words of similar length are checked instead
+            for (int word = 0; word < words.length; word++) {
+                if (Math.abs(words[word].length() - queryWord.length()) <= maxDistance) {
+                    result.add(word);
+                }
+            }
+            return result.toArray();
+        }
+        // how many of the query grams a word shares, a word is in the postings of a gram at most once
+        short[] shared = new short[words.length];
+        for (long gram : queryGrams) {
+            for (int word : index.wordsOf(gram)) {
+                if (++shared[word] == threshold
+                        && Math.abs(words[word].length() - queryWord.length()) <= maxDistance) {
+                    result.add(word);
+                }
+            }
+        }
+        return result.toArray();
+    }
+
+    // Levenshtein distance of a and b if it is at most max, otherwise max + 1. stops as soon as every cell of a
+    // row exceeds max, the distance can only grow from there
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] row = previous;
+            previous = current;
+            current = row;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+}
@@ -0,0 +1,66 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+
+import java.util.BitSet;
+import java.util.Objects;
+
+// remembers the last filter result of a MovieIndex. when the next filters are stricter than the last ones
+// (e.g. the user typed another character or raised the minimum rating), only the previous matches have to be
+// checked instead of the whole catalogue
+public class IncrementalFilter {
+    private final MovieIndex movieIndex;
+    private String lastQuery;
+    private Genre lastGenre;
+    private Integer lastReleaseYear;
+    private Double lastRatingFrom;
+    private BitSet lastResult;
+    private long refinements;
+    private long fullSearches;
+
+    public IncrementalFilter(MovieIndex movieIndex) {
+        this.movieIndex = movieIndex;
+    }
+
+    public MovieIndex getMovieIndex() {
+        return movieIndex;
+    }
+
+    public BitSet apply(String query, Genre genre, Integer releaseYear, Double ratingFrom) {
+        String lowerCaseQuery = query == null || query.isEmpty() ? null : query.toLowerCase();
+        BitSet result;
+        if (lastResult != null && refines(lowerCaseQuery, genre, releaseYear, ratingFrom)) {
+            result = movieIndex.match(lowerCaseQuery, genre, releaseYear, ratingFrom, lastResult);
+            refinements++;
+        } else {
+            result = movieIndex.match(lowerCaseQuery, genre, releaseYear, ratingFrom);
+            fullSearches++;
+        }
+        lastQuery = lowerCaseQuery;
+        lastGenre = genre;
+        lastReleaseYear = releaseYear;
+        lastRatingFrom = ratingFrom;
+        lastResult = result;
+        return (BitSet) result.clone();
+    }
+
+    // every movie matching the new filters also matched the last ones
+    private boolean refines(String query, Genre genre, Integer releaseYear, Double ratingFrom) {
+        return (lastQuery == null || query != null && query.contains(lastQuery))
+                && (lastGenre == null || lastGenre == genre)
+                && (lastReleaseYear == null || Objects.equals(lastReleaseYear, releaseYear))
+                && (lastRatingFrom == null || ratingFrom != null && ratingFrom >= lastRatingFrom);
+    }
+
+    public void reset() {
+        lastResult = null;
+    }
+
+    public long getRefinements() {
+        return refinements;
+    }
+
+    public long getFullSearches() {
+        return fullSearches;
+    }
+}
@@ -0,0 +1,36 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import java.util.Arrays;
+
+// growable int array, used to collect posting lists without boxing every doc id
+class IntList {
+    private int[] values;
+    private int size;
+
+    IntList() {
+        this(4);
+    }
+
+    IntList(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    int last() {
+        return size == 0 ? -1 : values[size - 1];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
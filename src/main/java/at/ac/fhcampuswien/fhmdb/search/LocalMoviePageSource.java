@@ -0,0 +1,30 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import at.ac.fhcampuswien.fhmdb.api.MovieAPI;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.util.List;
+
+// pages of a result that is already in memory, e.g. the cached catalogue or a local search result
+public class LocalMoviePageSource implements MoviePageSource {
+    private final List<Movie> movies;
+
+    public LocalMoviePageSource(List<Movie> movies) {
+        this.movies = movies;
+    }
+
+    @Override
+    public int size() {
+        return movies.size();
+    }
+
+    @Override
+    public List<Movie> loadPage(int page, int pageSize) {
+        return MovieAPI.slice(movies, page, pageSize).movies();
+    }
+
+    @Override
+    public List<Movie> loaded() {
+        return movies;
+    }
+}
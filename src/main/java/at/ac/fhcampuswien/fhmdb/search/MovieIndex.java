@@ -0,0 +1,444 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.models.MovieCatalog;
+
+import java.util.*;
+
+// in-memory index over the full movie catalogue that answers the same filters as the /movies endpoint
+// (query, genre, releaseYear, ratingFrom) without a network round trip.
+// every movie is addressed by its position in the catalogue (doc id), filter results are bitsets over those ids.
+// the movies themselves are kept column-wise in a MovieCatalog, get returns a view of a doc.
+// an index is never modified, withChanges returns a new index that shares everything the changes don't touch
+public class MovieIndex {
+    // docs before tailStart
+    private final MovieCatalog catalog;
+    // docs that are not deleted
+    private final BitSet allDocs;
+    private final EnumMap<Genre, BitSet> genreIndex;
+    private final Map<Integer, BitSet> yearIndex;
+    // live doc ids ordered by rating, ratings[i] is the rating of docsByRating[i]
+    private final int[] docsByRating;
+    private final double[] ratings;
+    // full text index over the lower case title and description of the docs before tailStart
+    private final TextIndex textIndex;
+    // docs appended by withChanges are kept in their own, small catalog and text index
+    private final int tailStart;
+    private final MovieCatalog tail;
+    private final TextIndex tailIndex;
+
+    // null entries are skipped, the doc ids of the following movies move up
+    public MovieIndex(List<Movie> movies) {
+        if (movies == null) {
+            throw new IllegalArgumentException("movies must not be null");
+        }
+        catalog = MovieCatalog.of(movies.stream().filter(Objects::nonNull).toList());
+        int size = catalog.size();
+        allDocs = new BitSet(size);
+        genreIndex = new EnumMap<>(Genre.class);
+        yearIndex = new HashMap<>();
+        String[] texts = new String[size];
+        for (Genre genre : Genre.values()) {
+            genreIndex.put(genre, new BitSet(size));
+        }
+
+        Integer[] byRating = new Integer[size];
+        for (int doc = 0; doc < size; doc++) {
+            allDocs.set(doc);
+            texts[doc] = searchableText(catalog.title(doc), catalog.description(doc));
+            long genres = catalog.genres(doc);
+            for (Genre genre : Genre.values()) {
+                if ((genres & MovieCatalog.genreBit(genre)) != 0) {
+                    genreIndex.get(genre).set(doc);
+                }
+            }
+            yearIndex.computeIfAbsent(catalog.releaseYear(doc), year -> new BitSet(size)).set(doc);
+            byRating[doc] = doc;
+        }
+
+        Arrays.sort(byRating, Comparator.comparingDouble(catalog::rating));
+        docsByRating = new int[size];
+        ratings = new double[size];
+        for (int i = 0; i < size; i++) {
+            docsByRating[i] = byRating[i];
+            ratings[i] = catalog.rating(byRating[i]);
+        }
+        textIndex = new TextIndex(texts);
+        tailStart = size;
+        tail = null;
+        tailIndex = null;
+    }
+
+    private MovieIndex(MovieCatalog catalog, BitSet allDocs, EnumMap<Genre, BitSet> genreIndex,
+                       Map<Integer, BitSet> yearIndex, int[] docsByRating, double[] ratings, TextIndex textIndex,
+                       int tailStart, MovieCatalog tail, TextIndex tailIndex) {
+        this.catalog = catalog;
+        this.allDocs = allDocs;
+        this.genreIndex = genreIndex;
+        this.yearIndex = yearIndex;
+        this.docsByRating = docsByRating;
+        this.ratings = ratings;
+        this.textIndex = textIndex;
+        this.tailStart = tailStart;
+        this.tail = tail;
+        this.tailIndex = tailIndex;
+    }
+
+    // new index without the deleted docs and with the appended movies as new docs at the end, like a write to
+    // an LSM tree: deleted docs only become tombstones and keep their id, so existing doc ids stay valid and
+    // the large text index of the catalogue is reused. only the text index of the appended docs is built again.
+    // an updated movie is a deleted doc plus an appended one. tombstones and the tail cost some speed, compact
+    // returns an index without them
+    public MovieIndex withChanges(BitSet deletedDocs, List<Movie> appended) {
+        if (appended.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("appended movies must not be null");
+        }
+        int oldSize = size();
+        int size = oldSize + appended.size();
+        // the tail is small, it is copied into a new catalog together with the appended movies
+        List<Movie> tailMovies = new ArrayList<>(size - tailStart);
+        for (int doc = tailStart; doc < oldSize; doc++) {
+            tailMovies.add(get(doc));
+        }
+        tailMovies.addAll(appended);
+        MovieCatalog newTail = MovieCatalog.of(tailMovies);
+
+        BitSet newAllDocs = (BitSet) allDocs.clone();
+        newAllDocs.andNot(deletedDocs);
+        newAllDocs.set(oldSize, size);
+
+        // only the bitsets that get new docs are copied, deleted docs are masked out by allDocs
+        EnumMap<Genre, BitSet> newGenreIndex = new EnumMap<>(genreIndex);
+        Map<Integer, BitSet> newYearIndex = new HashMap<>(yearIndex);
+        Set<Genre> copiedGenres = EnumSet.noneOf(Genre.class);
+        Set<Integer> copiedYears = new HashSet<>();
+        for (int doc = oldSize; doc < size; doc++) {
+            long genres = newTail.genres(doc - tailStart);
+            for (Genre genre : Genre.values()) {
+                if ((genres & MovieCatalog.genreBit(genre)) != 0) {
+                    if (copiedGenres.add(genre)) {
+                        newGenreIndex.put(genre, (BitSet) newGenreIndex.get(genre).clone());
+                    }
+                    newGenreIndex.get(genre).set(doc);
+                }
+            }
+            int year = newTail.releaseYear(doc - tailStart);
+            BitSet years = newYearIndex.get(year);
+            if (years == null) {
+                newYearIndex.put(year, years = new BitSet(size));
+                copiedYears.add(year);
+            } else if (copiedYears.add(year)) {
+                newYearIndex.put(year, years = (BitSet) years.clone());
+            }
+            years.set(doc);
+        }
+
+        // the appended docs are merged into the rating order, deleted docs are dropped from it
+        Integer[] appendedByRating = new Integer[appended.size()];
+        for (int i = 0; i < appendedByRating.length; i++) {
+            appendedByRating[i] = oldSize + i;
+        }
+        Arrays.sort(appendedByRating, Comparator.comparingDouble(doc -> newTail.rating(doc - tailStart)));
+        int live = newAllDocs.cardinality();
+        int[] newDocsByRating = new int[live];
+        double[] newRatings = new double[live];
+        int count = 0;
+        int next = 0;
+        for (int i = 0; i < docsByRating.length; i++) {
+            // appended docs have the highest ids, so they go after existing docs with the same rating
+            while (next < appendedByRating.length && newTail.rating(appendedByRating[next] - tailStart) < ratings[i]) {
+                newDocsByRating[count] = appendedByRating[next++];
+                newRatings[count] = newTail.rating(newDocsByRating[count] - tailStart);
+                count++;
+            }
+            if (newAllDocs.get(docsByRating[i])) {
+                newDocsByRating[count] = docsByRating[i];
+                newRatings[count] = ratings[i];
+                count++;
+            }
+        }
+        while (next < appendedByRating.length) {
+            newDocsByRating[count] = appendedByRating[next++];
+            newRatings[count] = newTail.rating(newDocsByRating[count] - tailStart);
+            count++;
+        }
+
+        String[] tailTexts = new String[newTail.size()];
+        for (int row = 0; row < tailTexts.length; row++) {
+            tailTexts[row] = searchableText(newTail.title(row), newTail.description(row));
+        }
+        return new MovieIndex(catalog, newAllDocs, newGenreIndex, newYearIndex, newDocsByRating, newRatings,
+                textIndex, tailStart, newTail, new TextIndex(tailTexts));
+    }
+
+    // the live movies in a new index without tombstones and tail, doc ids change
+    public MovieIndex compact() {
+        return new MovieIndex(asList());
+    }
+
+    // number of deleted docs that are still part of the index
+    public int getDeletedCount() {
+        return size() - allDocs.cardinality();
+    }
+
+    // number of docs in the tail segment
+    public int getTailSize() {
+        return size() - tailStart;
+    }
+
+    // the catalog with every doc at its doc id, null once changes have been applied (until compact)
+    public MovieCatalog getCatalog() {
+        return tail == null && getDeletedCount() == 0 ? catalog : null;
+    }
+
+    // true if the docs below other.size() are the same movies in both indexes, as after withChanges (some of them
+    // may be deleted in this one). indexes built or compacted separately never share their catalog
+    public boolean extendsIndex(MovieIndex other) {
+        return catalog == other.catalog && size() >= other.size();
+    }
+
+    public boolean isDeleted(int doc) {
+        return !allDocs.get(doc);
+    }
+
+    // title and description are joined by a character that can't be part of a query,
+    // so a match never spans both fields
+    private static String searchableText(String title, String description) {
+        return ((title == null ? "" : title) + '\u0000' + (description == null ? "" : description)).toLowerCase();
+    }
+
+    // number of docs including deleted ones, doc ids are below size
+    public int size() {
+        return tail == null ? tailStart : tailStart + tail.size();
+    }
+
+    // number of movies that are not deleted
+    public int liveCount() {
+        return allDocs.cardinality();
+    }
+
+    // a new view on every call, see MovieCatalog.get
+    public Movie get(int doc) {
+        return doc < tailStart ? catalog.get(doc) : tail.get(doc - tailStart);
+    }
+
+    // single fields of a doc, read from the columns without creating a view
+    public String title(int doc) {
+        return doc < tailStart ? catalog.title(doc) : tail.title(doc - tailStart);
+    }
+
+    public long genres(int doc) {
+        return doc < tailStart ? catalog.genres(doc) : tail.genres(doc - tailStart);
+    }
+
+    public int releaseYear(int doc) {
+        return doc < tailStart ? catalog.releaseYear(doc) : tail.releaseYear(doc - tailStart);
+    }
+
+    public int lengthInMinutes(int doc) {
+        return doc < tailStart ? catalog.lengthInMinutes(doc) : tail.lengthInMinutes(doc - tailStart);
+    }
+
+    public double rating(int doc) {
+        return doc < tailStart ? catalog.rating(doc) : tail.rating(doc - tailStart);
+    }
+
+    // the live movies in doc id order, as views. the rows of the catalog while there are no changes
+    public List<Movie> asList() {
+        if (getCatalog() != null) {
+            return catalog.asList();
+        }
+        if (getDeletedCount() == 0) {
+            return new DocList(null);
+        }
+        return new DocList(allDocs.stream().toArray());
+    }
+
+    // the doc of a view returned by this index, -1 for any other movie or a doc that has been deleted since
+    public int docOf(Movie movie) {
+        MovieCatalog.RowKey key = MovieCatalog.rowKey(movie);
+        int doc;
+        if (key == null) {
+            return -1;
+        } else if (key.catalog() == catalog) {
+            doc = key.row();
+        } else if (tail != null && key.catalog() == tail) {
+            doc = tailStart + key.row();
+        } else {
+            return -1;
+        }
+        return allDocs.get(doc) ? doc : -1;
+    }
+
+    // the docs of the movies, null if one of them is not a live doc of this index (see docOf).
+    // asList is answered without looking at its movies
+    public BitSet docsOf(List<Movie> movies) {
+        if (isAll(movies)) {
+            return (BitSet) allDocs.clone();
+        }
+        BitSet result = new BitSet(size());
+        for (Movie movie : movies) {
+            int doc = docOf(movie);
+            if (doc < 0) {
+                return null;
+            }
+            result.set(doc);
+        }
+        return result;
+    }
+
+    // the movies of the list whose doc is set, in the order of the list. the movies have to be docs of this
+    // index (see docsOf)
+    public List<Movie> retain(List<Movie> movies, BitSet docs) {
+        if (isAll(movies)) {
+            return toMovies(docs);
+        }
+        List<Movie> result = new ArrayList<>(Math.min(movies.size(), docs.cardinality()));
+        for (Movie movie : movies) {
+            if (docs.get(docOf(movie))) {
+                result.add(movie);
+            }
+        }
+        return result;
+    }
+
+    // true if the list is asList of this index
+    private boolean isAll(List<Movie> movies) {
+        return movies instanceof DocList list ? list.index() == this
+                : getCatalog() != null && catalog.isRows(movies);
+    }
+
+    private class DocList extends AbstractList<Movie> implements RandomAccess {
+        // null if every doc is live
+        private final int[] docs;
+
+        DocList(int[] docs) {
+            this.docs = docs;
+        }
+
+        MovieIndex index() {
+            return MovieIndex.this;
+        }
+
+        @Override
+        public Movie get(int index) {
+            Objects.checkIndex(index, size());
+            return MovieIndex.this.get(docs == null ? index : docs[index]);
+        }
+
+        @Override
+        public int size() {
+            return docs == null ? MovieIndex.this.size() : docs.length;
+        }
+    }
+
+    // same parameters as MovieAPI.getAllMovies, null or empty values mean "no filter"
+    public List<Movie> query(String query, Genre genre, String releaseYear, String ratingFrom) {
+        return toMovies(match(query, genre, parseYear(releaseYear), parseRating(ratingFrom)));
+    }
+
+    public BitSet match(String query, Genre genre, Integer releaseYear, Double ratingFrom) {
+        return match(query, genre, releaseYear, ratingFrom, allDocs);
+    }
+
+    // like match, but only looks at the given candidate docs
+    public BitSet match(String query, Genre genre, Integer releaseYear, Double ratingFrom, BitSet candidates) {
+        BitSet result = (BitSet) candidates.clone();
+        result.and(allDocs);
+        if (genre != null) {
+            result.and(genreIndex.get(genre));
+        }
+        if (releaseYear != null) {
+            result.and(yearIndex.getOrDefault(releaseYear, new BitSet()));
+        }
+        if (ratingFrom != null) {
+            result.and(ratedAtLeast(ratingFrom));
+        }
+        if (query != null && !query.isEmpty()) {
+            // the text match is the most expensive filter, so it only runs on the remaining candidates
+            result = containing(query.toLowerCase(), result);
+        }
+        return result;
+    }
+
+    private BitSet containing(String query, BitSet candidates) {
+        if (tailIndex == null) {
+            return textIndex.containing(query, candidates);
+        }
+        BitSet result = textIndex.containing(query, candidates.get(0, tailStart));
+        addTail(result, tailIndex.containing(query, candidates.get(tailStart, size())));
+        return result;
+    }
+
+    // tail doc ids start at 0 in the tail's own text index
+    private void addTail(BitSet result, BitSet tailDocs) {
+        for (int doc = tailDocs.nextSetBit(0); doc >= 0; doc = tailDocs.nextSetBit(doc + 1)) {
+            result.set(tailStart + doc);
+        }
+    }
+
+    // token based search: every word of the query has to be the beginning of a word in the title or description
+    public BitSet matchTokens(String query) {
+        BitSet result = textIndex.withAllTokens(query);
+        if (tailIndex != null) {
+            addTail(result, tailIndex.withAllTokens(query));
+        }
+        result.and(allDocs);
+        return result;
+    }
+
+    // live doc ids ordered by rating, docs with the same rating in doc id order. must not be modified
+    int[] docsByRating() {
+        return docsByRating;
+    }
+
+    public List<Movie> toMovies(BitSet docs) {
+        List<Movie> result = new ArrayList<>(docs.cardinality());
+        for (int doc = docs.nextSetBit(0); doc >= 0; doc = docs.nextSetBit(doc + 1)) {
+            result.add(get(doc));
+        }
+        return result;
+    }
+
+    private BitSet ratedAtLeast(double ratingFrom) {
+        // binary search for the first rating >= ratingFrom, everything after it matches
+        int low = 0;
+        int high = ratings.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ratings[mid] < ratingFrom) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        BitSet result = new BitSet(size());
+        for (int i = low; i < docsByRating.length; i++) {
+            result.set(docsByRating[i]);
+        }
+        return result;
+    }
+
+    public static Integer parseYear(String releaseYear) {
+        if (releaseYear == null || releaseYear.isBlank()) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(releaseYear.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid release year: " + releaseYear);
+        }
+    }
+
+    public static Double parseRating(String ratingFrom) {
+        if (ratingFrom == null || ratingFrom.isBlank()) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(ratingFrom.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid rating: " + ratingFrom);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.io.IOException;
+import java.util.List;
+
+// a result that is loaded page by page instead of all at once
+public interface MoviePageSource {
+    // number of movies across all pages
+    int size();
+
+    // movies of the zero based page, the last page may be shorter than pageSize
+    List<Movie> loadPage(int page, int pageSize) throws IOException;
+
+    // all movies if they are already in memory, null if the pages have to be requested
+    default List<Movie> loaded() {
+        return null;
+    }
+}
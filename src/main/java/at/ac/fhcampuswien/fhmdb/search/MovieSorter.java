@@ -0,0 +1,421 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+// sorts filter results of a MovieIndex by one or more keys. for every key the whole catalogue is sorted once
+// (titles by a precomputed collation key) and the order is kept as a permutation of doc ids plus the rank of every doc.
+// a large result is then put in order by walking the permutation (backwards for descending) and keeping the docs
+// of the result, which is linear instead of a new sort. small results are sorted by comparing ranks
+public class MovieSorter {
+    public enum Key {
+        TITLE, RELEASE_YEAR, RATING, LENGTH
+    }
+
+    public record SortOrder(Key key, boolean descending) {
+        public static SortOrder ascending(Key key) {
+            return new SortOrder(key, false);
+        }
+
+        public static SortOrder descending(Key key) {
+            return new SortOrder(key, true);
+        }
+
+        public SortOrder reversed() {
+            return new SortOrder(key, !descending);
+        }
+    }
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    // titles are compared by their collation key, titles with the same key by their natural order
+    private static final Comparator<String> TITLE_ORDER = Comparator.comparing(MovieSorter::collationKey)
+            .thenComparing(Comparator.naturalOrder());
+    private static final Map<Key, Comparator<Movie>> COMPARATORS = new EnumMap<>(Map.of(
+            Key.TITLE, Comparator.comparing(Movie::getTitle, Comparator.nullsFirst(TITLE_ORDER)),
+            Key.RELEASE_YEAR, Comparator.comparingInt(Movie::getReleaseYear),
+            Key.RATING, Comparator.comparingDouble(Movie::getRating),
+            Key.LENGTH, Comparator.comparingInt(Movie::getLengthInMinutes)));
+
+    private final MovieIndex movieIndex;
+    // computed on first use of a key
+    private final int[][] permutations = new int[Key.values().length][];
+    private final int[][] ranks = new int[Key.values().length][];
+
+    // orders of the docs below previousSizes[key] that an earlier sorter had computed for an index movieIndex was
+    // derived from. the docs appended since are merged into them on first use, then the slot is cleared
+    private final int[][] previousPermutations = new int[Key.values().length][];
+    private final int[] previousSizes = new int[Key.values().length];
+    // set once the orders of all keys are computed (computeOrders), they are then read without the lock
+    private volatile boolean complete;
+
+    public MovieSorter(MovieIndex movieIndex) {
+        this.movieIndex = movieIndex;
+    }
+
+    // a sorter for an index that withChanges derived from the index of previous. the orders previous has (or
+    // could have taken over itself) are extended by the appended docs instead of sorting the whole catalogue
+    // again. after a compaction the orders are computed from scratch
+    public MovieSorter(MovieIndex movieIndex, MovieSorter previous) {
+        this.movieIndex = movieIndex;
+        if (!movieIndex.extendsIndex(previous.movieIndex)) {
+            return;
+        }
+        synchronized (previous) {
+            for (Key key : Key.values()) {
+                int slot = key.ordinal();
+                if (key == Key.RATING) {
+                    // the index keeps its rating order up to date itself
+                    continue;
+                }
+                if (previous.permutations[slot] != null) {
+                    previousPermutations[slot] = previous.permutations[slot];
+                    previousSizes[slot] = previous.movieIndex.size();
+                } else {
+                    previousPermutations[slot] = previous.previousPermutations[slot];
+                    previousSizes[slot] = previous.previousSizes[slot];
+                }
+            }
+        }
+    }
+
+    // comparator with the same order as the sorter, for lists that don't come from an index
+    public static Comparator<Movie> comparator(List<SortOrder> orders) {
+        Comparator<Movie> comparator = null;
+        for (SortOrder order : orders) {
+            Comparator<Movie> next = COMPARATORS.get(order.key());
+            if (order.descending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator == null ? (a, b) -> 0 : comparator;
+    }
+
+    // case and accent insensitive key of a title, e.g. "Amélie" and "amelie" have the same key. much cheaper to
+    // compute than java.text.CollationKey and good enough for titles
+    static String collationKey(String title) {
+        if (title == null) {
+            return "";
+        }
+        for (int i = 0; i < title.length(); i++) {
+            if (title.charAt(i) >= 0x80) {
+                return MARKS.matcher(Normalizer.normalize(title, Normalizer.Form.NFD)).replaceAll("")
+                        .toLowerCase(Locale.ROOT);
+            }
+        }
+        return title.toLowerCase(Locale.ROOT);
+    }
+
+    // a sorted copy of a list that doesn't come from an index, the collation key of every title is computed once
+    // up front
+    public static List<Movie> sorted(List<Movie> movies, List<SortOrder> orders) {
+        if (orders.stream().noneMatch(order -> order.key() == Key.TITLE)) {
+            List<Movie> sorted = new ArrayList<>(movies);
+            sorted.sort(comparator(orders));
+            return sorted;
+        }
+        Keyed[] keyed = new Keyed[movies.size()];
+        for (int i = 0; i < keyed.length; i++) {
+            Movie movie = movies.get(i);
+            keyed[i] = new Keyed(collationKey(movie.getTitle()), movie);
+        }
+        Comparator<Keyed> comparator = null;
+        for (SortOrder order : orders) {
+            Comparator<Keyed> next = order.key() != Key.TITLE
+                    ? Comparator.comparing(Keyed::movie, COMPARATORS.get(order.key()))
+                    : Keyed::compareTitles;
+            if (order.descending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        Arrays.sort(keyed, comparator);
+        List<Movie> sorted = new ArrayList<>(keyed.length);
+        for (Keyed movie : keyed) {
+            sorted.add(movie.movie());
+        }
+        return sorted;
+    }
+
+    private record Keyed(String titleKey, Movie movie) {
+        int compareTitles(Keyed other) {
+            int compared = titleKey.compareTo(other.titleKey);
+            return compared != 0 ? compared : nullToEmpty(movie.getTitle()).compareTo(nullToEmpty(other.movie.getTitle()));
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    public List<Movie> sortedMovies(BitSet docs, List<SortOrder> orders) {
+        int[] sorted = sort(docs, orders);
+        List<Movie> movies = new ArrayList<>(sorted.length);
+        for (int doc : sorted) {
+            movies.add(movieIndex.get(doc));
+        }
+        return movies;
+    }
+
+    // doc ids of the result in the given order, docs that are equal for all keys stay in doc id order
+    public int[] sort(BitSet docs, List<SortOrder> orders) {
+        int count = docs.cardinality();
+        int[] result = new int[count];
+        if (orders.isEmpty()) {
+            for (int i = 0, doc = docs.nextSetBit(0); doc >= 0; i++, doc = docs.nextSetBit(doc + 1)) {
+                result[i] = doc;
+            }
+            return result;
+        }
+        if (isSmall(count)) {
+            return sortByRanks(docs, orders, count);
+        }
+
+        SortOrder primary = orders.get(0);
+        int[] permutation = permutation(primary.key());
+        int i = 0;
+        if (primary.descending()) {
+            for (int position = permutation.length - 1; position >= 0; position--) {
+                if (docs.get(permutation[position])) {
+                    result[i++] = permutation[position];
+                }
+            }
+        } else {
+            for (int doc : permutation) {
+                if (docs.get(doc)) {
+                    result[i++] = doc;
+                }
+            }
+        }
+        sortTies(result, orders);
+        return result;
+    }
+
+    // sorting the result itself is cheaper than walking the whole permutation
+    private boolean isSmall(int count) {
+        return (long) count * (32 - Integer.numberOfLeadingZeros(count)) < movieIndex.size();
+    }
+
+    private int[] sortByRanks(BitSet docs, List<SortOrder> orders, int count) {
+        Integer[] sorted = new Integer[count];
+        for (int i = 0, doc = docs.nextSetBit(0); doc >= 0; i++, doc = docs.nextSetBit(doc + 1)) {
+            sorted[i] = doc;
+        }
+        Arrays.sort(sorted, rankOrder(orders, 0));
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = sorted[i];
+        }
+        return result;
+    }
+
+    // after walking the permutation of the first key, docs with the same rank are next to each other.
+    // these groups are put in order by the remaining keys, or back into doc id order if there are none
+    private void sortTies(int[] result, List<SortOrder> orders) {
+        SortOrder primary = orders.get(0);
+        int[] primaryRanks = ranks(primary.key());
+        Comparator<Integer> remaining = orders.size() > 1 ? rankOrder(orders, 1) : null;
+        int start = 0;
+        while (start < result.length) {
+            int end = start + 1;
+            while (end < result.length && primaryRanks[result[end]] == primaryRanks[result[start]]) {
+                end++;
+            }
+            if (end - start > 1) {
+                if (remaining != null) {
+                    Integer[] group = new Integer[end - start];
+                    for (int i = start; i < end; i++) {
+                        group[i - start] = result[i];
+                    }
+                    Arrays.sort(group, remaining);
+                    for (int i = start; i < end; i++) {
+                        result[i] = group[i - start];
+                    }
+                } else if (primary.descending()) {
+                    reverse(result, start, end);
+                }
+            }
+            start = end;
+        }
+    }
+
+    private Comparator<Integer> rankOrder(List<SortOrder> orders, int from) {
+        int[][] orderRanks = new int[orders.size()][];
+        for (int i = from; i < orders.size(); i++) {
+            orderRanks[i] = ranks(orders.get(i).key());
+        }
+        return (a, b) -> {
+            for (int i = from; i < orders.size(); i++) {
+                int compared = Integer.compare(orderRanks[i][a], orderRanks[i][b]);
+                if (compared != 0) {
+                    return orders.get(i).descending() ? -compared : compared;
+                }
+            }
+            return Integer.compare(a, b);
+        };
+    }
+
+    private static void reverse(int[] values, int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            int value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+    }
+
+    // computes the orders of all keys now instead of on first use, e.g. before a snapshot is published, so
+    // sorting on the FX thread never has to sort the catalogue and readers don't take the lock
+    public synchronized MovieSorter computeOrders() {
+        for (Key key : Key.values()) {
+            if (permutations[key.ordinal()] == null) {
+                computeOrder(key);
+            }
+        }
+        complete = true;
+        return this;
+    }
+
+    private int[] permutation(Key key) {
+        if (complete) {
+            return permutations[key.ordinal()];
+        }
+        synchronized (this) {
+            if (permutations[key.ordinal()] == null) {
+                computeOrder(key);
+            }
+            return permutations[key.ordinal()];
+        }
+    }
+
+    // rank of every doc for the key, docs with equal values have the same rank
+    private int[] ranks(Key key) {
+        if (complete) {
+            return ranks[key.ordinal()];
+        }
+        synchronized (this) {
+            if (ranks[key.ordinal()] == null) {
+                computeOrder(key);
+            }
+            return ranks[key.ordinal()];
+        }
+    }
+
+    private void computeOrder(Key key) {
+        if (previousPermutations[key.ordinal()] != null) {
+            extendOrder(key, previousPermutations[key.ordinal()], previousSizes[key.ordinal()]);
+            previousPermutations[key.ordinal()] = null;
+            return;
+        }
+        int size = movieIndex.size();
+        int[] permutation;
+        int[] rank = new int[size];
+        switch (key) {
+            case TITLE -> {
+                String[] keys = new String[size];
+                String[] titles = new String[size];
+                Integer[] docs = new Integer[size];
+                for (int doc = 0; doc < size; doc++) {
+                    titles[doc] = nullToEmpty(movieIndex.title(doc));
+                    keys[doc] = collationKey(titles[doc]);
+                    docs[doc] = doc;
+                }
+                Arrays.sort(docs, (a, b) -> {
+                    int compared = keys[a].compareTo(keys[b]);
+                    return compared != 0 ? compared : titles[a].compareTo(titles[b]);
+                });
+                permutation = new int[size];
+                for (int i = 0; i < size; i++) {
+                    permutation[i] = docs[i];
+                }
+                assignRanks(permutation, rank, (a, b) -> titles[a].equals(titles[b]));
+            }
+            case RATING -> {
+                permutation = movieIndex.docsByRating();
+                assignRanks(permutation, rank, (a, b) -> movieIndex.rating(a) == movieIndex.rating(b));
+            }
+            default -> {
+                // value and doc id packed into one long, so a primitive sort orders by value and then doc id
+                long[] packed = new long[size];
+                int[] values = new int[size];
+                for (int doc = 0; doc < size; doc++) {
+                    values[doc] = key == Key.RELEASE_YEAR ? movieIndex.releaseYear(doc) : movieIndex.lengthInMinutes(doc);
+                    packed[doc] = ((long) values[doc] << 32) | doc;
+                }
+                Arrays.sort(packed);
+                permutation = new int[size];
+                for (int i = 0; i < size; i++) {
+                    permutation[i] = (int) packed[i];
+                }
+                assignRanks(permutation, rank, (a, b) -> values[a] == values[b]);
+            }
+        }
+        permutations[key.ordinal()] = permutation;
+        ranks[key.ordinal()] = rank;
+    }
+
+    // merges the docs appended after the first from docs into the earlier order of those docs. the appended docs
+    // are sorted on their own and each one is placed by a binary search, so the earlier docs are only copied
+    private void extendOrder(Key key, int[] earlier, int from) {
+        int size = movieIndex.size();
+        Integer[] appended = new Integer[size - from];
+        for (int i = 0; i < appended.length; i++) {
+            appended[i] = from + i;
+        }
+        // stable, so equal values stay in doc id order
+        Arrays.sort(appended, (a, b) -> compareValues(key, a, b));
+        int[] permutation = new int[size];
+        int position = 0;
+        int next = 0;
+        for (int doc : appended) {
+            // earlier docs with an equal value have lower doc ids and go first
+            int low = next;
+            int high = earlier.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (compareValues(key, earlier[middle], doc) <= 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            System.arraycopy(earlier, next, permutation, position, low - next);
+            position += low - next;
+            next = low;
+            permutation[position++] = doc;
+        }
+        System.arraycopy(earlier, next, permutation, position, earlier.length - next);
+        int[] rank = new int[size];
+        // equal titles without computing their collation keys again
+        assignRanks(permutation, rank, key == Key.TITLE
+                ? (a, b) -> nullToEmpty(movieIndex.title(a)).equals(nullToEmpty(movieIndex.title(b)))
+                : (a, b) -> compareValues(key, a, b) == 0);
+        permutations[key.ordinal()] = permutation;
+        ranks[key.ordinal()] = rank;
+    }
+
+    private int compareValues(Key key, int a, int b) {
+        return switch (key) {
+            case TITLE -> TITLE_ORDER.compare(nullToEmpty(movieIndex.title(a)), nullToEmpty(movieIndex.title(b)));
+            case RELEASE_YEAR -> Integer.compare(movieIndex.releaseYear(a), movieIndex.releaseYear(b));
+            case LENGTH -> Integer.compare(movieIndex.lengthInMinutes(a), movieIndex.lengthInMinutes(b));
+            case RATING -> Double.compare(movieIndex.rating(a), movieIndex.rating(b));
+        };
+    }
+
+    private interface SameValue {
+        boolean test(int a, int b);
+    }
+
+    private static void assignRanks(int[] permutation, int[] rank, SameValue sameValue) {
+        int current = 0;
+        for (int i = 0; i < permutation.length; i++) {
+            if (i > 0 && !sameValue.test(permutation[i - 1], permutation[i])) {
+                current++;
+            }
+            rank[permutation[i]] = current;
+        }
+    }
+}
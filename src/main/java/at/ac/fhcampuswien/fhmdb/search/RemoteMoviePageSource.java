@@ -0,0 +1,70 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import at.ac.fhcampuswien.fhmdb.api.CatalogueCache;
+import at.ac.fhcampuswien.fhmdb.api.MovieAPI;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.io.IOException;
+import java.util.List;
+
+// pages of a filtered result that are requested from the API one at a time
+public class RemoteMoviePageSource implements MoviePageSource {
+    private final String query;
+    private final Genre genre;
+    private final String releaseYear;
+    private final String ratingFrom;
+    private final int size;
+    // the page that was fetched to learn the size, handed out once and then dropped
+    private volatile MovieAPI.MoviePage firstPage;
+
+    private RemoteMoviePageSource(String query, Genre genre, String releaseYear, String ratingFrom, int size,
+                                  MovieAPI.MoviePage firstPage) {
+        this.query = query;
+        this.genre = genre;
+        this.releaseYear = releaseYear;
+        this.ratingFrom = ratingFrom;
+        this.size = size;
+        this.firstPage = firstPage;
+    }
+
+    // pages of a result whose size is already known, e.g. from the first response of an asynchronous search
+    public static MoviePageSource ofSize(String query, Genre genre, String releaseYear, String ratingFrom, int size) {
+        return new RemoteMoviePageSource(query, genre, releaseYear, ratingFrom, size, null);
+    }
+
+    // blocking, fetches the first page to learn how many movies match. if that page already holds the whole
+    // result (a small result or a server that doesn't page) no further requests are made. if the API can't be
+    // reached the result is taken from the cached catalogue instead (when there is one)
+    public static MoviePageSource open(String query, Genre genre, String releaseYear, String ratingFrom,
+                                       int pageSize, CatalogueCache fallback) throws IOException {
+        try {
+            MovieAPI.MoviePage first = MovieAPI.fetchPage(query, genre, releaseYear, ratingFrom, 0, pageSize);
+            if (first.movies().size() >= first.totalCount()) {
+                return new LocalMoviePageSource(first.movies());
+            }
+            return new RemoteMoviePageSource(query, genre, releaseYear, ratingFrom, first.totalCount(), first);
+        } catch (IOException e) {
+            CatalogueCache.Snapshot snapshot = fallback == null ? null : fallback.load();
+            if (snapshot == null) {
+                throw e;
+            }
+            return new LocalMoviePageSource(new MovieIndex(snapshot.movies()).query(query, genre, releaseYear, ratingFrom));
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public List<Movie> loadPage(int page, int pageSize) throws IOException {
+        MovieAPI.MoviePage first = firstPage;
+        if (first != null && page == 0 && pageSize == first.size()) {
+            firstPage = null;
+            return first.movies();
+        }
+        return MovieAPI.fetchPage(query, genre, releaseYear, ratingFrom, page, pageSize).movies();
+    }
+}
@@ -0,0 +1,87 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// debounces searches that are triggered while typing: a search only runs once no new one was submitted for the
+// debounce time, so a burst of keystrokes turns into a single search for the last text. while the user keeps
+// typing, the pending search still runs at the latest maxWait after the first keystroke of the burst
+public class SearchScheduler {
+    private final ScheduledExecutorService timer;
+    private final Executor executor;
+    private final long maxWaitNanos;
+    private final LongSupplier nanoTime;
+
+    private Runnable latest;
+    private ScheduledFuture<?> pending;
+    private long burstStartNanos;
+    // a scheduled run only executes if no search was submitted (or cancelled) after it
+    private long generation;
+    private long submitted;
+    private long executed;
+
+    // the timer only waits, the searches run on the executor (e.g. Platform::runLater)
+    public SearchScheduler(ScheduledExecutorService timer, Executor executor, Duration maxWait) {
+        this(timer, executor, maxWait, System::nanoTime);
+    }
+
+    // the clock has to be the one of the timer, tests pass a timer that only runs when they advance its time
+    SearchScheduler(ScheduledExecutorService timer, Executor executor, Duration maxWait, LongSupplier nanoTime) {
+        this.timer = timer;
+        this.executor = executor;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    // replaces the pending search (if any)
+    public synchronized void submit(Runnable search, Duration debounce) {
+        long now = nanoTime.getAsLong();
+        submitted++;
+        if (latest == null) {
+            burstStartNanos = now;
+        }
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        latest = search;
+        long runGeneration = ++generation;
+        long delay = Math.max(0, Math.min(debounce.toNanos(), burstStartNanos + maxWaitNanos - now));
+        pending = timer.schedule(() -> run(runGeneration), delay, TimeUnit.NANOSECONDS);
+    }
+
+    // drops the pending search, e.g. because the search button ran it right away
+    public synchronized void cancel() {
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        generation++;
+        latest = null;
+        pending = null;
+    }
+
+    private void run(long runGeneration) {
+        Runnable search;
+        synchronized (this) {
+            if (runGeneration != generation || latest == null) {
+                return;
+            }
+            search = latest;
+            latest = null;
+            pending = null;
+            executed++;
+        }
+        executor.execute(search);
+    }
+
+    public synchronized long getSubmitted() {
+        return submitted;
+    }
+
+    public synchronized long getExecuted() {
+        return executed;
+    }
+}
@@ -0,0 +1,194 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import java.util.*;
+
+// inverted index over the (lower case) text of every movie.
+// terms live in a sorted dictionary for exact and prefix lookups, and the trigrams of the full text are indexed
+// as well so that substring queries only have to verify a few candidates instead of scanning every movie.
+// posting lists are sorted int arrays of doc ids
+public class TextIndex {
+    private static final int GRAM_LENGTH = 3;
+    // below this number of candidates a plain contains() check is cheaper than intersecting posting lists
+    private static final int SCAN_THRESHOLD = 64;
+
+    private final String[] texts;
+    private final String[] terms;
+    private final int[][] termPostings;
+    private final long[] grams;
+    private final int[][] gramPostings;
+
+    public TextIndex(String[] texts) {
+        this.texts = texts;
+        Map<String, IntList> termMap = new HashMap<>();
+        Map<Long, IntList> gramMap = new HashMap<>();
+        for (int doc = 0; doc < texts.length; doc++) {
+            String text = texts[doc];
+            for (String term : tokenize(text)) {
+                addPosting(termMap.computeIfAbsent(term, t -> new IntList()), doc);
+            }
+            for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+                addPosting(gramMap.computeIfAbsent(gram(text, i), g -> new IntList()), doc);
+            }
+        }
+
+        terms = termMap.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        termPostings = new int[terms.length][];
+        for (int i = 0; i < terms.length; i++) {
+            termPostings[i] = termMap.get(terms[i]).toArray();
+        }
+
+        grams = new long[gramMap.size()];
+        int i = 0;
+        for (Long gram : gramMap.keySet()) {
+            grams[i++] = gram;
+        }
+        Arrays.sort(grams);
+        gramPostings = new int[grams.length][];
+        for (i = 0; i < grams.length; i++) {
+            gramPostings[i] = gramMap.get(grams[i]).toArray();
+        }
+    }
+
+    private static void addPosting(IntList postings, int doc) {
+        // docs are added in ascending order, so a doc only has to be compared with the last entry
+        if (postings.last() != doc) {
+            postings.add(doc);
+        }
+    }
+
+    private static long gram(String text, int from) {
+        return (long) text.charAt(from) << 32 | (long) text.charAt(from + 1) << 16 | text.charAt(from + 2);
+    }
+
+    // splits a text into lower case terms made of letters and digits
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean partOfTerm = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (partOfTerm && start < 0) {
+                start = i;
+            } else if (!partOfTerm && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    public int size() {
+        return texts.length;
+    }
+
+    public int termCount() {
+        return terms.length;
+    }
+
+    // docs whose text contains the given lower case string, same semantics as String.contains
+    public BitSet containing(String query) {
+        BitSet all = new BitSet(texts.length);
+        all.set(0, texts.length);
+        return containing(query, all);
+    }
+
+    // like containing(query), restricted to the given candidate docs
+    public BitSet containing(String query, BitSet candidates) {
+        BitSet result = new BitSet(texts.length);
+        if (query.length() < GRAM_LENGTH || candidates.cardinality() <= SCAN_THRESHOLD) {
+            for (int doc = candidates.nextSetBit(0); doc >= 0; doc = candidates.nextSetBit(doc + 1)) {
+                if (texts[doc].contains(query)) {
+                    result.set(doc);
+                }
+            }
+            return result;
+        }
+
+        int[][] postings = new int[query.length() - GRAM_LENGTH + 1][];
+        for (int i = 0; i < postings.length; i++) {
+            int slot = Arrays.binarySearch(grams, gram(query, i));
+            if (slot < 0) {
+                return result;
+            }
+            postings[i] = gramPostings[slot];
+        }
+        // intersect starting with the shortest list, so the intermediate results stay small
+        Arrays.sort(postings, Comparator.comparingInt(p -> p.length));
+        int[] docs = postings[0];
+        for (int i = 1; i < postings.length && docs.length > 0; i++) {
+            docs = intersect(docs, postings[i]);
+        }
+        // all trigrams occur in the text, but not necessarily next to each other
+        for (int doc : docs) {
+            if (candidates.get(doc) && texts[doc].contains(query)) {
+                result.set(doc);
+            }
+        }
+        return result;
+    }
+
+    // docs containing exactly the given term
+    public BitSet withTerm(String term) {
+        BitSet result = new BitSet(texts.length);
+        int slot = Arrays.binarySearch(terms, term.toLowerCase());
+        if (slot >= 0) {
+            for (int doc : termPostings[slot]) {
+                result.set(doc);
+            }
+        }
+        return result;
+    }
+
+    // docs containing at least one term that starts with the given prefix
+    public BitSet withPrefix(String prefix) {
+        String lowerCasePrefix = prefix.toLowerCase();
+        BitSet result = new BitSet(texts.length);
+        int slot = Arrays.binarySearch(terms, lowerCasePrefix);
+        for (int i = slot < 0 ? -slot - 1 : slot; i < terms.length && terms[i].startsWith(lowerCasePrefix); i++) {
+            for (int doc : termPostings[i]) {
+                result.set(doc);
+            }
+        }
+        return result;
+    }
+
+    // docs that contain every token of the query, each token is matched as prefix of a term.
+    // a query without tokens matches nothing
+    public BitSet withAllTokens(String query) {
+        List<String> tokens = tokenize(query);
+        BitSet result = new BitSet(texts.length);
+        if (tokens.isEmpty()) {
+            return result;
+        }
+        result.set(0, texts.length);
+        for (String token : tokens) {
+            result.and(withPrefix(token));
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+}
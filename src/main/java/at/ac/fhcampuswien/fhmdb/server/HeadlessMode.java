@@ -0,0 +1,112 @@
+package at.ac.fhcampuswien.fhmdb.server;
+
+import at.ac.fhcampuswien.fhmdb.api.CatalogueCache;
+import at.ac.fhcampuswien.fhmdb.api.MovieAPI;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.sync.CatalogueDelta;
+import at.ac.fhcampuswien.fhmdb.sync.CatalogueSnapshot;
+import at.ac.fhcampuswien.fhmdb.sync.CatalogueStore;
+import at.ac.fhcampuswien.fhmdb.sync.CatalogueSync;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// the application without a window (FhmdbApplication --headless): the catalogue is loaded like in HomeController
+// (cached copy first, otherwise the API) and served by a QueryService. a background refresh asks the API for
+// changes with a conditional request, merges them with a CatalogueSync and publishes the next snapshot, requests
+// that are running keep the snapshot they started with
+public class HeadlessMode {
+    private static final System.Logger LOGGER = System.getLogger(HeadlessMode.class.getName());
+
+    private final CatalogueStore catalogue = new CatalogueStore();
+    private final CatalogueCache catalogueCache;
+    private final QueryService service;
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalogue-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // only used by the refresh thread
+    private String etag;
+    private String lastModified;
+    private CatalogueSync sync;
+
+    public HeadlessMode(CatalogueCache catalogueCache) throws IOException {
+        this.catalogueCache = catalogueCache;
+        this.service = QueryService.createDefault(catalogue);
+    }
+
+    public CatalogueStore getCatalogue() {
+        return catalogue;
+    }
+
+    public QueryService getService() {
+        return service;
+    }
+
+    // loads the catalogue, starts the service and refreshes every -Dfhmdb.service.refreshMinutes (default 10)
+    public void start() throws IOException {
+        CatalogueCache.Snapshot cached = catalogueCache.load();
+        if (cached != null) {
+            etag = cached.etag();
+            lastModified = cached.lastModified();
+            catalogue.replace(cached.movies());
+        } else {
+            MovieAPI.CatalogueResponse response = MovieAPI.getCatalogue(null, null);
+            catalogueCache.save(response.movies(), response.etag(), response.lastModified());
+            etag = response.etag();
+            lastModified = response.lastModified();
+            catalogue.replace(response.movies());
+        }
+        service.start();
+        long refreshMinutes = Long.getLong("fhmdb.service.refreshMinutes", 10);
+        long firstRefresh = cached != null && !catalogueCache.isFresh(cached) ? 0 : refreshMinutes;
+        refresher.scheduleWithFixedDelay(this::refresh, firstRefresh, refreshMinutes, TimeUnit.MINUTES);
+    }
+
+    public void stop() {
+        refresher.shutdownNow();
+        service.stop();
+    }
+
+    private void refresh() {
+        try {
+            MovieAPI.CatalogueResponse response = MovieAPI.getCatalogue(etag, lastModified);
+            if (response.notModified()) {
+                catalogueCache.touch();
+                return;
+            }
+            catalogueCache.save(response.movies(), response.etag(), response.lastModified());
+            etag = response.etag();
+            lastModified = response.lastModified();
+            publish(response.movies());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Could not refresh movies: {0}", e.getMessage());
+        }
+    }
+
+    // only the movies that changed are indexed if the catalogues can be matched by id
+    private void publish(List<Movie> movies) {
+        CatalogueSnapshot base = catalogue.current();
+        CatalogueSnapshot next;
+        if (base.getIndex() != null && CatalogueSync.canSync(movies) && CatalogueSync.canSync(base.getMovies())) {
+            if (sync == null || sync.getIndex() != base.getIndex()) {
+                sync = new CatalogueSync(base.getIndex());
+            }
+            CatalogueDelta delta = sync.diff(movies);
+            if (delta.isEmpty()) {
+                return;
+            }
+            next = base.next(sync.apply(delta));
+        } else {
+            next = base.next(movies);
+        }
+        // the refresh thread is the only writer, so the compare-and-set can only fail if that changes
+        if (!catalogue.publish(base, next)) {
+            LOGGER.log(System.Logger.Level.WARNING, "Catalogue changed during the refresh, skipped it");
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package at.ac.fhcampuswien.fhmdb.server;
+
+import at.ac.fhcampuswien.fhmdb.api.MovieJson;
+import at.ac.fhcampuswien.fhmdb.metrics.Counter;
+import at.ac.fhcampuswien.fhmdb.metrics.Metrics;
+import at.ac.fhcampuswien.fhmdb.metrics.Timer;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.search.MovieIndex;
+import at.ac.fhcampuswien.fhmdb.sync.CatalogueSnapshot;
+import at.ac.fhcampuswien.fhmdb.sync.CatalogueStore;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// serves the /movies API (query, genre, releaseYear, ratingFrom, page and size like MovieServer) from the current
+// snapshot of a CatalogueStore, so several local tools can share one in-memory catalogue instead of each asking
+// the remote API. every request works on the snapshot that is current when it starts, a refresh never blocks it.
+// requests run on a fixed number of threads, and a bounded number of them may wait for one. a request beyond
+// that is answered right away with 503 and Retry-After (load shedding) instead of piling up and timing out.
+// connections are kept alive between requests by the JDK server (see -Dsun.net.httpserver.idleInterval)
+public class QueryService {
+    private static final System.Logger LOGGER = System.getLogger(QueryService.class.getName());
+    private static final Timer REQUEST = Metrics.timer("service.request");
+    private static final Counter SHED = Metrics.counter("service.shed");
+    // threads that read the requests and admit or shed them, and how many requests may wait for those
+    private static final int ACCEPTORS = 2;
+    private static final int ACCEPT_QUEUE = 256;
+
+    private final CatalogueStore catalogue;
+    private final HttpServer server;
+    private final ThreadPoolExecutor acceptors;
+    private final ThreadPoolExecutor workers;
+    // one permit per thread and queue slot. a request that gets none is shed, so the queue of the workers never
+    // holds more than queueSize requests
+    private final Semaphore admission;
+    private final LongAdder served = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+
+    // port 0 picks a free port. queueSize requests wait for one of the threads, 0 means none
+    public QueryService(CatalogueStore catalogue, int port, int threads, int queueSize) throws IOException {
+        if (threads <= 0 || queueSize < 0) {
+            throw new IllegalArgumentException("threads must be positive and queueSize must not be negative");
+        }
+        this.catalogue = catalogue;
+        admission = new Semaphore(threads + queueSize);
+        workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                threadFactory("query-service"));
+        // if even the acceptors can't keep up, the dispatcher of the server reads the request itself and stops
+        // accepting connections meanwhile, so the excess waits in the listen backlog of the socket
+        acceptors = new ThreadPoolExecutor(ACCEPTORS, ACCEPTORS, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(ACCEPT_QUEUE), threadFactory("query-service-accept"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.setExecutor(acceptors);
+        server.createContext("/movies", this::admit);
+    }
+
+    // port, threads and queue can be changed with -Dfhmdb.service.port, -Dfhmdb.service.threads
+    // and -Dfhmdb.service.queue
+    public static QueryService createDefault(CatalogueStore catalogue) throws IOException {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return new QueryService(catalogue, Integer.getInteger("fhmdb.service.port", 8090),
+                Integer.getInteger("fhmdb.service.threads", Math.max(4, processors * 2)),
+                Integer.getInteger("fhmdb.service.queue", 64));
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        acceptors.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // base url to use for MovieAPI.setBaseUrl
+    public String getUrl() {
+        return "http://localhost:" + getPort() + "/movies";
+    }
+
+    public long getServed() {
+        return served.sum();
+    }
+
+    public long getShed() {
+        return shed.sum();
+    }
+
+    // runs on an acceptor once the request line and headers are read. an admitted request is handed to the
+    // workers and answered there, any other one is shed without looking at its parameters
+    private void admit(HttpExchange exchange) throws IOException {
+        if (!admission.tryAcquire()) {
+            shed.increment();
+            SHED.increment();
+            try (exchange) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendStatus(exchange, 503);
+            }
+            return;
+        }
+        try {
+            workers.execute(() -> handle(exchange));
+        } catch (RejectedExecutionException e) {
+            // the service is stopping
+            admission.release();
+            exchange.close();
+        }
+    }
+
+    private void handle(HttpExchange exchange) {
+        Timer.Sample start = REQUEST.start();
+        try (exchange) {
+            serve(exchange);
+            served.increment();
+        } catch (IOException e) {
+            LOGGER.log(System.Logger.Level.DEBUG, "Could not answer a request: {0}", e.getMessage());
+        } finally {
+            REQUEST.stop(start);
+            admission.release();
+        }
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            sendStatus(exchange, 405);
+            return;
+        }
+        if (!"/movies".equals(exchange.getRequestURI().getPath())) {
+            sendStatus(exchange, 404);
+            return;
+        }
+        // one snapshot for the whole request, even if a refresh publishes the next one meanwhile
+        CatalogueSnapshot snapshot = catalogue.current();
+        MovieIndex index = snapshot.getIndex();
+        String etag = "\"" + snapshot.getVersion() + "\"";
+
+        Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+        String page = parameters.remove("page");
+        String size = parameters.remove("size");
+        // like MovieServer, only the unfiltered catalogue is versioned. a client that has it is answered before
+        // anything is matched
+        boolean unfiltered = parameters.values().stream().allMatch(String::isEmpty);
+        if (unfiltered && etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        BitSet docs;
+        try {
+            String genre = parameters.get("genre");
+            docs = index == null ? new BitSet() : index.match(parameters.get("query"),
+                    genre == null || genre.isEmpty() ? null : Genre.valueOf(genre),
+                    MovieIndex.parseYear(parameters.get("releaseYear")),
+                    MovieIndex.parseRating(parameters.get("ratingFrom")));
+        } catch (IllegalArgumentException e) {
+            sendStatus(exchange, 400);
+            return;
+        }
+        int count = docs.cardinality();
+        int from = 0;
+        int to = count;
+        if (page != null && size != null) {
+            try {
+                int pageNumber = Integer.parseInt(page);
+                int pageSize = Integer.parseInt(size);
+                if (pageNumber < 0 || pageSize <= 0) {
+                    throw new NumberFormatException();
+                }
+                from = (int) Math.min((long) pageNumber * pageSize, count);
+                to = (int) Math.min((long) from + pageSize, count);
+            } catch (NumberFormatException e) {
+                sendStatus(exchange, 400);
+                return;
+            }
+            exchange.getResponseHeaders().set("X-Total-Count", Integer.toString(count));
+        }
+        if (unfiltered) {
+            exchange.getResponseHeaders().set("ETag", etag);
+        }
+        sendMovies(exchange, index, docs, from, to);
+    }
+
+    // the movies are written one by one from the matching docs to the (chunked) response body,
+    // the result is never collected into a list or a string
+    private static void sendMovies(HttpExchange exchange, MovieIndex index, BitSet docs, int from, int to)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)))) {
+            writer.beginArray();
+            int position = 0;
+            for (int doc = docs.nextSetBit(0); doc >= 0 && position < to; doc = docs.nextSetBit(doc + 1), position++) {
+                if (position >= from) {
+                    MovieJson.GSON.toJson(index.get(doc), Movie.class, writer);
+                }
+            }
+            writer.endArray();
+        }
+    }
+
+    static void sendStatus(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+}
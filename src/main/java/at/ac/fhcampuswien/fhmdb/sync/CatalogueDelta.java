@@ -0,0 +1,23 @@
+package at.ac.fhcampuswien.fhmdb.sync;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.util.List;
+
+// difference between two versions of the catalogue: new movies, new versions of existing movies
+// (same id, different fingerprint) and the ids of movies that are gone
+public record CatalogueDelta(List<Movie> added, List<Movie> updated, List<String> removed) {
+    public CatalogueDelta {
+        added = List.copyOf(added);
+        updated = List.copyOf(updated);
+        removed = List.copyOf(removed);
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+    }
+
+    public int size() {
+        return added.size() + updated.size() + removed.size();
+    }
+}
@@ -0,0 +1,138 @@
+package at.ac.fhcampuswien.fhmdb.sync;
+
+import at.ac.fhcampuswien.fhmdb.analytics.MovieAnalytics;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.models.MovieCatalog;
+import at.ac.fhcampuswien.fhmdb.recommend.MovieRecommender;
+import at.ac.fhcampuswien.fhmdb.search.FacetCounter;
+import at.ac.fhcampuswien.fhmdb.search.FuzzyIndex;
+import at.ac.fhcampuswien.fhmdb.search.IncrementalFilter;
+import at.ac.fhcampuswien.fhmdb.search.MovieIndex;
+import at.ac.fhcampuswien.fhmdb.search.MovieSorter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// one version of the catalogue together with everything that is derived from it (index, sort orders,
+// statistics). the movies are kept once, column-wise in the catalog of the index, and getMovies is a view
+// over it. a snapshot is never modified, so any number of threads can filter, sort and count over it without
+// locks while a refresh builds the next version. the index, the sort orders of every key and the facets without
+// filters are built on the thread that creates the snapshot, before it is published. only the statistics, the
+// fuzzy index and the recommender are computed on first use
+public final class CatalogueSnapshot {
+    public static final CatalogueSnapshot EMPTY = new CatalogueSnapshot(0, List.of(), null, null, null);
+
+    private final long version;
+    // views over the index, or a copy of the movies if they contain null entries (the index skips them)
+    private final List<Movie> movies;
+    // null if the catalogue is empty
+    private final MovieIndex index;
+    private final MovieSorter sorter;
+    // the catalog of the index if its rows are the positions in movies, null otherwise (null entries in the
+    // catalogue, or changes merged into the index)
+    private final MovieCatalog catalog;
+    // counts of the whole catalogue, the starting point of every FacetCounter of this version
+    private final FacetCounter.Facets facets;
+    private volatile MovieAnalytics.Summary summary;
+    // guarded by this, both are built once by whoever asks first
+    private CompletableFuture<FuzzyIndex> fuzzyIndex;
+    private CompletableFuture<MovieRecommender> recommender;
+
+    private CatalogueSnapshot(long version, List<Movie> movies, MovieIndex index, MovieCatalog catalog,
+                              MovieSorter sorter) {
+        this.version = version;
+        this.movies = movies;
+        this.index = index;
+        this.sorter = sorter == null ? null : sorter.computeOrders();
+        this.catalog = catalog;
+        this.facets = index == null ? null : new FacetCounter(index).count(null, null, null, null);
+    }
+
+    // the next version with a catalogue that is indexed from scratch
+    public CatalogueSnapshot next(List<Movie> movies) {
+        if (movies == null) {
+            throw new IllegalArgumentException("movies must not be null");
+        }
+        if (movies.isEmpty()) {
+            return new CatalogueSnapshot(version + 1, List.of(), null, null, null);
+        }
+        MovieIndex index = new MovieIndex(movies);
+        if (movies.contains(null)) {
+            return new CatalogueSnapshot(version + 1, Collections.unmodifiableList(new ArrayList<>(movies)), index,
+                    null, new MovieSorter(index));
+        }
+        return new CatalogueSnapshot(version + 1, index.asList(), index, index.getCatalog(), new MovieSorter(index));
+    }
+
+    // the next version with an index that already contains the changes, see CatalogueSync. the sort orders of
+    // this version are extended by the appended movies instead of being sorted again, unless the sync compacted
+    // the index
+    public CatalogueSnapshot next(MovieIndex index) {
+        if (index == null) {
+            throw new IllegalArgumentException("index must not be null");
+        }
+        MovieSorter next = sorter == null ? new MovieSorter(index) : new MovieSorter(index, sorter);
+        return new CatalogueSnapshot(version + 1, index.asList(), index, index.getCatalog(), next);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Movie> getMovies() {
+        return movies;
+    }
+
+    public MovieIndex getIndex() {
+        return index;
+    }
+
+    public MovieSorter getSorter() {
+        return sorter;
+    }
+
+    public MovieCatalog getCatalog() {
+        return catalog;
+    }
+
+    // filters keep the previous result of their reader, so every reader gets its own. null if the catalogue is empty
+    public IncrementalFilter newFilter() {
+        return index == null ? null : new IncrementalFilter(index);
+    }
+
+    // a counter that starts from the facets counted for this version, null if the catalogue is empty
+    public FacetCounter newFacetCounter() {
+        return index == null ? null : new FacetCounter(index, facets);
+    }
+
+    // statistics over the catalog, null if there are no movies or one of them is null. a merged snapshot has no
+    // single catalog until it is compacted, its statistics are computed over a column-wise copy of the movies
+    // that the summary keeps. two threads asking at the same time may both compute them, the result is the same
+    public MovieAnalytics.Summary getSummary() {
+        MovieAnalytics.Summary result = summary;
+        if (result == null && index != null && (catalog != null || !movies.contains(null))) {
+            summary = result = MovieAnalytics.summarize(catalog != null ? catalog : MovieCatalog.of(movies));
+        }
+        return result;
+    }
+
+    // typo tolerant search over the index, null if the catalogue is empty. built in the background on first use,
+    // every caller gets the same future: the FX thread checks whether it is done, other threads may wait for it
+    public synchronized CompletableFuture<FuzzyIndex> getFuzzyIndex() {
+        if (fuzzyIndex == null && index != null) {
+            fuzzyIndex = CompletableFuture.supplyAsync(() -> new FuzzyIndex(index));
+        }
+        return fuzzyIndex;
+    }
+
+    // similar movies over the index, null if the catalogue is empty. built in the background on first use like
+    // the fuzzy index
+    public synchronized CompletableFuture<MovieRecommender> getRecommender() {
+        if (recommender == null && index != null) {
+            recommender = CompletableFuture.supplyAsync(() -> new MovieRecommender(index));
+        }
+        return recommender;
+    }
+}
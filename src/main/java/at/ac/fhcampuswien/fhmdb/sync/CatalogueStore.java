@@ -0,0 +1,61 @@
+package at.ac.fhcampuswien.fhmdb.sync;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+// holds the current CatalogueSnapshot. readers take the current snapshot once and work on it, they never wait
+// for a writer and never see half of an update. writers build the next snapshot on their own thread and swap it
+// in with a compare-and-set, so the expensive part of an update happens outside of any lock
+public class CatalogueStore {
+    private final AtomicReference<CatalogueSnapshot> current = new AtomicReference<>(CatalogueSnapshot.EMPTY);
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+
+    public CatalogueSnapshot current() {
+        return current.get();
+    }
+
+    // publishes a catalogue that is indexed from scratch
+    public CatalogueSnapshot replace(List<Movie> movies) {
+        return update(snapshot -> snapshot.next(movies));
+    }
+
+    // builds the next snapshot from the current one and publishes it. if another writer published first,
+    // the update is built again on top of the newer snapshot, so it must not have side effects
+    public CatalogueSnapshot update(UnaryOperator<CatalogueSnapshot> update) {
+        while (true) {
+            CatalogueSnapshot expected = current.get();
+            CatalogueSnapshot next = update.apply(expected);
+            if (publish(expected, next)) {
+                return next;
+            }
+        }
+    }
+
+    // publishes next only if expected is still the current snapshot. false if another writer got there first,
+    // the caller then decides whether its update still makes sense on top of the newer snapshot
+    public boolean publish(CatalogueSnapshot expected, CatalogueSnapshot next) {
+        if (next == expected) {
+            return true;
+        }
+        if (current.compareAndSet(expected, next)) {
+            published.incrementAndGet();
+            return true;
+        }
+        conflicts.incrementAndGet();
+        return false;
+    }
+
+    public long getPublished() {
+        return published.get();
+    }
+
+    // updates that lost the compare-and-set against another writer
+    public long getConflicts() {
+        return conflicts.get();
+    }
+}
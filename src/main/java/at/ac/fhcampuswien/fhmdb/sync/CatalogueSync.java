@@ -0,0 +1,126 @@
+package at.ac.fhcampuswien.fhmdb.sync;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.search.MovieIndex;
+
+import java.util.*;
+
+// merges a freshly fetched catalogue into a MovieIndex instead of indexing it again. movies are matched by id
+// and compared by fingerprint, only added, changed and removed movies touch the index (see MovieIndex.withChanges).
+// once the tombstones and the tail make up a quarter of the index it is compacted, i.e. built again from scratch.
+// not thread safe, a sync is meant to be used by one refresh at a time
+public class CatalogueSync {
+    private static final int MIN_COMPACTION_SIZE = 1024;
+
+    private record Entry(int doc, long fingerprint) {
+    }
+
+    private MovieIndex index;
+    // live movies of the index by id
+    private final Map<String, Entry> entries = new HashMap<>();
+    private long compactions;
+
+    // the movies of the index need unique ids, see canSync
+    public CatalogueSync(MovieIndex index) {
+        this.index = index;
+        indexEntries();
+    }
+
+    // true if every movie has an id and no two movies share one, only such catalogues can be merged by id
+    public static boolean canSync(List<Movie> movies) {
+        Set<String> ids = new HashSet<>(movies.size() * 2);
+        for (Movie movie : movies) {
+            if (movie == null || movie.getId() == null || movie.getId().isEmpty() || !ids.add(movie.getId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public MovieIndex getIndex() {
+        return index;
+    }
+
+    public long getCompactions() {
+        return compactions;
+    }
+
+    // what has to change to turn the current catalogue into the fetched one
+    public CatalogueDelta diff(List<Movie> fetched) {
+        if (!canSync(fetched)) {
+            throw new IllegalArgumentException("every movie needs a unique id");
+        }
+        List<Movie> added = new ArrayList<>();
+        List<Movie> updated = new ArrayList<>();
+        Set<String> fetchedIds = new HashSet<>(fetched.size() * 2);
+        for (Movie movie : fetched) {
+            fetchedIds.add(movie.getId());
+            Entry entry = entries.get(movie.getId());
+            if (entry == null) {
+                added.add(movie);
+            } else if (entry.fingerprint() != MovieFingerprint.of(movie)) {
+                updated.add(movie);
+            }
+        }
+        List<String> removed = new ArrayList<>();
+        if (fetchedIds.size() - added.size() < entries.size()) {
+            for (String id : entries.keySet()) {
+                if (!fetchedIds.contains(id)) {
+                    removed.add(id);
+                }
+            }
+        }
+        return new CatalogueDelta(added, updated, removed);
+    }
+
+    // applies the delta to the index and returns the new index. the previous index is left unchanged
+    public MovieIndex apply(CatalogueDelta delta) {
+        if (delta.isEmpty()) {
+            return index;
+        }
+        BitSet deleted = new BitSet(index.size());
+        for (String id : delta.removed()) {
+            Entry entry = entries.remove(id);
+            if (entry != null) {
+                deleted.set(entry.doc());
+            }
+        }
+        List<Movie> appended = new ArrayList<>(delta.updated().size() + delta.added().size());
+        for (Movie movie : delta.updated()) {
+            Entry entry = entries.get(movie.getId());
+            if (entry != null) {
+                deleted.set(entry.doc());
+            }
+            appended.add(movie);
+        }
+        appended.addAll(delta.added());
+
+        int firstDoc = index.size();
+        index = index.withChanges(deleted, appended);
+        for (int i = 0; i < appended.size(); i++) {
+            Movie movie = appended.get(i);
+            entries.put(movie.getId(), new Entry(firstDoc + i, MovieFingerprint.of(movie)));
+        }
+
+        if (index.getDeletedCount() + index.getTailSize() > Math.max(MIN_COMPACTION_SIZE, index.liveCount() / 4)) {
+            index = index.compact();
+            indexEntries();
+            compactions++;
+        }
+        return index;
+    }
+
+    private void indexEntries() {
+        entries.clear();
+        for (int doc = 0; doc < index.size(); doc++) {
+            if (index.isDeleted(doc)) {
+                continue;
+            }
+            Movie movie = index.get(doc);
+            if (movie.getId() == null || movie.getId().isEmpty()
+                    || entries.put(movie.getId(), new Entry(doc, MovieFingerprint.of(movie))) != null) {
+                throw new IllegalArgumentException("every movie needs a unique id");
+            }
+        }
+    }
+}
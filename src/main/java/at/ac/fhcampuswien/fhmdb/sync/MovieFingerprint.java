@@ -0,0 +1,70 @@
+package at.ac.fhcampuswien.fhmdb.sync;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.util.List;
+
+// 64 bit FNV-1a hash over every field of a movie. unlike Movie.equals it covers all fields (ratings, cast, ...),
+// and unlike Object.hashCode it is the same in every run, so fingerprints could also be stored with the catalogue
+public final class MovieFingerprint {
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private MovieFingerprint() {
+    }
+
+    public static long of(Movie movie) {
+        long hash = OFFSET_BASIS;
+        hash = add(hash, movie.getId());
+        hash = add(hash, movie.getTitle());
+        hash = add(hash, movie.getDescription());
+        List<Genre> genres = movie.getGenres();
+        hash = add(hash, genres == null ? -1 : genres.size());
+        if (genres != null) {
+            for (Genre genre : genres) {
+                hash = add(hash, genre == null ? -1 : genre.ordinal());
+            }
+        }
+        hash = add(hash, movie.getReleaseYear());
+        hash = add(hash, movie.getImgUrl());
+        hash = add(hash, movie.getLengthInMinutes());
+        hash = add(hash, movie.getDirectors());
+        hash = add(hash, movie.getWriters());
+        hash = add(hash, movie.getMainCast());
+        long rating = Double.doubleToLongBits(movie.getRating());
+        hash = add(hash, (int) (rating >>> 32));
+        return add(hash, (int) rating);
+    }
+
+    private static long add(long hash, List<String> values) {
+        hash = add(hash, values == null ? -1 : values.size());
+        if (values != null) {
+            for (String value : values) {
+                hash = add(hash, value);
+            }
+        }
+        return hash;
+    }
+
+    // the length goes first, so "ab" + "c" and "a" + "bc" hash differently
+    private static long add(long hash, String value) {
+        if (value == null) {
+            return add(hash, -1);
+        }
+        hash = add(hash, value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (c & 0xff)) * PRIME;
+            hash = (hash ^ (c >>> 8)) * PRIME;
+        }
+        return hash;
+    }
+
+    private static long add(long hash, int value) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            hash = (hash ^ ((value >>> shift) & 0xff)) * PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,31 @@
+package at.ac.fhcampuswien.fhmdb.ui;
+
+import at.ac.fhcampuswien.fhmdb.metrics.Metrics;
+import at.ac.fhcampuswien.fhmdb.metrics.Timer;
+import javafx.animation.AnimationTimer;
+import javafx.scene.Scene;
+
+// records the time between two frames (fx.frame) and the time of the CSS and layout pass of every pulse
+// (fx.layout). the animation timer makes JavaFX render every frame, so it is only installed with metrics enabled
+public class FrameMonitor extends AnimationTimer {
+    private static final Timer FRAME = Metrics.timer("fx.frame");
+    private static final Timer LAYOUT = Metrics.timer("fx.layout");
+
+    private long lastFrame;
+    private Timer.Sample layoutStart = Timer.Sample.NOT_STARTED;
+
+    public static void install(Scene scene) {
+        FrameMonitor monitor = new FrameMonitor();
+        scene.addPreLayoutPulseListener(() -> monitor.layoutStart = LAYOUT.start());
+        scene.addPostLayoutPulseListener(() -> LAYOUT.stop(monitor.layoutStart));
+        monitor.start();
+    }
+
+    @Override
+    public void handle(long now) {
+        if (lastFrame != 0 && Metrics.isEnabled()) {
+            FRAME.record(now - lastFrame);
+        }
+        lastFrame = now;
+    }
+}
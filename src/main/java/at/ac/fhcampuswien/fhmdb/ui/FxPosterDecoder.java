@@ -0,0 +1,25 @@
+package at.ac.fhcampuswien.fhmdb.ui;
+
+import javafx.scene.image.Image;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+// decodes posters into JavaFX images that are already scaled down to the cell size while decoding,
+// so a 2000px poster never exists in memory at full size
+public class FxPosterDecoder implements PosterDecoder<Image> {
+    @Override
+    public Image decode(byte[] bytes, double width, double height) throws IOException {
+        Image image = new Image(new ByteArrayInputStream(bytes), width, height, true, true);
+        if (image.isError()) {
+            throw new IOException("Could not decode poster", image.getException());
+        }
+        return image;
+    }
+
+    // 4 bytes per pixel
+    @Override
+    public long sizeOf(Image image) {
+        return (long) Math.ceil(image.getWidth()) * (long) Math.ceil(image.getHeight()) * 4;
+    }
+}
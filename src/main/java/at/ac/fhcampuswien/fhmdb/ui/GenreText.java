@@ -0,0 +1,35 @@
+package at.ac.fhcampuswien.fhmdb.ui;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+// display text for the genres of a movie, joined once per movie instead of on every cell update.
+// entries go away together with the movie. cells are only updated on the FX application thread,
+// so the cache needs no locking
+final class GenreText {
+    private static final Map<Movie, String> texts = new WeakHashMap<>();
+
+    private GenreText() {
+    }
+
+    static String of(Movie movie) {
+        return texts.computeIfAbsent(movie, GenreText::join);
+    }
+
+    private static String join(Movie movie) {
+        if (movie.getGenres() == null) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder();
+        for (Genre genre : movie.getGenres()) {
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            text.append(genre);
+        }
+        return text.toString();
+    }
+}
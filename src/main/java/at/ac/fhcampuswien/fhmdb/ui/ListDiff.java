@@ -0,0 +1,109 @@
+package at.ac.fhcampuswien.fhmdb.ui;
+
+import javafx.collections.ObservableList;
+
+import java.util.*;
+import java.util.function.Function;
+
+// turns an observable list into the content of another list with as few change events as possible,
+// so the ListView only updates the rows that actually changed instead of relayouting everything.
+// items are compared by identity or by a key, both lists are expected to be free of duplicates
+public final class ListDiff {
+    // beyond this many separate insertions a single setAll is cheaper than many small changes
+    private static final int MAX_INSERTION_RUNS = 32;
+
+    private ListDiff() {
+    }
+
+    public static <T> void apply(ObservableList<T> target, List<T> next) {
+        apply(target, next, item -> null);
+    }
+
+    // items with equal keys are the same item, e.g. two views of the same row. items without a key (null)
+    // are compared by identity. an item that stays keeps its instance in the target
+    public static <T> void apply(ObservableList<T> target, List<T> next, Function<? super T, ?> key) {
+        if (target.isEmpty() || next.isEmpty()) {
+            target.setAll(next);
+            return;
+        }
+        Map<Object, Integer> positions = new HashMap<>(next.size() * 2);
+        for (int i = 0; i < next.size(); i++) {
+            positions.put(keyOf(next.get(i), key), i);
+        }
+
+        // the items that stay have to keep their relative order, otherwise there is no cheap diff
+        Set<Object> kept = new HashSet<>();
+        Set<T> keptItems = Collections.newSetFromMap(new IdentityHashMap<>());
+        int lastPosition = -1;
+        boolean removals = false;
+        for (T item : target) {
+            Object itemKey = keyOf(item, key);
+            Integer position = positions.get(itemKey);
+            if (position == null) {
+                removals = true;
+            } else if (position < lastPosition) {
+                target.setAll(next);
+                return;
+            } else {
+                lastPosition = position;
+                kept.add(itemKey);
+                keptItems.add(item);
+            }
+        }
+
+        boolean[] keptAt = new boolean[next.size()];
+        int insertionRuns = 0;
+        for (int i = 0; i < next.size(); i++) {
+            keptAt[i] = kept.contains(keyOf(next.get(i), key));
+            if (!keptAt[i] && (i == 0 || keptAt[i - 1])) {
+                insertionRuns++;
+            }
+        }
+        if (insertionRuns > MAX_INSERTION_RUNS) {
+            target.setAll(next);
+            return;
+        }
+
+        if (removals) {
+            // a single change event for all removed items
+            target.retainAll(keptItems);
+        }
+        int i = 0;
+        while (i < next.size()) {
+            if (keptAt[i]) {
+                i++;
+                continue;
+            }
+            int runEnd = i;
+            while (runEnd < next.size() && !keptAt[runEnd]) {
+                runEnd++;
+            }
+            // everything before i is already in place, so the run goes to index i
+            target.addAll(i, next.subList(i, runEnd));
+            i = runEnd;
+        }
+    }
+
+    private static <T> Object keyOf(T item, Function<? super T, ?> key) {
+        Object itemKey = key.apply(item);
+        return itemKey != null ? itemKey : new Identity(item);
+    }
+
+    private static final class Identity {
+        private final Object item;
+
+        Identity(Object item) {
+            this.item = item;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Identity identity && identity.item == item;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(item);
+        }
+    }
+}
@@ -1,64 +1,157 @@
 package at.ac.fhcampuswien.fhmdb.ui;
 
+import at.ac.fhcampuswien.fhmdb.metrics.Metrics;
+import at.ac.fhcampuswien.fhmdb.metrics.Timer;
 import at.ac.fhcampuswien.fhmdb.models.Movie;
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.ContextMenu;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
+import javafx.scene.control.MenuItem;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundFill;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
-import java.util.stream.Collectors;
+import javafx.scene.text.Font;
+
+import java.util.List;
+import java.util.function.Consumer;
 
 import static at.ac.fhcampuswien.fhmdb.HomeController.descriptionsList;
 import static at.ac.fhcampuswien.fhmdb.HomeController.titlesList;
 
+// the list view reuses a handful of cells while scrolling, so everything that doesn't depend on the movie
+// is set up once per cell and updateItem only swaps the texts and the poster
 public class MovieCell extends ListCell<Movie> {
+    public static final double POSTER_WIDTH = 80;
+    public static final double POSTER_HEIGHT = 120;
+    // posters of the rows this far above and below a shown row are loaded ahead, the list view only
+    // has cells for the visible rows, so these are the rows just outside the viewport
+    private static final int PREFETCH_DISTANCE = 6;
+    private static final Timer UPDATE = Metrics.timer("cell.updateItem");
+
+    // immutable, shared by all cells
+    private static final Background BACKGROUND = new Background(new BackgroundFill(Color.web("#454545"), null, null));
+    private static final Insets PADDING = new Insets(10);
+
     private final Label title = new Label();
     private final Label detail = new Label();
     private final Label genre = new Label();
-    private final VBox layout = new VBox(title, detail, genre);
+    private final VBox text = new VBox(title, detail, genre);
+    private final ImageView poster = new ImageView();
+    private final HBox layout = new HBox(poster, text);
+
+    private final PosterLoader<Image> posters;
+    // load of the poster of the current movie, cancelled when the cell gets another movie
+    private PosterLoader.Ticket posterLoad = PosterLoader.Ticket.NONE;
+    // "more like this" for the movie of the cell, null without recommendations
+    private final ContextMenu contextMenu;
+
+    // posters may be null to show the movies without posters
+    public MovieCell(PosterLoader<Image> posters) {
+        this(posters, null);
+    }
+
+    // onMoreLikeThis gets the movie of the cell when "more like this" is picked from its context menu
+    public MovieCell(PosterLoader<Image> posters, Consumer<Movie> onMoreLikeThis) {
+        this.posters = posters;
+        this.getStyleClass().add("movie-cell");
+        if (onMoreLikeThis != null) {
+            MenuItem moreLikeThis = new MenuItem("More like this");
+            moreLikeThis.setOnAction(event -> {
+                if (getItem() != null) {
+                    onMoreLikeThis.accept(getItem());
+                }
+            });
+            contextMenu = new ContextMenu(moreLikeThis);
+        } else {
+            contextMenu = null;
+        }
+
+        // color scheme
+        title.getStyleClass().add("text-yellow");
+        detail.getStyleClass().add("text-white");
+        genre.getStyleClass().add("text-white");
+        genre.setStyle("-fx-font-style: italic");
+        layout.setBackground(BACKGROUND);
+
+        // layout
+        title.setFont(Font.font(20));
+        detail.setWrapText(true);
+        layout.setPadding(PADDING);
+        layout.setSpacing(10);
+        layout.setAlignment(Pos.CENTER_LEFT);
+        text.setSpacing(10);
+        text.setAlignment(Pos.CENTER_LEFT);
+        poster.setFitWidth(POSTER_WIDTH);
+        poster.setFitHeight(POSTER_HEIGHT);
+        poster.setPreserveRatio(true);
+        poster.setManaged(posters != null);
+        poster.setVisible(posters != null);
+
+        // registered once per cell, the sets only hold them weakly
+        titlesList.add(title);
+        descriptionsList.add(detail);
+    }
 
     @Override
     protected void updateItem(Movie movie, boolean empty) {
+        Timer.Sample start = UPDATE.start();
         super.updateItem(movie, empty);
+        posterLoad.cancel();
+        posterLoad = PosterLoader.Ticket.NONE;
 
         if (empty || movie == null) {
             setGraphic(null);
             setText(null);
+            setContextMenu(null);
         } else {
-            this.getStyleClass().add("movie-cell");
             title.setText(movie.getTitle());
             detail.setText(
                     movie.getDescription() != null
                             ? movie.getDescription()
                             : "No description available"
             );
+            genre.setText(GenreText.of(movie));
 
-            String genres = movie.getGenres()
-                    .stream()
-                    .map(Enum::toString)
-                    .collect(Collectors.joining(", "));
-            genre.setText(genres);
-
-
-            // color scheme
-            title.getStyleClass().add("text-yellow");
-            detail.getStyleClass().add("text-white");
-            genre.getStyleClass().add("text-white");
-            genre.setStyle("-fx-font-style: italic");
-            layout.setBackground(new Background(new BackgroundFill(Color.web("#454545"), null, null)));
-
-            // layout
-            title.fontProperty().set(title.getFont().font(20));
-            detail.setMaxWidth(this.getScene().getWidth() - 30);
-            detail.setWrapText(true);
-            layout.setPadding(new Insets(10));
-            layout.spacingProperty().set(10);
-            layout.alignmentProperty().set(javafx.geometry.Pos.CENTER_LEFT);
+            if (getScene() != null) {
+                detail.setMaxWidth(getScene().getWidth() - 30 - (posters != null ? POSTER_WIDTH + 10 : 0));
+            }
+            if (posters != null) {
+                showPoster(movie);
+            }
             setGraphic(layout);
-            titlesList.add(title);
-            descriptionsList.add(detail);
+            setContextMenu(contextMenu);
+        }
+        UPDATE.stop(start);
+    }
+
+    private void showPoster(Movie movie) {
+        String url = movie.getImgUrl();
+        poster.setImage(posters.getCached(url));
+        if (poster.getImage() == null) {
+            posterLoad = posters.load(url, image -> {
+                if (getItem() == movie) {
+                    poster.setImage(image);
+                }
+            });
+        }
+        prefetch(getIndex() - PREFETCH_DISTANCE);
+        prefetch(getIndex() + PREFETCH_DISTANCE);
+    }
+
+    private void prefetch(int index) {
+        List<Movie> items = getListView() != null ? getListView().getItems() : null;
+        if (items != null && index >= 0 && index < items.size()) {
+            // rows of a paged list that are still loading are null
+            Movie movie = items.get(index);
+            if (movie != null) {
+                posters.prefetch(movie.getImgUrl());
+            }
         }
     }
-}
\ No newline at end of file
+}
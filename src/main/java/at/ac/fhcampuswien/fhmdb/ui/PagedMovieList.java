@@ -0,0 +1,129 @@
+package at.ac.fhcampuswien.fhmdb.ui;
+
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.search.MoviePageSource;
+import javafx.collections.ObservableListBase;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// read-only list over a MoviePageSource for the list view. the list view only asks for the rows it shows,
+// so only the pages around the viewport are loaded and pages far away from it are dropped again.
+// rows of a page that is still loading are null, an update change is fired once the page has arrived.
+// must only be used from the FX application thread (or the thread the publisher runs on)
+public class PagedMovieList extends ObservableListBase<Movie> {
+    private static final System.Logger LOGGER = System.getLogger(PagedMovieList.class.getName());
+
+    private final MoviePageSource source;
+    private final int pageSize;
+    private final int maxPages;
+    private final Executor loader;
+    private final Executor publisher;
+    private final int size;
+
+    private final Map<Integer, List<Movie>> pages = new HashMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+    private int lastRequestedPage;
+    // page that is being requested from get, a page that is loaded synchronously needs no change event
+    private int requestingPage = -1;
+
+    // pages are loaded on the loader and handed over on the publisher, e.g. Platform::runLater
+    public PagedMovieList(MoviePageSource source, int pageSize, int maxPages, Executor loader, Executor publisher) {
+        if (pageSize <= 0 || maxPages < 2) {
+            throw new IllegalArgumentException("pageSize must be positive and at least two pages must be kept");
+        }
+        this.source = source;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.loader = loader;
+        this.publisher = publisher;
+        this.size = source.size();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Movie get(int index) {
+        Objects.checkIndex(index, size);
+        int page = index / pageSize;
+        int offset = index % pageSize;
+        lastRequestedPage = page;
+
+        // load the neighbouring page before the viewport reaches it
+        if (offset >= pageSize * 3 / 4 && (page + 1) * pageSize < size) {
+            request(page + 1);
+        } else if (offset < pageSize / 4 && page > 0) {
+            request(page - 1);
+        }
+
+        List<Movie> movies = pages.get(page);
+        if (movies == null) {
+            request(page);
+            movies = pages.get(page);
+        }
+        return movies == null || offset >= movies.size() ? null : movies.get(offset);
+    }
+
+    public int getLoadedPages() {
+        return pages.size();
+    }
+
+    private void request(int page) {
+        if (pages.containsKey(page) || !loading.add(page)) {
+            return;
+        }
+        requestingPage = page;
+        try {
+            CompletableFuture.supplyAsync(() -> load(page), loader)
+                    .whenCompleteAsync((movies, error) -> loaded(page, movies, error), publisher);
+        } finally {
+            requestingPage = -1;
+        }
+    }
+
+    private List<Movie> load(int page) {
+        try {
+            return source.loadPage(page, pageSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void loaded(int page, List<Movie> movies, Throwable error) {
+        loading.remove(page);
+        if (error != null) {
+            // the page is requested again the next time one of its rows is shown
+            LOGGER.log(System.Logger.Level.WARNING, "Could not load page {0}: {1}", page, error.getMessage());
+            return;
+        }
+        pages.put(page, movies);
+        evictFarPages();
+        if (page != requestingPage) {
+            int from = page * pageSize;
+            int to = Math.min(from + movies.size(), size);
+            beginChange();
+            for (int index = from; index < to; index++) {
+                nextUpdate(index);
+            }
+            endChange();
+        }
+    }
+
+    private void evictFarPages() {
+        while (pages.size() > maxPages) {
+            int farthest = lastRequestedPage;
+            for (int page : pages.keySet()) {
+                if (Math.abs(page - lastRequestedPage) > Math.abs(farthest - lastRequestedPage)) {
+                    farthest = page;
+                }
+            }
+            pages.remove(farthest);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package at.ac.fhcampuswien.fhmdb.ui;
+
+import java.io.IOException;
+
+// turns the downloaded bytes of a poster into an image of (at most) the given size
+public interface PosterDecoder<T> {
+    T decode(byte[] bytes, double width, double height) throws IOException;
+
+    // approximate memory used by the decoded image, for the size limit of the memory cache
+    long sizeOf(T image);
+}
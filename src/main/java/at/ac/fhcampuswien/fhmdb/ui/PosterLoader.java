@@ -0,0 +1,399 @@
+package at.ac.fhcampuswien.fhmdb.ui;
+
+import at.ac.fhcampuswien.fhmdb.api.MovieAPI;
+import javafx.application.Platform;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// loads movie posters without blocking the list view. a poster is looked up in a memory cache of decoded images
+// (bounded by bytes, least recently used first out), then in a disk cache of the downloaded files and only then
+// downloaded through MovieAPI's client. decoding and scaling run on a background executor, the decoded image is
+// handed to the listeners on the callback executor. requests for the same url share one download, and a download
+// is cancelled once every cell that asked for it has been reused for another movie
+public class PosterLoader<T> {
+    private static final System.Logger LOGGER = System.getLogger(PosterLoader.class.getName());
+
+    private final PosterDecoder<T> decoder;
+    private final double width;
+    private final double height;
+    private final long maxMemoryBytes;
+    private final Path diskCache;
+    private final long maxDiskBytes;
+    private final Executor decodeExecutor;
+    private final Executor callbackExecutor;
+
+    // access ordered, the first entry is the least recently used one
+    private final LinkedHashMap<String, T> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryBytes;
+    private final Map<String, Pending> pending = new HashMap<>();
+    private final AtomicLong diskBytes = new AtomicLong(-1);
+    private final Object diskLock = new Object();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong downloads = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    // handle of a load, cancel it when the poster is no longer needed
+    public interface Ticket {
+        Ticket NONE = () -> {
+        };
+
+        void cancel();
+    }
+
+    // a download (or disk read) in progress and the listeners waiting for it
+    private final class Pending {
+        final String url;
+        final List<Listener> listeners = new ArrayList<>();
+        // prefetched posters are loaded even if no cell is waiting for them
+        boolean prefetch;
+        Call call;
+        boolean done;
+
+        Pending(String url) {
+            this.url = url;
+        }
+    }
+
+    private final class Listener implements Ticket {
+        final Pending pending;
+        final Consumer<T> consumer;
+        volatile boolean cancelled;
+
+        Listener(Pending pending, Consumer<T> consumer) {
+            this.pending = pending;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            PosterLoader.this.cancel(this);
+        }
+    }
+
+    // diskCache may be null to keep posters in memory only
+    public PosterLoader(PosterDecoder<T> decoder, double width, double height, long maxMemoryBytes,
+                        Path diskCache, long maxDiskBytes, Executor decodeExecutor, Executor callbackExecutor) {
+        this.decoder = decoder;
+        this.width = width;
+        this.height = height;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.diskCache = diskCache;
+        this.maxDiskBytes = maxDiskBytes;
+        this.decodeExecutor = decodeExecutor;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    // cache sizes and location can be changed with -Dfhmdb.posters.memoryMb, -Dfhmdb.posters.diskMb and
+    // -Dfhmdb.posters.dir, listeners are called on the JavaFX application thread
+    public static <T> PosterLoader<T> createDefault(PosterDecoder<T> decoder, double width, double height) {
+        Path directory = Path.of(System.getProperty("fhmdb.posters.dir",
+                System.getProperty("fhmdb.cache.dir", System.getProperty("user.home") + "/.fhmdb") + "/posters"));
+        ExecutorService decodeExecutor = Executors.newFixedThreadPool(
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2), runnable -> {
+                    Thread thread = new Thread(runnable, "poster-decoder");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        return new PosterLoader<>(decoder, width, height,
+                Long.getLong("fhmdb.posters.memoryMb", 32) * 1024 * 1024, directory,
+                Long.getLong("fhmdb.posters.diskMb", 200) * 1024 * 1024, decodeExecutor, Platform::runLater);
+    }
+
+    // the decoded poster if it is in memory, null otherwise
+    public synchronized T getCached(String url) {
+        return url == null ? null : memory.get(url);
+    }
+
+    // calls consumer with the poster once it is loaded, right away if it is in memory.
+    // posters that can't be loaded are only logged, the consumer is not called
+    public Ticket load(String url, Consumer<T> consumer) {
+        if (url == null || url.isEmpty()) {
+            return Ticket.NONE;
+        }
+        T image;
+        Listener listener = null;
+        boolean start = false;
+        synchronized (this) {
+            image = memory.get(url);
+            if (image == null) {
+                Pending load = pending.get(url);
+                start = load == null;
+                if (start) {
+                    load = new Pending(url);
+                    pending.put(url, load);
+                }
+                listener = new Listener(load, consumer);
+                load.listeners.add(listener);
+            }
+        }
+        if (image != null) {
+            memoryHits.incrementAndGet();
+            consumer.accept(image);
+            return Ticket.NONE;
+        }
+        if (start) {
+            Pending load = listener.pending;
+            decodeExecutor.execute(() -> fetch(load));
+        }
+        return listener;
+    }
+
+    // loads the poster into the caches, e.g. for rows that are about to be scrolled into view
+    public void prefetch(String url) {
+        if (url == null || url.isEmpty()) {
+            return;
+        }
+        Pending load;
+        synchronized (this) {
+            if (memory.containsKey(url)) {
+                return;
+            }
+            Pending existing = pending.get(url);
+            if (existing != null) {
+                existing.prefetch = true;
+                return;
+            }
+            load = new Pending(url);
+            load.prefetch = true;
+            pending.put(url, load);
+        }
+        decodeExecutor.execute(() -> fetch(load));
+    }
+
+    private void cancel(Listener listener) {
+        Call call = null;
+        synchronized (this) {
+            Pending load = listener.pending;
+            if (!load.listeners.remove(listener) || !load.listeners.isEmpty() || load.prefetch || load.done) {
+                return;
+            }
+            pending.remove(load.url);
+            load.done = true;
+            call = load.call;
+            cancelled.incrementAndGet();
+        }
+        if (call != null) {
+            call.cancel();
+        }
+    }
+
+    // runs on the decode executor: disk cache first, then the network
+    private void fetch(Pending load) {
+        synchronized (this) {
+            if (load.done) {
+                return;
+            }
+        }
+        byte[] bytes = readDisk(load.url);
+        if (bytes != null) {
+            diskHits.incrementAndGet();
+            decode(load, bytes);
+            return;
+        }
+
+        Call call;
+        try {
+            call = MovieAPI.posterCall(load.url);
+        } catch (IllegalArgumentException e) {
+            fail(load, e);
+            return;
+        }
+        synchronized (this) {
+            if (load.done) {
+                return;
+            }
+            load.call = call;
+        }
+        downloads.incrementAndGet();
+        call.enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    if (!response.isSuccessful()) {
+                        throw new IOException("Unexpected response code " + response.code());
+                    }
+                    byte[] downloaded = response.body().bytes();
+                    writeDisk(load.url, downloaded);
+                    decodeExecutor.execute(() -> decode(load, downloaded));
+                } catch (IOException e) {
+                    onFailure(call, e);
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (!call.isCanceled()) {
+                    fail(load, e);
+                }
+            }
+        });
+    }
+
+    private void decode(Pending load, byte[] bytes) {
+        T image;
+        try {
+            image = decoder.decode(bytes, width, height);
+        } catch (IOException | RuntimeException e) {
+            fail(load, e);
+            return;
+        }
+        List<Listener> listeners;
+        synchronized (this) {
+            pending.remove(load.url, load);
+            load.done = true;
+            listeners = new ArrayList<>(load.listeners);
+            put(load.url, image);
+        }
+        for (Listener listener : listeners) {
+            callbackExecutor.execute(() -> {
+                // the cell may have been reused while the callback was queued
+                if (!listener.cancelled) {
+                    listener.consumer.accept(image);
+                }
+            });
+        }
+    }
+
+    private void fail(Pending load, Exception e) {
+        synchronized (this) {
+            pending.remove(load.url, load);
+            load.done = true;
+        }
+        LOGGER.log(System.Logger.Level.DEBUG, "Could not load poster {0}: {1}", load.url, e.toString());
+    }
+
+    private void put(String url, T image) {
+        T previous = memory.put(url, image);
+        if (previous != null) {
+            memoryBytes -= decoder.sizeOf(previous);
+        }
+        memoryBytes += decoder.sizeOf(image);
+        Iterator<Map.Entry<String, T>> eldest = memory.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes && eldest.hasNext()) {
+            memoryBytes -= decoder.sizeOf(eldest.next().getValue());
+            eldest.remove();
+        }
+    }
+
+    private Path diskFile(String url) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return diskCache.resolve(HexFormat.of().formatHex(hash));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] readDisk(String url) {
+        if (diskCache == null) {
+            return null;
+        }
+        Path file = diskFile(url);
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            // the modification time is the last use, the least recently used files are trimmed first
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return bytes;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void writeDisk(String url, byte[] bytes) {
+        if (diskCache == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(diskCache);
+            Path file = diskFile(url);
+            // written to a temporary file first, so a reader never sees half a poster
+            Path temporary = Files.createTempFile(diskCache, "poster", ".tmp");
+            Files.write(temporary, bytes);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // the size of the directory is only listed once, then it is kept up to date
+            if (diskBytes.get() < 0) {
+                diskBytes.compareAndSet(-1, directorySize());
+            } else {
+                diskBytes.addAndGet(bytes.length);
+            }
+            if (diskBytes.get() > maxDiskBytes) {
+                trimDisk();
+            }
+        } catch (IOException e) {
+            LOGGER.log(System.Logger.Level.DEBUG, "Could not cache poster {0}: {1}", url, e.toString());
+        }
+    }
+
+    private long directorySize() throws IOException {
+        try (Stream<Path> files = Files.list(diskCache)) {
+            return files.mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    // deletes the least recently used files until the cache is down to three quarters of its limit
+    private void trimDisk() throws IOException {
+        synchronized (diskLock) {
+            List<Path> files;
+            try (Stream<Path> list = Files.list(diskCache)) {
+                files = new ArrayList<>(list.toList());
+            }
+            files.sort(Comparator.comparingLong(file -> file.toFile().lastModified()));
+            long size = directorySize();
+            for (Path file : files) {
+                if (size <= maxDiskBytes * 3 / 4) {
+                    break;
+                }
+                long length = file.toFile().length();
+                if (Files.deleteIfExists(file)) {
+                    size -= length;
+                }
+            }
+            diskBytes.set(size);
+        }
+    }
+
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getDownloads() {
+        return downloads.get();
+    }
+
+    // downloads that were stopped because no cell needed the poster anymore
+    public long getCancelled() {
+        return cancelled.get();
+    }
+}
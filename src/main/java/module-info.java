@@ -5,8 +5,8 @@ module at.ac.fhcampuswien.fhmdb {
     requires com.jfoenix;
     requires okhttp3;
     requires com.google.gson;
-
-    opens at.ac.fhcampuswien.fhmdb.models to com.google.gson;
+    requires jdk.httpserver;
+    requires jdk.jfr;
 
     opens at.ac.fhcampuswien.fhmdb to javafx.fxml;
     exports at.ac.fhcampuswien.fhmdb.models;
@@ -1,25 +1,48 @@
 package at.ac.fhcampuswien.fhmdb;
 
+import at.ac.fhcampuswien.fhmdb.api.MovieAPI;
+import at.ac.fhcampuswien.fhmdb.fixture.MovieFixtures;
 import at.ac.fhcampuswien.fhmdb.models.Genre;
 import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.models.MovieCatalog;
 import at.ac.fhcampuswien.fhmdb.models.SortedState;
+import at.ac.fhcampuswien.fhmdb.search.MovieSorter;
+import at.ac.fhcampuswien.fhmdb.server.MovieServer;
+import at.ac.fhcampuswien.fhmdb.sync.CatalogueSnapshot;
+import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class HomeControllerTest {
     private static HomeController homeController;
+    private static MovieServer movieServer;
+
     @BeforeAll
-    static void init() {
+    static void init() throws IOException {
+        // the tests run against a local stand-in server with the sample movies instead of the live API
+        movieServer = new MovieServer(Movie.initializeMovies(), 0);
+        movieServer.start();
+        MovieAPI.setBaseUrl(movieServer.getUrl());
+        System.setProperty("fhmdb.cache.dir", Files.createTempDirectory("fhmdb-test").toString());
         homeController = new HomeController();
     }
 
+    @AfterAll
+    static void tearDown() {
+        movieServer.stop();
+        MovieAPI.setBaseUrl(null);
+    }
+
     @Test
     void at_initialization_allMovies_and_observableMovies_should_be_filled_and_equal() {
         homeController.initializeState();
@@ -162,6 +185,42 @@ class HomeControllerTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    void query_filter_keeps_the_order_of_a_filtered_list_and_matches_words_in_any_order() {
+        // given
+        homeController.initializeState();
+        List<Movie> dramas = new ArrayList<>(homeController.filterByGenre(homeController.allMovies, Genre.DRAMA));
+        Collections.reverse(dramas);
+
+        // when
+        List<Movie> actual = homeController.filterByQuery(dramas, "life");
+
+        // then
+        List<Movie> expected = dramas.stream()
+                .filter(movie -> (movie.getTitle() + movie.getDescription()).toLowerCase().contains("life"))
+                .toList();
+        assertEquals(expected, actual);
+        List<Movie> wealthyStock = homeController.filterByQuery(homeController.allMovies, "wealthy stock");
+        assertEquals(1, wealthyStock.size());
+        assertEquals(wealthyStock, homeController.filterByQuery(homeController.allMovies, "stock wealthy"));
+    }
+
+    @Test
+    void the_ui_filters_and_the_query_filter_fall_back_the_same_way() {
+        // given: the typo tolerant search only answers once its index is built
+        homeController.initializeState();
+        homeController.snapshot.getFuzzyIndex().join();
+
+        for (String query : List.of("stock wealthy", "avatr")) {
+            // when
+            homeController.applyAllFilters(query, null, null, null);
+
+            // then
+            assertEquals(1, homeController.observableMovies.size());
+            assertEquals(homeController.filterByQuery(homeController.allMovies, query), homeController.observableMovies);
+        }
+    }
+
     @Test
     void query_filter_with_null_movie_list_throws_exception(){
         // given
@@ -217,10 +276,119 @@ class HomeControllerTest {
         homeController.initializeState();
 
         // when
-        homeController.applyAllFilters("", null, "2019", "9");
+        homeController.applyAllFilters("", "No filter", "Filter by Release Year", "Filter by rating");
 
         // then
         assertEquals(homeController.allMovies, homeController.observableMovies);
     }
 
-}
\ No newline at end of file
+    @Test
+    void release_year_and_rating_filter_without_query_and_genre() {
+        // given: the sample movies have no release year and no rating
+        homeController.initializeState();
+
+        // when
+        homeController.applyAllFilters("", null, "2019", "9");
+
+        // then
+        assertTrue(homeController.observableMovies.isEmpty());
+    }
+
+    @Test
+    void statistics_over_the_catalogue_columns_match_the_statistics_over_the_movies() {
+        // given
+        homeController.initializeState();
+        homeController.movieCatalog = MovieCatalog.of(MovieFixtures.generate(2000, 5));
+        homeController.allMovies = homeController.movieCatalog.asList();
+        List<Movie> copy = new ArrayList<>(homeController.allMovies);
+        String director = copy.get(0).getDirectors().get(0);
+
+        // when, then
+        assertEquals(homeController.getMostPopularActor(copy), homeController.getMostPopularActor(homeController.allMovies));
+        assertEquals(homeController.countMoviesFrom(copy, director), homeController.countMoviesFrom(homeController.allMovies, director));
+        assertEquals(homeController.getLongestMovieTitle(copy), homeController.getLongestMovieTitle(homeController.allMovies));
+        assertEquals(homeController.getMoviesBetweenYears(copy, 1990, 2000), homeController.getMoviesBetweenYears(homeController.allMovies, 1990, 2000));
+        assertEquals(homeController.filterByGenre(copy, Genre.DRAMA), homeController.filterByGenre(homeController.allMovies, Genre.DRAMA));
+    }
+
+    @Test
+    void sort_choices_order_the_movies_by_their_keys() {
+        // given
+        homeController.initializeState();
+
+        try {
+            for (List<MovieSorter.SortOrder> orders : HomeController.SORT_CHOICES.values()) {
+                // when
+                homeController.sortBy(orders);
+
+                // then
+                List<Movie> expected = new ArrayList<>(homeController.allMovies);
+                expected.sort(MovieSorter.comparator(orders));
+                assertEquals(expected, homeController.observableMovies);
+            }
+        } finally {
+            homeController.sortBy(HomeController.SORT_CHOICES.get("Title"));
+        }
+    }
+
+    @Test
+    void a_refresh_with_a_few_changes_is_merged_into_the_shown_catalogue() {
+        // given
+        HomeController controller = new HomeController() {
+            @Override
+            protected void applyCurrentFilters() {
+                // there are no controls to read the filters from
+                applyAllFilters(null, null, null, null);
+            }
+        };
+        List<Movie> movies = MovieFixtures.generate(2000, 23);
+        controller.catalogue.replace(movies);
+        controller.showLatestSnapshot();
+        controller.sortBy(List.of(MovieSorter.SortOrder.ascending(MovieSorter.Key.TITLE)));
+        CatalogueSnapshot base = controller.catalogue.current();
+
+        List<Movie> refreshed = new ArrayList<>(movies);
+        Movie renamed = refreshed.get(5);
+        refreshed.set(5, new Movie(renamed.getId(), "Aaa renamed", renamed.getDescription(), renamed.getGenres(),
+                renamed.getReleaseYear(), renamed.getImgUrl(), renamed.getLengthInMinutes(), renamed.getDirectors(),
+                renamed.getWriters(), renamed.getMainCast(), renamed.getRating()));
+        Movie removed = refreshed.remove(7);
+        refreshed.add(new Movie("added", "Zzz added", "a movie that is new in the refresh", List.of(Genre.DRAMA),
+                2024, null, 90, List.of(), List.of(), List.of(), 7.0));
+
+        // when
+        CatalogueSnapshot next = controller.refreshedSnapshot(base, refreshed);
+        assertTrue(controller.catalogue.publish(base, next));
+        controller.showLatestSnapshot();
+
+        // then: merged into the index of base instead of indexing every movie again
+        assertTrue(next.getIndex().extendsIndex(base.getIndex()));
+        assertEquals(2, next.getIndex().getTailSize());
+        assertNull(controller.refreshedSnapshot(next, refreshed));
+        List<Movie> expected = new ArrayList<>(refreshed);
+        expected.sort(MovieSorter.comparator(List.of(MovieSorter.SortOrder.ascending(MovieSorter.Key.TITLE))));
+        assertEquals(expected, controller.observableMovies);
+        assertEquals("Aaa renamed", controller.observableMovies.get(0).getTitle());
+        assertFalse(controller.observableMovies.contains(removed));
+        assertEquals(List.of("added"), controller.filterByQuery(controller.allMovies, "zzz added").stream()
+                .map(Movie::getId).toList());
+    }
+
+    @Test
+    void filtering_keeps_the_sort_direction() {
+        // given
+        homeController.initializeState();
+        homeController.sortedState = SortedState.NONE;
+        homeController.sortMovies();
+
+        // when
+        homeController.applyAllFilters("", Genre.DRAMA, null, null);
+
+        // then
+        assertEquals(SortedState.ASCENDING, homeController.sortedState);
+        List<Movie> expected = new ArrayList<>(homeController.observableMovies);
+        expected.sort(Comparator.comparing(Movie::getTitle));
+        assertEquals(expected, homeController.observableMovies);
+    }
+
+}
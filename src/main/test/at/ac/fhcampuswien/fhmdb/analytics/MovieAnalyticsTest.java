@@ -0,0 +1,92 @@
+package at.ac.fhcampuswien.fhmdb.analytics;
+
+import at.ac.fhcampuswien.fhmdb.fixture.MovieFixtures;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.models.MovieCatalog;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieAnalyticsTest {
+    // large enough to be split into several ranges
+    private final List<Movie> movies = MovieFixtures.generate(50_000, 3);
+    private final MovieCatalog catalog = MovieCatalog.of(movies);
+    private final MovieAnalytics.Summary summary = MovieAnalytics.summarize(catalog, new ForkJoinPool(4));
+
+    @Test
+    void counts_per_genre_and_decade_match_the_movies() {
+        Map<Genre, Integer> perGenre = new EnumMap<>(Genre.class);
+        SortedMap<Integer, Integer> perDecade = new TreeMap<>();
+        for (Movie movie : movies) {
+            new HashSet<>(movie.getGenres()).forEach(genre -> perGenre.merge(genre, 1, Integer::sum));
+            perDecade.merge(movie.getReleaseYear() / 10 * 10, 1, Integer::sum);
+        }
+
+        for (Genre genre : Genre.values()) {
+            assertEquals(perGenre.getOrDefault(genre, 0), summary.moviesPerGenre().get(genre));
+        }
+        assertEquals(perDecade, summary.moviesPerDecade());
+    }
+
+    @Test
+    void rating_histogram_counts_every_movie_once() {
+        int[] histogram = summary.ratingHistogram();
+
+        assertEquals(movies.size(), Arrays.stream(histogram).sum());
+        assertEquals(movies.stream().filter(movie -> movie.getRating() >= 9).count(), histogram[9]);
+    }
+
+    @Test
+    void top_actors_are_the_most_frequent_cast_members() {
+        Map<String, Long> counts = movies.stream()
+                .flatMap(movie -> movie.getMainCast().stream())
+                .collect(Collectors.groupingBy(name -> name, Collectors.counting()));
+
+        List<MovieAnalytics.PersonCount> top = summary.topActors(5);
+
+        assertEquals(5, top.size());
+        long maximum = Collections.max(counts.values());
+        assertEquals(maximum, top.get(0).count());
+        for (MovieAnalytics.PersonCount person : top) {
+            assertEquals(counts.get(person.name()), person.count());
+        }
+        for (int i = 1; i < top.size(); i++) {
+            assertTrue(top.get(i - 1).count() >= top.get(i).count());
+        }
+    }
+
+    @Test
+    void directors_are_counted_once_per_movie() {
+        String director = movies.get(0).getDirectors().get(0);
+
+        long expected = movies.stream().filter(movie -> movie.getDirectors().contains(director)).count();
+
+        assertEquals(expected, summary.moviesFrom(director));
+        assertEquals(0, summary.moviesFrom("Nobody"));
+    }
+
+    @Test
+    void longest_title_and_rows_between_years() {
+        int[] rows = MovieAnalytics.rowsBetweenYears(catalog, 1990, 1999);
+
+        assertEquals(movies.stream().mapToInt(movie -> movie.getTitle().length()).max().orElse(0), summary.getLongestTitle());
+        assertEquals(movies.stream().filter(movie -> movie.getReleaseYear() / 10 == 199).count(), rows.length);
+        for (int i = 1; i < rows.length; i++) {
+            assertTrue(rows[i - 1] < rows[i]);
+        }
+    }
+
+    @Test
+    void empty_catalogue_has_empty_statistics() {
+        MovieAnalytics.Summary empty = MovieAnalytics.summarize(MovieCatalog.of(List.of()));
+
+        assertEquals(0, empty.getMovies());
+        assertTrue(empty.topActors(3).isEmpty());
+        assertTrue(empty.moviesPerDecade().isEmpty());
+    }
+}
@@ -0,0 +1,75 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogueCacheTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void load_without_snapshot_returns_null() {
+        CatalogueCache cache = new CatalogueCache(directory.resolve("catalogue.bin"), Duration.ofHours(1));
+        assertNull(cache.load());
+    }
+
+    @Test
+    void saved_catalogue_is_loaded_with_all_fields() throws IOException {
+        // given
+        CatalogueCache cache = new CatalogueCache(directory.resolve("catalogue.bin"), Duration.ofHours(1));
+        Movie avatar = new Movie("81d317b0", "Avatar", "A paraplegic Marine dispatched to the moon Pandora.",
+                Arrays.asList(Genre.ANIMATION, Genre.DRAMA, Genre.ACTION), 2009, "https://example.org/avatar.jpg", 162,
+                List.of("James Cameron"), List.of("James Cameron"), List.of("Sam Worthington", "Zoë Saldaña"), 7.9);
+        Movie withoutDetails = new Movie("Puss in Boots", null, List.of(Genre.COMEDY));
+
+        // when
+        cache.save(List.of(avatar, withoutDetails), "\"v1\"", null);
+        CatalogueCache.Snapshot snapshot = cache.load();
+
+        // then
+        assertNotNull(snapshot);
+        assertEquals("\"v1\"", snapshot.etag());
+        assertNull(snapshot.lastModified());
+        assertTrue(cache.isFresh(snapshot));
+        Movie loaded = snapshot.movies().get(0);
+        assertEquals(avatar, loaded);
+        assertEquals(avatar.getId(), loaded.getId());
+        assertEquals(avatar.getReleaseYear(), loaded.getReleaseYear());
+        assertEquals(avatar.getLengthInMinutes(), loaded.getLengthInMinutes());
+        assertEquals(avatar.getRating(), loaded.getRating());
+        assertEquals(avatar.getImgUrl(), loaded.getImgUrl());
+        assertEquals(avatar.getMainCast(), loaded.getMainCast());
+        assertNull(snapshot.movies().get(1).getDescription());
+    }
+
+    @Test
+    void null_genres_are_kept_and_a_loaded_snapshot_can_be_replaced() throws IOException {
+        CatalogueCache cache = new CatalogueCache(directory.resolve("catalogue.bin"), Duration.ofHours(1));
+        Movie withNullGenre = new Movie("Avatar", "Pandora", Arrays.asList(Genre.ACTION, null));
+        cache.save(List.of(withNullGenre), null, null);
+        assertEquals(List.of(withNullGenre), cache.load().movies());
+
+        // nothing keeps the file open after loading it
+        Movie other = new Movie("Puss in Boots", "Boots", List.of(Genre.COMEDY));
+        cache.save(List.of(other), "\"v2\"", null);
+        assertEquals(List.of(other), cache.load().movies());
+    }
+
+    @Test
+    void corrupt_snapshot_is_ignored() throws IOException {
+        Path file = directory.resolve("catalogue.bin");
+        Files.writeString(file, "not a catalogue");
+        assertNull(new CatalogueCache(file, Duration.ofHours(1)).load());
+    }
+}
@@ -0,0 +1,166 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieResponseCacheTest {
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<Movie> movies = Movie.initializeMovies();
+
+    private List<Movie> load(String query, Genre genre, String releaseYear, String ratingFrom) {
+        loads.incrementAndGet();
+        return movies;
+    }
+
+    @Test
+    void repeated_filters_are_answered_from_the_cache() throws IOException {
+        // given
+        MovieResponseCache cache = new MovieResponseCache(this::load, 10, Duration.ofMinutes(1));
+
+        // when
+        cache.fetchMovies("Wolf", Genre.DRAMA, "2013", "8");
+        List<Movie> actual = cache.fetchMovies(" wolf ", Genre.DRAMA, "2013", "8.0");
+
+        // then
+        assertEquals(movies, actual);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void least_recently_used_entry_is_evicted_when_the_cache_is_full() throws IOException {
+        // given
+        MovieResponseCache cache = new MovieResponseCache(this::load, 2, Duration.ofMinutes(1));
+        cache.fetchMovies("a", null, null, null);
+        cache.fetchMovies("b", null, null, null);
+        cache.fetchMovies("a", null, null, null);
+
+        // when
+        cache.fetchMovies("c", null, null, null);
+
+        // then
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNotNull(cache.getIfPresent(MovieResponseCache.FilterKey.of("a", null, null, null)));
+        assertNull(cache.getIfPresent(MovieResponseCache.FilterKey.of("b", null, null, null)));
+    }
+
+    @Test
+    void expired_entries_are_loaded_again() throws IOException {
+        MovieResponseCache cache = new MovieResponseCache(this::load, 10, Duration.ZERO);
+        cache.fetchMovies("a", null, null, null);
+        cache.fetchMovies("a", null, null, null);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void concurrent_identical_requests_share_one_load() throws Exception {
+        // given
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MovieResponseCache cache = new MovieResponseCache((query, genre, releaseYear, ratingFrom) -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return movies;
+        }, 10, Duration.ofMinutes(1));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // when
+        Future<List<Movie>> first = executor.submit(() -> cache.fetchMovies("a", null, null, null));
+        loading.await();
+        Future<List<Movie>> second = executor.submit(() -> cache.fetchMovies("A", null, null, null));
+        while (cache.getCoalesced() == 0) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        // then
+        assertEquals(movies, first.get(5, TimeUnit.SECONDS));
+        assertEquals(movies, second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        executor.shutdown();
+    }
+
+    @Test
+    void loads_running_while_the_cache_is_invalidated_are_neither_cached_nor_joined() throws Exception {
+        // given
+        List<Movie> refreshed = List.of(movies.get(0));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MovieResponseCache cache = new MovieResponseCache((query, genre, releaseYear, ratingFrom) -> {
+            if (loads.incrementAndGet() > 1) {
+                return refreshed;
+            }
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return movies;
+        }, 10, Duration.ofMinutes(1));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // when
+        Future<List<Movie>> stale = executor.submit(() -> cache.fetchMovies("a", null, null, null));
+        loading.await();
+        cache.invalidateAll();
+        List<Movie> fresh = cache.fetchMovies("a", null, null, null);
+        release.countDown();
+
+        // then
+        assertEquals(movies, stale.get(5, TimeUnit.SECONDS));
+        assertEquals(refreshed, fresh);
+        assertEquals(0, cache.getCoalesced());
+        assertEquals(refreshed, cache.fetchMovies("a", null, null, null));
+        assertEquals(2, loads.get());
+        executor.shutdown();
+    }
+
+    @Test
+    void failed_loads_are_not_cached() {
+        MovieResponseCache cache = new MovieResponseCache((query, genre, releaseYear, ratingFrom) -> {
+            loads.incrementAndGet();
+            throw new IOException("offline");
+        }, 10, Duration.ofMinutes(1));
+
+        assertEquals(List.of(), cache.getAllMovies("a", null, null, null));
+        assertEquals(List.of(), cache.getAllMovies("a", null, null, null));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void filters_that_are_not_numbers_are_passed_through_uncached() throws IOException {
+        List<String[]> received = new ArrayList<>();
+        MovieResponseCache cache = new MovieResponseCache((query, genre, releaseYear, ratingFrom) -> {
+            received.add(new String[]{releaseYear, ratingFrom});
+            return movies;
+        }, 10, Duration.ofMinutes(1));
+
+        assertEquals(movies, cache.fetchMovies("a", null, "19x5", null));
+        assertEquals(movies, cache.fetchMovies("a", null, null, "high"));
+        assertEquals(movies, cache.fetchMovies("a", null, "19x5", null));
+
+        assertNull(MovieResponseCache.FilterKey.of("a", null, "19x5", null));
+        assertEquals(3, received.size());
+        assertArrayEquals(new String[]{"19x5", null}, received.get(0));
+        assertArrayEquals(new String[]{null, "high"}, received.get(1));
+        assertEquals(0, cache.size());
+    }
+}
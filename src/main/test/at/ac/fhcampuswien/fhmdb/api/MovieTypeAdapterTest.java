@@ -0,0 +1,107 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import at.ac.fhcampuswien.fhmdb.fixture.MovieFixtures;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieTypeAdapterTest {
+    // Gson's reflection based binding, the adapter has to read and write the same documents
+    private static final Gson REFLECTIVE = new Gson();
+    private static final TypeToken<List<Movie>> MOVIES = new TypeToken<>() {
+    };
+
+    private static void assertSameFields(Movie expected, Movie actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getGenres(), actual.getGenres());
+        assertEquals(expected.getReleaseYear(), actual.getReleaseYear());
+        assertEquals(expected.getImgUrl(), actual.getImgUrl());
+        assertEquals(expected.getLengthInMinutes(), actual.getLengthInMinutes());
+        assertEquals(expected.getDirectors(), actual.getDirectors());
+        assertEquals(expected.getWriters(), actual.getWriters());
+        assertEquals(expected.getMainCast(), actual.getMainCast());
+        assertEquals(expected.getRating(), actual.getRating());
+    }
+
+    private static void assertSameFields(List<Movie> expected, List<Movie> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSameFields(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    void reads_what_the_reflective_binding_writes() throws IOException {
+        List<Movie> movies = MovieFixtures.generate(200, 11);
+        String json = REFLECTIVE.toJson(movies);
+        assertSameFields(movies, MovieJson.readMovies(new StringReader(json)));
+    }
+
+    @Test
+    void writes_what_the_reflective_binding_reads() throws IOException {
+        List<Movie> movies = MovieFixtures.generate(200, 13);
+        String json = MovieJson.GSON.toJson(movies, MOVIES.getType());
+        assertSameFields(movies, REFLECTIVE.fromJson(json, MOVIES.getType()));
+        assertSameFields(movies, MovieJson.readMovies(new StringReader(json)));
+    }
+
+    @Test
+    void null_and_missing_fields_get_defaults() throws IOException {
+        String json = "[{\"id\":null,\"title\":\"Avatar\",\"genres\":null,\"releaseYear\":null,\"rating\":null,"
+                + "\"mainCast\":[\"Sam Worthington\",null]},null]";
+
+        List<Movie> movies = MovieJson.readMovies(new StringReader(json));
+
+        Movie movie = movies.get(0);
+        assertNull(movie.getId());
+        assertEquals("Avatar", movie.getTitle());
+        assertNull(movie.getDescription());
+        assertEquals(List.of(), movie.getGenres());
+        assertEquals(0, movie.getReleaseYear());
+        assertEquals(0.0, movie.getRating());
+        assertEquals(List.of(), movie.getDirectors());
+        assertEquals(List.of("Sam Worthington"), movie.getMainCast());
+        assertNull(movies.get(1));
+    }
+
+    @Test
+    void unknown_genres_and_fields_are_skipped() throws IOException {
+        String json = "[{\"title\":\"Avatar\",\"genres\":[\"ACTION\",\"SPACE_OPERA\",3,\"DRAMA\"],"
+                + "\"budget\":{\"amount\":237000000},\"awards\":[1,2]}]";
+
+        Movie movie = MovieJson.readMovies(new StringReader(json)).get(0);
+
+        assertEquals(List.of(Genre.ACTION, Genre.DRAMA), movie.getGenres());
+        assertEquals("Avatar", movie.getTitle());
+    }
+
+    @Test
+    void null_genres_are_written_as_null_and_skipped_when_read() throws IOException {
+        Movie movie = new Movie("1", "Avatar", "", Arrays.asList(Genre.ACTION, null, Genre.DRAMA), 2009, "",
+                162, List.of(), List.of(), List.of(), 7.9);
+
+        String json = MovieJson.GSON.toJson(List.of(movie), MOVIES.getType());
+
+        assertTrue(json.contains("\"genres\":[\"ACTION\",null,\"DRAMA\"]"), json);
+        assertEquals(List.of(Genre.ACTION, Genre.DRAMA), MovieJson.readMovies(new StringReader(json)).get(0).getGenres());
+    }
+
+    @Test
+    void malformed_documents_fail() {
+        assertThrows(IOException.class, () -> MovieJson.readMovies(new StringReader("[{\"title\":\"Avatar\"")));
+        assertThrows(IllegalStateException.class, () -> MovieJson.readMovies(new StringReader("{\"title\":\"Avatar\"}")));
+        assertThrows(NumberFormatException.class,
+                () -> MovieJson.readMovies(new StringReader("[{\"releaseYear\":\"soon\"}]")));
+    }
+}
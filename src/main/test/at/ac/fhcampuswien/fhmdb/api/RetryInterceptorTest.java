@@ -0,0 +1,141 @@
+package at.ac.fhcampuswien.fhmdb.api;
+
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryInterceptorTest {
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    // the first failures requests are answered with 503, with retryAfter as Retry-After header if it is set
+    private volatile int failures;
+    private volatile String retryAfter;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            int status = requests.incrementAndGet() <= failures ? 503 : 200;
+            if (status == 503 && retryAfter != null) {
+                exchange.getResponseHeaders().set("Retry-After", retryAfter);
+            }
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    private static OkHttpClient client(int maxRetries) {
+        return new OkHttpClient.Builder()
+                .addInterceptor(new RetryInterceptor(maxRetries, Duration.ofMillis(1)))
+                .build();
+    }
+
+    @Test
+    void get_is_retried_until_it_succeeds() throws IOException {
+        failures = 2;
+        try (Response response = client(2).newCall(new Request.Builder().url(url()).build()).execute()) {
+            assertEquals(200, response.code());
+            assertEquals("ok", response.body().string());
+        }
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    void last_response_is_returned_once_the_retries_are_used_up() throws IOException {
+        failures = 5;
+        try (Response response = client(1).newCall(new Request.Builder().url(url()).build()).execute()) {
+            assertEquals(503, response.code());
+        }
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void retry_after_is_honored_and_a_long_one_returns_the_response() throws IOException {
+        failures = 1;
+        retryAfter = "0";
+        try (Response response = client(1).newCall(new Request.Builder().url(url()).build()).execute()) {
+            assertEquals(200, response.code());
+        }
+        assertEquals(2, requests.get());
+
+        requests.set(0);
+        retryAfter = "3600";
+        try (Response response = client(3).newCall(new Request.Builder().url(url()).build()).execute()) {
+            assertEquals(503, response.code());
+        }
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void retry_after_is_read_as_seconds_or_date() {
+        assertEquals(2000, RetryInterceptor.retryAfterMillis(response(503, "2")));
+        assertEquals(Long.MAX_VALUE, RetryInterceptor.retryAfterMillis(response(429, "86400")));
+        assertEquals(0, RetryInterceptor.retryAfterMillis(response(429, "Wed, 21 Oct 2015 07:28:00 GMT")));
+        assertEquals(-1, RetryInterceptor.retryAfterMillis(response(503, "soon")));
+        assertEquals(-1, RetryInterceptor.retryAfterMillis(response(500, "2")));
+        assertEquals(-1, RetryInterceptor.retryAfterMillis(response(503, null)));
+    }
+
+    private Response response(int code, String retryAfter) {
+        Response.Builder builder = new Response.Builder()
+                .request(new Request.Builder().url(url()).build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("status " + code);
+        if (retryAfter != null) {
+            builder.header("Retry-After", retryAfter);
+        }
+        return builder.build();
+    }
+
+    @Test
+    void post_is_not_retried() throws IOException {
+        failures = 1;
+        Request post = new Request.Builder().url(url()).post(RequestBody.create(new byte[0])).build();
+        try (Response response = client(3).newCall(post).execute()) {
+            assertEquals(503, response.code());
+        }
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void settings_build_a_working_client() throws IOException {
+        failures = 1;
+        HttpClientSettings defaults = HttpClientSettings.defaults();
+        HttpClientSettings settings = new HttpClientSettings(2, Duration.ofSeconds(1), false, false,
+                defaults.connectTimeout(), defaults.readTimeout(), defaults.callTimeout(), 1, Duration.ofMillis(1),
+                4, 2, null, 0);
+        OkHttpClient client = settings.createClient();
+        try (Response response = client.newCall(new Request.Builder().url(url()).build()).execute()) {
+            assertEquals(200, response.code());
+            assertEquals("identity", response.request().header("Accept-Encoding"));
+        }
+        assertEquals(2, client.dispatcher().getMaxRequestsPerHost());
+    }
+}
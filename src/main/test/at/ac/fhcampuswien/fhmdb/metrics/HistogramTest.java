@@ -0,0 +1,72 @@
+package at.ac.fhcampuswien.fhmdb.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramTest {
+    @Test
+    void buckets_are_contiguous_and_cover_their_values() {
+        for (long value : new long[]{0, 1, 127, 128, 129, 255, 256, 1_000, 65_535, 1_000_000_007L, Long.MAX_VALUE}) {
+            int bucket = Histogram.bucket(value);
+            assertTrue(Histogram.highestValue(bucket) >= value, "bucket of " + value);
+            if (bucket > 0) {
+                assertTrue(Histogram.highestValue(bucket - 1) < value, "previous bucket of " + value);
+            }
+        }
+        for (int bucket = 1; bucket < Histogram.bucket(1L << 20); bucket++) {
+            assertEquals(Histogram.highestValue(bucket - 1) + 1, lowestValue(bucket));
+        }
+    }
+
+    private static long lowestValue(int bucket) {
+        long value = Histogram.highestValue(bucket);
+        while (value > 0 && Histogram.bucket(value - 1) == bucket) {
+            value--;
+        }
+        return value;
+    }
+
+    @Test
+    void percentiles_are_within_the_bucket_precision() {
+        Histogram histogram = new Histogram();
+        Random random = new Random(1);
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) (Math.exp(random.nextDouble() * 20));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(values[0], histogram.getMin());
+        assertEquals(values[values.length - 1], histogram.getMax());
+        for (double percentile : new double[]{50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long estimate = histogram.getValueAtPercentile(percentile);
+            assertTrue(estimate >= exact && estimate <= exact + exact / 64 + 1,
+                    "p" + percentile + ": " + estimate + " vs " + exact);
+        }
+        assertEquals(histogram.getMax(), histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void empty_histogram_reports_zero() {
+        Histogram histogram = new Histogram();
+        histogram.record(42);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMean());
+    }
+
+    @Test
+    void negative_values_are_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new Histogram().record(-1));
+    }
+}
@@ -0,0 +1,141 @@
+package at.ac.fhcampuswien.fhmdb.metrics;
+
+import at.ac.fhcampuswien.fhmdb.api.HttpClientSettings;
+import at.ac.fhcampuswien.fhmdb.api.MovieAPI;
+import at.ac.fhcampuswien.fhmdb.fixture.MovieFixtures;
+import at.ac.fhcampuswien.fhmdb.server.MovieServer;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void disable() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    void disabled_timer_records_nothing() {
+        Metrics.setEnabled(false);
+        Timer timer = Metrics.timer("test.disabled");
+        Timer.Sample start = timer.start();
+        timer.stop(start);
+        Metrics.counter("test.disabled").increment();
+
+        assertFalse(start.started());
+        assertEquals(0, timer.getHistogram().getCount());
+        assertEquals(0, Metrics.counter("test.disabled").get());
+    }
+
+    @Test
+    void enabled_timer_records_durations() throws InterruptedException {
+        Metrics.setEnabled(true);
+        Timer timer = Metrics.timer("test.enabled");
+        assertSame(timer, Metrics.timer("test.enabled"));
+
+        Timer.Sample start = timer.start();
+        Thread.sleep(5);
+        timer.stop(start);
+
+        assertEquals(1, timer.getHistogram().getCount());
+        assertTrue(timer.getHistogram().getMax() >= 5_000_000);
+    }
+
+    @Test
+    void api_calls_are_split_into_request_download_and_parse() throws IOException {
+        MovieServer movieServer = new MovieServer(MovieFixtures.generate(200, 5), 0);
+        movieServer.start();
+        MovieAPI.setBaseUrl(movieServer.getUrl());
+        try {
+            Metrics.setEnabled(true);
+            MovieAPI.fetchMovies(null, null, null, null);
+        } finally {
+            MovieAPI.setBaseUrl(null);
+            movieServer.stop();
+        }
+        for (String name : List.of("api.request", "api.download", "api.parse")) {
+            assertEquals(1, Metrics.timer(name).getHistogram().getCount(), name);
+        }
+    }
+
+    @Test
+    void streamed_api_calls_are_measured_and_their_failures_counted() throws IOException, InterruptedException {
+        MovieServer movieServer = new MovieServer(MovieFixtures.generate(200, 5), 0);
+        movieServer.start();
+        MovieAPI.setBaseUrl(movieServer.getUrl());
+        MovieAPI.configure(new HttpClientSettings(HttpClientSettings.defaults().maxIdleConnections(),
+                Duration.ofSeconds(1), false, true, Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ZERO, 0,
+                Duration.ofMillis(1), 4, 4, null, 0));
+        try {
+            Metrics.setEnabled(true);
+            CountDownLatch completed = new CountDownLatch(1);
+            MovieAPI.streamMoviesAsync(MovieAPI.moviesCall(null, null, null, null), 50, movies -> {
+            }, completed::countDown, e -> fail(e));
+            assertTrue(completed.await(10, TimeUnit.SECONDS));
+            for (String name : List.of("api.request", "api.download", "api.parse")) {
+                assertEquals(1, Metrics.timer(name).getHistogram().getCount(), name);
+            }
+
+            movieServer.setErrorRate(1);
+            CountDownLatch failed = new CountDownLatch(1);
+            MovieAPI.streamMoviesAsync(MovieAPI.moviesCall(null, null, null, null), 50, movies -> {
+            }, () -> fail("no movies expected"), e -> failed.countDown());
+            assertTrue(failed.await(10, TimeUnit.SECONDS));
+            assertEquals(1, Metrics.counter("api.failures").get());
+        } finally {
+            MovieAPI.configure(HttpClientSettings.fromSystemProperties());
+            MovieAPI.setBaseUrl(null);
+            movieServer.stop();
+        }
+    }
+
+    @Test
+    void report_is_written_to_a_file() throws IOException {
+        Metrics.setEnabled(true);
+        Metrics.timer("test.dump").record(2_000_000);
+        Metrics.counter("test.dump").add(3);
+
+        Path file = directory.resolve("metrics/report.txt");
+        Metrics.dump(file);
+        String report = Files.readString(file);
+
+        assertTrue(report.contains("test.dump"));
+        assertTrue(report.lines().anyMatch(line -> line.startsWith("test.dump") && line.contains("2.000")));
+        assertTrue(report.lines().anyMatch(line -> line.startsWith("test.dump") && line.trim().endsWith(" 3")));
+    }
+
+    @Test
+    void timers_emit_flight_recorder_events() throws IOException {
+        Path file = directory.resolve("metrics.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(TimerEvent.class);
+            recording.start();
+            Metrics.timer("test.jfr").record(1_234);
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("at.ac.fhcampuswien.fhmdb.Timer"))
+                .toList();
+        assertEquals(1, events.size());
+        assertEquals("test.jfr", events.get(0).getString("timer"));
+        assertEquals(1_234, events.get(0).getDuration("elapsed").toNanos());
+    }
+}
@@ -0,0 +1,90 @@
+package at.ac.fhcampuswien.fhmdb.models;
+
+import at.ac.fhcampuswien.fhmdb.fixture.MovieFixtures;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieCatalogTest {
+    private final List<Movie> movies = MovieFixtures.generate(500, 11);
+    private final MovieCatalog catalog = MovieCatalog.of(movies);
+
+    @Test
+    void views_have_the_same_fields_as_the_movies() {
+        for (int row = 0; row < movies.size(); row++) {
+            Movie movie = movies.get(row);
+            Movie view = catalog.get(row);
+            assertEquals(movie.getId(), view.getId());
+            assertEquals(movie.getTitle(), view.getTitle());
+            assertEquals(movie.getDescription(), view.getDescription());
+            assertEquals(movie.getReleaseYear(), view.getReleaseYear());
+            assertEquals(movie.getLengthInMinutes(), view.getLengthInMinutes());
+            assertEquals(movie.getRating(), view.getRating());
+            assertEquals(movie.getImgUrl(), view.getImgUrl());
+            assertEquals(movie.getDirectors(), view.getDirectors());
+            assertEquals(movie.getWriters(), view.getWriters());
+            assertEquals(movie.getMainCast(), view.getMainCast());
+            assertEquals(MovieCatalog.genreMask(movie.getGenres()), MovieCatalog.genreMask(view.getGenres()));
+        }
+    }
+
+    @Test
+    void genres_of_a_view_keep_their_order() {
+        MovieCatalog catalog = MovieCatalog.of(List.of(
+                new Movie("Title", "Description", Arrays.asList(Genre.WAR, Genre.ACTION, Genre.DRAMA))));
+
+        List<Genre> genres = catalog.get(0).getGenres();
+
+        assertEquals(List.of(Genre.WAR, Genre.ACTION, Genre.DRAMA), genres);
+        assertTrue(catalog.hasGenre(0, Genre.WAR));
+        assertFalse(catalog.hasGenre(0, Genre.COMEDY));
+    }
+
+    @Test
+    void views_equal_the_movies_and_are_matched_by_row() {
+        assertEquals(movies, catalog.asList());
+        assertNotSame(catalog.get(3), catalog.get(3));
+        assertEquals(MovieCatalog.rowKey(catalog.get(3)), MovieCatalog.rowKey(catalog.get(3)));
+        assertNotEquals(MovieCatalog.rowKey(catalog.get(3)), MovieCatalog.rowKey(MovieCatalog.of(movies).get(3)));
+        assertNull(MovieCatalog.rowKey(movies.get(3)));
+    }
+
+    @Test
+    void every_name_is_stored_once() {
+        List<String> names = new ArrayList<>();
+        for (Movie movie : movies) {
+            for (List<String> people : List.of(movie.getDirectors(), movie.getWriters(), movie.getMainCast())) {
+                for (String person : people) {
+                    if (!names.contains(person)) {
+                        names.add(person);
+                    }
+                }
+            }
+        }
+
+        assertEquals(names.size(), catalog.personCount());
+        for (String name : names) {
+            assertEquals(name, catalog.person(catalog.personId(name)));
+        }
+        assertEquals(-1, catalog.personId("Nobody"));
+    }
+
+    @Test
+    void directors_can_be_looked_up_by_person_id() {
+        String director = movies.get(0).getDirectors().get(0);
+        int person = catalog.personId(director);
+
+        for (int row = 0; row < movies.size(); row++) {
+            assertEquals(movies.get(row).getDirectors().contains(director), catalog.directors().contains(row, person));
+        }
+    }
+
+    @Test
+    void null_movies_are_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> MovieCatalog.of(Arrays.asList(movies.get(0), null)));
+    }
+}
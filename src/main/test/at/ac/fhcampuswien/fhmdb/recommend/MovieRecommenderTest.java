@@ -0,0 +1,108 @@
+package at.ac.fhcampuswien.fhmdb.recommend;
+
+import at.ac.fhcampuswien.fhmdb.fixture.MovieFixtures;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.search.MovieIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieRecommenderTest {
+    private final List<Movie> movies = MovieFixtures.generate(3000, 19);
+
+    // same movie with another id and title, one member of the cast replaced
+    private static Movie variant(Movie movie, int number) {
+        List<String> cast = new ArrayList<>(movie.getMainCast());
+        cast.set(0, "Someone Else " + number);
+        return new Movie("variant-" + number, "Variant " + number, movie.getDescription(), movie.getGenres(),
+                movie.getReleaseYear(), movie.getImgUrl(), movie.getLengthInMinutes(), movie.getDirectors(),
+                movie.getWriters(), cast, movie.getRating());
+    }
+
+    private static List<Integer> docs(List<MovieRecommender.Recommendation> recommendations) {
+        return recommendations.stream().map(MovieRecommender.Recommendation::doc).toList();
+    }
+
+    @Test
+    void jaccard_of_people() {
+        Movie movie = movies.get(0);
+        assertEquals(1.0, MovieRecommender.jaccard(MovieRecommender.people(movie), MovieRecommender.people(movie)));
+        assertEquals(0.0, MovieRecommender.jaccard(new long[]{1, 2}, new long[]{3}));
+        assertEquals(0.5, MovieRecommender.jaccard(new long[]{1, 2, 3}, new long[]{2, 3, 4}));
+    }
+
+    @Test
+    void people_whose_names_have_the_same_string_hash_stay_apart() {
+        assertEquals("agunbzo".hashCode(), "fbvcass".hashCode());
+        Movie first = new Movie("1", "First", "", List.of(Genre.DRAMA), 2000, "", 90, List.of(), List.of(),
+                List.of("Agunbzo"), 5.0);
+        Movie second = new Movie("2", "Second", "", List.of(Genre.DRAMA), 2000, "", 90, List.of(), List.of(),
+                List.of("Fbvcass"), 5.0);
+
+        assertEquals(0.0, MovieRecommender.jaccard(MovieRecommender.people(first), MovieRecommender.people(second)));
+    }
+
+    @Test
+    void similar_movies_are_found_and_ranked_first() {
+        List<Movie> catalogue = new ArrayList<>(movies);
+        Random random = new Random(3);
+        List<Integer> originals = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int doc = random.nextInt(movies.size());
+            originals.add(doc);
+            catalogue.add(variant(movies.get(doc), i));
+        }
+        MovieIndex index = new MovieIndex(catalogue);
+        MovieRecommender recommender = new MovieRecommender(index, new ForkJoinPool(2));
+
+        // the buckets are probabilistic, but a movie that differs in one person almost always shares one
+        int found = 0;
+        for (int i = 0; i < originals.size(); i++) {
+            List<MovieRecommender.Recommendation> similar = recommender.similarTo(movies.get(originals.get(i)), 5);
+            assertEquals(5, similar.size());
+            if (similar.get(0).doc() == movies.size() + i) {
+                found++;
+            }
+            for (int j = 1; j < similar.size(); j++) {
+                assertTrue(similar.get(j - 1).score() >= similar.get(j).score());
+            }
+        }
+        assertTrue(found >= 45, "found " + found);
+    }
+
+    @Test
+    void the_movie_itself_and_deleted_movies_are_not_recommended() {
+        Movie movie = movies.get(7);
+        List<Movie> catalogue = new ArrayList<>(movies);
+        catalogue.add(variant(movie, 1));
+        MovieIndex index = new MovieIndex(catalogue);
+        BitSet deleted = new BitSet();
+        deleted.set(movies.size());
+        MovieIndex changed = index.withChanges(deleted, List.of());
+
+        assertEquals(movies.size(), docs(new MovieRecommender(index).similarTo(movie, 1)).get(0));
+        List<Integer> similar = docs(new MovieRecommender(changed).similarTo(movie, 10));
+        assertFalse(similar.contains(7));
+        assertFalse(similar.contains(movies.size()));
+    }
+
+    @Test
+    void movies_without_people_get_movies_of_the_same_genres() {
+        MovieIndex index = new MovieIndex(movies);
+        MovieRecommender recommender = new MovieRecommender(index);
+        Movie movie = new Movie("nobody", "Nobody", "", movies.get(0).getGenres(), 2000, null, 90,
+                List.of(), List.of(), List.of(), 5.0);
+
+        List<MovieRecommender.Recommendation> similar = recommender.similarTo(movie, 3);
+        assertFalse(similar.isEmpty());
+        for (MovieRecommender.Recommendation recommendation : similar) {
+            assertEquals(new HashSet<>(movie.getGenres()), new HashSet<>(index.get(recommendation.doc()).getGenres()));
+        }
+        assertTrue(recommender.similarTo(new Movie("none", "None", "", List.of(Genre.DRAMA).subList(0, 0), 2000,
+                null, 90, List.of(), List.of(), List.of(), 5.0), 3).isEmpty());
+    }
+}
@@ -0,0 +1,138 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import at.ac.fhcampuswien.fhmdb.api.MovieAPI;
+import at.ac.fhcampuswien.fhmdb.fixture.MovieFixtures;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.server.MovieServer;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncMovieSearchTest {
+    private final List<Movie> movies = MovieFixtures.generate(500, 7);
+    private final MovieIndex index = new MovieIndex(movies);
+    private final ObservableList<Movie> target = FXCollections.observableArrayList();
+    // updates of the target list, run by the test thread in place of the FX thread
+    private final BlockingQueue<Runnable> fxThread = new LinkedBlockingQueue<>();
+    private final AsyncMovieSearch search = new AsyncMovieSearch(target, null, fxThread::add);
+    private MovieServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new MovieServer(movies, 0);
+        server.start();
+        MovieAPI.setBaseUrl(server.getUrl());
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop();
+        MovieAPI.setBaseUrl(null);
+    }
+
+    // runs the queued updates until the condition holds
+    private void runUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            Runnable update = fxThread.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            assertNotNull(update, "timed out");
+            update.run();
+        }
+    }
+
+    @Test
+    void a_newer_search_cancels_the_running_one() throws InterruptedException {
+        server.setLatency(200, 200);
+        AtomicBoolean firstPublished = new AtomicBoolean();
+        AtomicBoolean secondPublished = new AtomicBoolean();
+
+        search.search(null, Genre.DRAMA, null, null, () -> firstPublished.set(true));
+        search.search(null, Genre.COMEDY, null, null, () -> secondPublished.set(true));
+        runUntil(secondPublished::get);
+
+        assertEquals(index.query(null, Genre.COMEDY, null, null), target);
+        assertFalse(firstPublished.get());
+        assertEquals(1, search.getCancelledSearches());
+    }
+
+    @Test
+    void a_cancelled_search_never_publishes() throws InterruptedException {
+        server.setLatency(100, 100);
+        AtomicBoolean cancelledPublished = new AtomicBoolean();
+        AtomicBoolean nextPublished = new AtomicBoolean();
+
+        search.search(null, Genre.DRAMA, null, null, () -> cancelledPublished.set(true));
+        search.cancel();
+        assertEquals(1, search.getCancelledSearches());
+
+        // the search after it is not affected
+        search.search("the", null, null, null, () -> nextPublished.set(true));
+        runUntil(nextPublished::get);
+        assertEquals(index.query("the", null, null, null), target);
+        assertFalse(cancelledPublished.get());
+    }
+
+    @Test
+    void failed_responses_are_reported_and_keep_the_list() throws InterruptedException {
+        target.setAll(movies.subList(0, 3));
+        server.setErrorRate(1);
+        AtomicBoolean published = new AtomicBoolean();
+
+        search.search(null, Genre.DRAMA, null, null, () -> published.set(true));
+        runUntil(() -> search.getFailedSearches() == 1);
+
+        assertEquals(movies.subList(0, 3), target);
+        assertFalse(published.get());
+        assertEquals(0, search.getCompletedSearches());
+    }
+
+    @Test
+    void a_large_result_is_handed_over_as_pages() throws InterruptedException {
+        List<Movie> expected = index.query(null, null, null, null);
+        AtomicReference<MoviePageSource> pages = new AtomicReference<>();
+
+        search.search(null, null, null, null, 50, 100, pages::set, null);
+        runUntil(() -> pages.get() != null);
+
+        assertEquals(expected.size(), pages.get().size());
+        assertTrue(target.isEmpty());
+    }
+
+    @Test
+    void a_result_below_the_paging_threshold_is_streamed_as_a_whole() throws InterruptedException {
+        List<Movie> expected = index.query(null, Genre.DRAMA, null, null);
+        AtomicBoolean published = new AtomicBoolean();
+
+        search.search(null, Genre.DRAMA, null, null, 10, expected.size(), page -> fail("paged"),
+                () -> published.set(true));
+        runUntil(published::get);
+
+        assertEquals(expected, target);
+    }
+
+    @Test
+    void a_server_that_does_not_page_is_streamed_from_the_first_response() throws InterruptedException {
+        server.setPaging(false);
+        List<Movie> expected = index.query(null, null, null, null);
+        AtomicBoolean published = new AtomicBoolean();
+
+        search.search(null, null, null, null, 10, 100, page -> fail("paged"), () -> published.set(true));
+        runUntil(published::get);
+
+        assertEquals(expected, target);
+    }
+}
@@ -0,0 +1,79 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import at.ac.fhcampuswien.fhmdb.fixture.MovieFixtures;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FacetCounterTest {
+    private final List<Movie> movies = MovieFixtures.generate(2000, 9);
+    private final MovieIndex movieIndex = new MovieIndex(movies);
+
+    @Test
+    void every_facet_value_returns_as_many_movies_as_counted() {
+        // given
+        FacetCounter facetCounter = new FacetCounter(movieIndex);
+
+        // when
+        FacetCounter.Facets facets = facetCounter.count("the", Genre.DRAMA, null, 5.0);
+
+        // then
+        for (Map.Entry<Genre, Integer> genre : facets.genres().entrySet()) {
+            assertEquals(movieIndex.match("the", genre.getKey(), null, 5.0).cardinality(), genre.getValue());
+        }
+        for (Map.Entry<Integer, Integer> year : facets.releaseYears().entrySet()) {
+            assertEquals(movieIndex.match("the", Genre.DRAMA, year.getKey(), 5.0).cardinality(), year.getValue());
+        }
+        for (Map.Entry<Integer, Integer> rating : facets.ratingsFrom().entrySet()) {
+            assertEquals(movieIndex.match("the", Genre.DRAMA, null, (double) rating.getKey()).cardinality(), rating.getValue());
+        }
+    }
+
+    @Test
+    void values_without_movies_are_left_out() {
+        FacetCounter facetCounter = new FacetCounter(movieIndex);
+
+        FacetCounter.Facets facets = facetCounter.count(null, null, null, null);
+
+        assertFalse(facets.releaseYears().containsKey(2030));
+        assertTrue(facets.releaseYears().values().stream().allMatch(count -> count > 0));
+        assertEquals(movies.size(), facets.ratingsFrom().get(1));
+        assertEquals(facets.releaseYears().firstKey(), movies.stream().mapToInt(Movie::getReleaseYear).max().getAsInt());
+    }
+
+    @Test
+    void only_facets_whose_other_filters_changed_are_counted_again() {
+        // given
+        FacetCounter facetCounter = new FacetCounter(movieIndex);
+        facetCounter.count("the", null, null, null);
+        long computations = facetCounter.getComputations();
+
+        // when
+        facetCounter.count("the", Genre.COMEDY, null, null);
+
+        // then
+        assertEquals(computations + 2, facetCounter.getComputations());
+    }
+
+    @Test
+    void a_counter_started_from_the_unfiltered_facets_only_counts_once_filters_are_set() {
+        // given
+        FacetCounter.Facets unfiltered = new FacetCounter(movieIndex).count(null, null, null, null);
+        FacetCounter facetCounter = new FacetCounter(movieIndex, unfiltered);
+
+        // when
+        FacetCounter.Facets facets = facetCounter.count("", null, null, null);
+
+        // then
+        assertSame(unfiltered.genres(), facets.genres());
+        assertEquals(0, facetCounter.getComputations());
+        assertEquals(new FacetCounter(movieIndex).count(null, Genre.DRAMA, null, null),
+                facetCounter.count(null, Genre.DRAMA, null, null));
+        assertEquals(2, facetCounter.getComputations());
+    }
+}
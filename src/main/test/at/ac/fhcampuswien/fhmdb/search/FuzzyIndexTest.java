@@ -0,0 +1,136 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import at.ac.fhcampuswien.fhmdb.fixture.MovieFixtures;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FuzzyIndexTest {
+    private static Movie movie(String title, List<String> mainCast) {
+        return new Movie(title.toLowerCase(), title, "", List.of(Genre.DRAMA), 2000, null, 100,
+                List.of(), List.of(), mainCast, 5.0);
+    }
+
+    private static List<String> titles(MovieIndex index, int[] docs) {
+        List<String> titles = new ArrayList<>();
+        for (int doc : docs) {
+            titles.add(index.get(doc).getTitle());
+        }
+        return titles;
+    }
+
+    @Test
+    void distance_is_bounded() {
+        assertEquals(3, FuzzyIndex.distance("kitten", "sitting", 3));
+        assertEquals(1, FuzzyIndex.distance("avtar", "avatar", 2));
+        assertEquals(0, FuzzyIndex.distance("alien", "alien", 0));
+        assertEquals(2, FuzzyIndex.distance("kitten", "sitting", 1));
+        assertEquals(3, FuzzyIndex.distance("abc", "abcdefgh", 2));
+    }
+
+    @Test
+    void typos_in_titles_and_names_are_found() {
+        MovieIndex index = new MovieIndex(MovieFixtures.sample());
+        FuzzyIndex fuzzyIndex = new FuzzyIndex(index);
+
+        assertEquals(List.of("Avatar"), titles(index, fuzzyIndex.search("avtar", 10)));
+        assertEquals(List.of("The Godfather"), titles(index, fuzzyIndex.search("Godfahter", 10)));
+        assertEquals(Set.of("Avatar", "Alien"), new HashSet<>(titles(index, fuzzyIndex.search("sigorny weavr", 10))));
+        assertEquals(0, fuzzyIndex.search("xyzzy", 10).length);
+        assertEquals(0, fuzzyIndex.search("  ", 10).length);
+    }
+
+    @Test
+    void closer_matches_and_titles_rank_first() {
+        MovieIndex index = new MovieIndex(List.of(
+                movie("Marlon", List.of()),
+                movie("Something Else", List.of("Marion Cotillard")),
+                movie("Mario", List.of()),
+                movie("Another One", List.of("Marlon Brando"))));
+        FuzzyIndex fuzzyIndex = new FuzzyIndex(index);
+
+        // exact title, exact name, one edit in a name, two edits in a title
+        assertEquals(List.of("Marlon", "Another One", "Something Else", "Mario"),
+                titles(index, fuzzyIndex.search("marlon", 10)));
+        assertEquals(List.of("Marlon", "Another One"), titles(index, fuzzyIndex.search("marlon", 2)));
+    }
+
+    @Test
+    void deleted_docs_are_not_found() {
+        MovieIndex index = new MovieIndex(List.of(movie("Avatar", List.of()), movie("Alien", List.of())));
+        BitSet deleted = new BitSet();
+        deleted.set(0);
+        MovieIndex changed = index.withChanges(deleted, List.of(movie("Avatar 2", List.of())));
+
+        assertEquals(List.of("Avatar 2"), titles(changed, new FuzzyIndex(changed).search("avatr", 10)));
+    }
+
+    @Test
+    void query_words_too_short_for_trigrams_are_found_by_bigrams() {
+        MovieIndex small = new MovieIndex(List.of(
+                movie("Matrix", List.of()), movie("Xyz Abab", List.of("Max Atrix")), movie("Ba Baba", List.of())));
+        FuzzyIndex smallIndex = new FuzzyIndex(small);
+        List<Movie> movies = new ArrayList<>(MovieFixtures.generate(2000, 23));
+        movies.addAll(small.asList());
+        FuzzyIndex fuzzyIndex = new FuzzyIndex(new MovieIndex(movies));
+
+        // six letters allow two edits and three letters one, "ababab" has too few distinct grams for either filter
+        assertEquals(List.of("Matrix", "Xyz Abab"), titles(small, smallIndex.search("mtarix", 10)));
+        assertEquals(List.of("Xyz Abab", "Ba Baba"), titles(small, smallIndex.search("ababab", 10)));
+        for (String query : List.of("matrix", "mtarix", "xyz", "xya", "abc", "ababab", "stones", "wolf")) {
+            Set<Integer> actual = new HashSet<>();
+            Arrays.stream(fuzzyIndex.search(query, Integer.MAX_VALUE)).forEach(actual::add);
+            assertEquals(matchingEveryWord(movies, query), actual, query);
+        }
+    }
+
+    @Test
+    void results_are_the_same_as_comparing_every_word() {
+        List<Movie> movies = MovieFixtures.generate(2000, 23);
+        MovieIndex index = new MovieIndex(movies);
+        FuzzyIndex fuzzyIndex = new FuzzyIndex(index);
+        Random random = new Random(7);
+
+        for (int round = 0; round < 50; round++) {
+            Movie movie = movies.get(random.nextInt(movies.size()));
+            List<String> words = TextIndex.tokenize(movie.getTitle() + " " + String.join(" ", movie.getMainCast()));
+            String word = words.get(random.nextInt(words.size()));
+            // one random edit
+            StringBuilder typo = new StringBuilder(word);
+            int position = random.nextInt(word.length());
+            switch (random.nextInt(3)) {
+                case 0 -> typo.deleteCharAt(position);
+                case 1 -> typo.insert(position, (char) ('a' + random.nextInt(26)));
+                default -> typo.setCharAt(position, (char) ('a' + random.nextInt(26)));
+            }
+            String query = typo.toString();
+
+            Set<Integer> actual = new HashSet<>();
+            Arrays.stream(fuzzyIndex.search(query, Integer.MAX_VALUE)).forEach(actual::add);
+            assertEquals(matchingEveryWord(movies, query), actual, query);
+        }
+    }
+
+    // docs with a word within the allowed distance of the query, by comparing it with every word of every movie
+    private static Set<Integer> matchingEveryWord(List<Movie> movies, String query) {
+        Set<Integer> expected = new HashSet<>();
+        int maxDistance = FuzzyIndex.maxDistance(query.length());
+        for (int doc = 0; doc < movies.size(); doc++) {
+            Movie candidate = movies.get(doc);
+            List<String> candidateWords = new ArrayList<>(TextIndex.tokenize(candidate.getTitle()));
+            candidate.getMainCast().forEach(name -> candidateWords.addAll(TextIndex.tokenize(name)));
+            candidate.getDirectors().forEach(name -> candidateWords.addAll(TextIndex.tokenize(name)));
+            for (String candidateWord : candidateWords) {
+                if (FuzzyIndex.distance(query, candidateWord, maxDistance) <= maxDistance) {
+                    expected.add(doc);
+                    break;
+                }
+            }
+        }
+        return expected;
+    }
+}
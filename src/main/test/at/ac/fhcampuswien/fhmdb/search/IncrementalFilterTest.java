@@ -0,0 +1,43 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalFilterTest {
+    private final MovieIndex movieIndex = new MovieIndex(Movie.initializeMovies());
+
+    @Test
+    void stricter_filters_refine_the_previous_result() {
+        // given
+        IncrementalFilter filter = new IncrementalFilter(movieIndex);
+        filter.apply("li", null, null, null);
+
+        // when
+        List<Movie> actual = movieIndex.toMovies(filter.apply("lif", Genre.DRAMA, null, null));
+
+        // then
+        assertEquals(movieIndex.query("lif", Genre.DRAMA, null, null), actual);
+        assertEquals(1, filter.getRefinements());
+        assertEquals(1, filter.getFullSearches());
+    }
+
+    @Test
+    void looser_filters_search_the_whole_catalogue() {
+        // given
+        IncrementalFilter filter = new IncrementalFilter(movieIndex);
+        filter.apply("life", Genre.DRAMA, null, null);
+
+        // when
+        List<Movie> actual = movieIndex.toMovies(filter.apply("li", null, null, null));
+
+        // then
+        assertEquals(movieIndex.query("li", null, null, null), actual);
+        assertEquals(0, filter.getRefinements());
+        assertEquals(2, filter.getFullSearches());
+    }
+}
@@ -0,0 +1,73 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieIndexTest {
+    private static List<Movie> movies;
+    private static MovieIndex movieIndex;
+
+    @BeforeAll
+    static void init() {
+        movies = Arrays.asList(
+                movie("1", "Avatar", "A paraplegic Marine dispatched to the moon Pandora.", 2009, 7.9, Genre.ANIMATION, Genre.DRAMA, Genre.ACTION),
+                movie("2", "Life Is Beautiful", "A Jewish librarian and his son become victims of the Holocaust.", 1997, 8.6, Genre.DRAMA, Genre.ROMANCE),
+                movie("3", "Puss in Boots", "An outlaw cat sets out in search for the eggs of the Golden Goose.", 2011, 6.6, Genre.COMEDY, Genre.FAMILY, Genre.ANIMATION),
+                movie("4", "The Usual Suspects", "A sole survivor tells of the twisty events leading up to a gun battle.", 1995, 8.5, Genre.CRIME, Genre.DRAMA, Genre.MYSTERY),
+                movie("5", "The Wolf of Wall Street", "Jordan Belfort, from his rise to a wealthy stock-broker living the high life.", 2013, 8.2, Genre.DRAMA, Genre.ROMANCE, Genre.BIOGRAPHY)
+        );
+        movieIndex = new MovieIndex(movies);
+    }
+
+    static Movie movie(String id, String title, String description, int releaseYear, double rating, Genre... genres) {
+        return new Movie(id, title, description, Arrays.asList(genres), releaseYear, "", 120,
+                List.of("Director " + id), List.of("Writer " + id), List.of("Actor " + id, "Actor 0"), rating);
+    }
+
+    @Test
+    void query_without_filters_returns_all_movies() {
+        assertEquals(movies, movieIndex.query(null, null, null, null));
+    }
+
+    @Test
+    void query_matches_title_and_description_case_insensitive() {
+        // when
+        List<Movie> actual = movieIndex.query("IfE", null, null, null);
+
+        // then
+        assertEquals(List.of(movies.get(1), movies.get(4)), actual);
+    }
+
+    @Test
+    void genre_filter_returns_all_movies_containing_given_genre() {
+        assertEquals(4, movieIndex.query(null, Genre.DRAMA, null, null).size());
+    }
+
+    @Test
+    void release_year_filter_returns_movies_from_exactly_that_year() {
+        assertEquals(List.of(movies.get(2)), movieIndex.query(null, null, "2011", null));
+    }
+
+    @Test
+    void rating_filter_returns_movies_rated_at_least_the_given_value() {
+        assertEquals(List.of(movies.get(1), movies.get(3), movies.get(4)), movieIndex.query(null, null, null, "8.2"));
+    }
+
+    @Test
+    void all_filters_are_combined() {
+        assertEquals(List.of(movies.get(4)), movieIndex.query("wolf", Genre.DRAMA, "2013", "8.0"));
+        assertTrue(movieIndex.query("wolf", Genre.COMEDY, null, null).isEmpty());
+    }
+
+    @Test
+    void invalid_release_year_throws_exception() {
+        assertThrows(IllegalArgumentException.class, () -> movieIndex.query(null, null, "twenty", null));
+    }
+}
@@ -0,0 +1,91 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import at.ac.fhcampuswien.fhmdb.fixture.MovieFixtures;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static at.ac.fhcampuswien.fhmdb.search.MovieSorter.Key.*;
+import static at.ac.fhcampuswien.fhmdb.search.MovieSorter.SortOrder.ascending;
+import static at.ac.fhcampuswien.fhmdb.search.MovieSorter.SortOrder.descending;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieSorterTest {
+    private final MovieIndex movieIndex = new MovieIndex(MovieFixtures.generate(3000, 13));
+    private final MovieSorter movieSorter = new MovieSorter(movieIndex);
+
+    // a stable sort of the result in doc id order
+    private List<Movie> expected(BitSet docs, List<MovieSorter.SortOrder> orders) {
+        List<Movie> movies = new ArrayList<>(movieIndex.toMovies(docs));
+        movies.sort(MovieSorter.comparator(orders));
+        return movies;
+    }
+
+    private void assertSameOrder(List<Movie> expected, List<Movie> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            // views of the index are new objects, the ids of the generated movies are unique
+            assertEquals(expected.get(i).getId(), actual.get(i).getId(), "position " + i);
+        }
+    }
+
+    @Test
+    void large_results_are_sorted_by_every_key_in_both_directions() {
+        BitSet docs = movieIndex.match(null, Genre.DRAMA, null, null);
+
+        for (MovieSorter.Key key : MovieSorter.Key.values()) {
+            assertSameOrder(expected(docs, List.of(ascending(key))), movieSorter.sortedMovies(docs, List.of(ascending(key))));
+            assertSameOrder(expected(docs, List.of(descending(key))), movieSorter.sortedMovies(docs, List.of(descending(key))));
+        }
+    }
+
+    @Test
+    void small_results_are_sorted_the_same_way() {
+        BitSet docs = movieIndex.match("the", Genre.COMEDY, null, 8.0);
+        List<MovieSorter.SortOrder> orders = List.of(descending(RATING), ascending(TITLE));
+
+        assertSameOrder(expected(docs, orders), movieSorter.sortedMovies(docs, orders));
+    }
+
+    @Test
+    void ties_are_ordered_by_the_following_keys() {
+        BitSet docs = movieIndex.match(null, null, null, null);
+        List<MovieSorter.SortOrder> orders = List.of(descending(RELEASE_YEAR), descending(RATING), ascending(LENGTH));
+
+        assertSameOrder(expected(docs, orders), movieSorter.sortedMovies(docs, orders));
+    }
+
+    @Test
+    void orders_extended_by_appended_docs_match_orders_sorted_from_scratch() {
+        // the title order is computed before the first change and extended twice, release year and length
+        // are computed after the first change and extended once
+        movieSorter.sort(movieIndex.match(null, null, null, null), List.of(ascending(TITLE)));
+        BitSet deleted = new BitSet();
+        deleted.set(10, 60);
+        MovieIndex changed = movieIndex.withChanges(deleted, MovieFixtures.generate(300, 17));
+        MovieSorter extended = new MovieSorter(changed, movieSorter);
+        extended.sort(changed.match(null, null, null, null), List.of(ascending(RELEASE_YEAR), ascending(LENGTH)));
+        BitSet deletedAgain = new BitSet();
+        deletedAgain.set(3000, 3010);
+        MovieIndex changedAgain = changed.withChanges(deletedAgain, MovieFixtures.generate(50, 19));
+        MovieSorter extendedAgain = new MovieSorter(changedAgain, extended);
+
+        MovieSorter fromScratch = new MovieSorter(changedAgain);
+        BitSet docs = changedAgain.match(null, null, null, null);
+        for (MovieSorter.Key key : MovieSorter.Key.values()) {
+            List<MovieSorter.SortOrder> orders = List.of(descending(key), ascending(key == TITLE ? RATING : TITLE));
+            assertArrayEquals(fromScratch.sort(docs, orders), extendedAgain.sort(docs, orders), key.name());
+        }
+    }
+
+    @Test
+    void without_sort_orders_the_docs_stay_in_catalogue_order() {
+        BitSet docs = movieIndex.match(null, Genre.WAR, null, null);
+
+        assertSameOrder(movieIndex.toMovies(docs), movieSorter.sortedMovies(docs, List.of()));
+    }
+}
@@ -0,0 +1,96 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import at.ac.fhcampuswien.fhmdb.api.CatalogueCache;
+import at.ac.fhcampuswien.fhmdb.api.MovieAPI;
+import at.ac.fhcampuswien.fhmdb.fixture.MovieFixtures;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.server.MovieServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RemoteMoviePageSourceTest {
+    private final List<Movie> movies = MovieFixtures.generate(500, 7);
+    private MovieServer movieServer;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        movieServer = new MovieServer(movies, 0);
+        movieServer.start();
+        MovieAPI.setBaseUrl(movieServer.getUrl());
+    }
+
+    @AfterEach
+    void stopServer() {
+        movieServer.stop();
+        MovieAPI.setBaseUrl(null);
+    }
+
+    @Test
+    void pages_add_up_to_the_whole_result() throws IOException {
+        // given
+        List<Movie> expected = new MovieIndex(movies).query(null, Genre.DRAMA, null, null);
+        MoviePageSource source = RemoteMoviePageSource.open(null, Genre.DRAMA, null, null, 40, null);
+
+        // when
+        List<String> titles = new ArrayList<>();
+        for (int page = 0; page * 40 < source.size(); page++) {
+            source.loadPage(page, 40).forEach(movie -> titles.add(movie.getTitle()));
+        }
+
+        // then
+        assertEquals(expected.size(), source.size());
+        assertEquals(expected.stream().map(Movie::getTitle).toList(), titles);
+    }
+
+    @Test
+    void cached_catalogue_is_used_when_the_api_is_not_reachable(@TempDir Path directory) throws IOException {
+        // given
+        CatalogueCache cache = new CatalogueCache(directory.resolve("catalogue.bin"), Duration.ofMinutes(1));
+        cache.save(movies, null, null);
+        movieServer.stop();
+
+        // when
+        MoviePageSource source = RemoteMoviePageSource.open(null, null, "2000", null, 10, cache);
+
+        // then
+        List<Movie> expected = new MovieIndex(movies).query(null, null, "2000", null);
+        assertEquals(expected.size(), source.size());
+        assertEquals(expected.get(0).getId(), source.loadPage(0, 10).get(0).getId());
+    }
+
+    @Test
+    void result_of_a_server_that_does_not_page_is_downloaded_once() throws IOException {
+        // given
+        movieServer.setPaging(false);
+        List<Movie> expected = new MovieIndex(movies).query(null, Genre.DRAMA, null, null);
+
+        // when
+        MoviePageSource source = RemoteMoviePageSource.open(null, Genre.DRAMA, null, null, 40, null);
+        movieServer.stop();
+
+        // then the other pages are cut out of the first response
+        assertEquals(expected.size(), source.size());
+        assertEquals(expected.size(), source.loaded().size());
+        assertEquals(expected.get(45).getId(), source.loadPage(1, 40).get(5).getId());
+    }
+
+    @Test
+    void result_that_fits_into_the_first_page_is_loaded_right_away() throws IOException {
+        MoviePageSource small = RemoteMoviePageSource.open(null, null, "2000", null, 1000, null);
+        MoviePageSource large = RemoteMoviePageSource.open(null, null, null, null, 40, null);
+
+        assertEquals(new MovieIndex(movies).query(null, null, "2000", null).size(), small.loaded().size());
+        assertNull(large.loaded());
+    }
+}
@@ -0,0 +1,171 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchSchedulerTest {
+    private final ManualTimer timer = new ManualTimer();
+    private final List<String> searches = new ArrayList<>();
+
+    private SearchScheduler scheduler(Duration maxWait) {
+        return new SearchScheduler(timer, Runnable::run, maxWait, timer::nanoTime);
+    }
+
+    @Test
+    void a_burst_of_keystrokes_runs_one_search_for_the_last_text() {
+        // given
+        SearchScheduler scheduler = scheduler(Duration.ofSeconds(5));
+
+        // when
+        for (String text : List.of("g", "go", "god", "godf")) {
+            scheduler.submit(() -> searches.add(text), Duration.ofMillis(100));
+            timer.advance(Duration.ofMillis(50));
+        }
+        timer.advance(Duration.ofMillis(50));
+
+        // then
+        assertEquals(List.of("godf"), searches);
+        assertEquals(4, scheduler.getSubmitted());
+        assertEquals(1, scheduler.getExecuted());
+    }
+
+    @Test
+    void continuous_typing_still_searches_within_the_maximum_delay() {
+        // given
+        SearchScheduler scheduler = scheduler(Duration.ofMillis(150));
+
+        // when
+        for (int i = 0; i < 40; i++) {
+            String text = "text" + i;
+            scheduler.submit(() -> searches.add(text), Duration.ofMillis(100));
+            timer.advance(Duration.ofMillis(20));
+        }
+
+        // then: a search every 160 ms at the latest (150 ms plus the keystroke that scheduled it)
+        assertEquals(List.of("text7", "text15", "text23", "text31", "text39"), searches);
+    }
+
+    @Test
+    void cancelled_searches_dont_run() {
+        SearchScheduler scheduler = scheduler(Duration.ofSeconds(5));
+
+        scheduler.submit(() -> searches.add("text"), Duration.ofMillis(50));
+        scheduler.cancel();
+        timer.advance(Duration.ofSeconds(1));
+
+        assertTrue(searches.isEmpty());
+        assertEquals(0, scheduler.getExecuted());
+    }
+
+    // runs the scheduled tasks on the test thread when the test advances its clock, so nothing depends on
+    // how long the test takes. only schedule is supported
+    private static final class ManualTimer extends AbstractExecutorService implements ScheduledExecutorService {
+        private final List<Task> tasks = new ArrayList<>();
+        private long now;
+
+        long nanoTime() {
+            return now;
+        }
+
+        void advance(Duration duration) {
+            long until = now + duration.toNanos();
+            while (true) {
+                Task next = tasks.stream()
+                        .filter(task -> !task.isCancelled() && task.due <= until)
+                        .min(Task::compareTo)
+                        .orElse(null);
+                if (next == null) {
+                    break;
+                }
+                tasks.remove(next);
+                now = Math.max(now, next.due);
+                next.run();
+            }
+            now = until;
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            Task task = new Task(command, now + unit.toNanos(delay));
+            tasks.add(task);
+            return task;
+        }
+
+        @Override
+        public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period,
+                                                      TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay,
+                                                         TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            schedule(command, 0, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return false;
+        }
+
+        private final class Task extends FutureTask<Void> implements ScheduledFuture<Void> {
+            private final long due;
+
+            Task(Runnable command, long due) {
+                super(command, null);
+                this.due = due;
+            }
+
+            @Override
+            public long getDelay(TimeUnit unit) {
+                return unit.convert(due - now, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public int compareTo(Delayed other) {
+                return Long.compare(due, ((Task) other).due);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package at.ac.fhcampuswien.fhmdb.search;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextIndexTest {
+    private static TextIndex textIndex;
+
+    @BeforeAll
+    static void init() {
+        textIndex = new TextIndex(new String[]{
+                "avatar\u0000a paraplegic marine dispatched to the moon pandora.",
+                "life is beautiful\u0000a jewish librarian and his son.",
+                "the wolf of wall street\u0000a wealthy stock-broker living the high life."
+        });
+    }
+
+    private static BitSet docs(int... docs) {
+        BitSet result = new BitSet();
+        for (int doc : docs) {
+            result.set(doc);
+        }
+        return result;
+    }
+
+    @Test
+    void tokenize_splits_on_non_letters_and_lower_cases_terms() {
+        assertEquals(List.of("stock", "broker", "2023"), TextIndex.tokenize("Stock-Broker (2023)"));
+    }
+
+    @Test
+    void substring_query_has_same_semantics_as_contains() {
+        assertEquals(docs(1, 2), textIndex.containing("life"));
+        assertEquals(docs(0), textIndex.containing("aplegic mar"));
+        assertEquals(docs(1, 2), textIndex.containing("if"));
+        assertTrue(textIndex.containing("life is wolf").isEmpty());
+    }
+
+    @Test
+    void substring_query_is_restricted_to_candidates() {
+        assertEquals(docs(2), textIndex.containing("life", docs(0, 2)));
+    }
+
+    @Test
+    void term_and_prefix_lookups() {
+        assertEquals(docs(2), textIndex.withTerm("Wolf"));
+        assertTrue(textIndex.withTerm("wol").isEmpty());
+        assertEquals(docs(1, 2), textIndex.withPrefix("li"));
+        assertEquals(docs(0), textIndex.withPrefix("pand"));
+    }
+
+    @Test
+    void all_tokens_have_to_match() {
+        assertEquals(docs(2), textIndex.withAllTokens("wealthy li"));
+        assertTrue(textIndex.withAllTokens("wealthy moon").isEmpty());
+        assertTrue(textIndex.withAllTokens(" - ").isEmpty());
+    }
+}
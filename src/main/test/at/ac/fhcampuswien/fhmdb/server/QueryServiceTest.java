@@ -0,0 +1,117 @@
+package at.ac.fhcampuswien.fhmdb.server;
+
+import at.ac.fhcampuswien.fhmdb.api.MovieAPI;
+import at.ac.fhcampuswien.fhmdb.fixture.MovieFixtures;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.search.MovieIndex;
+import at.ac.fhcampuswien.fhmdb.sync.CatalogueSnapshot;
+import at.ac.fhcampuswien.fhmdb.sync.CatalogueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryServiceTest {
+    private final CatalogueStore catalogue = new CatalogueStore();
+    private QueryService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.stop();
+        }
+        MovieAPI.setBaseUrl(null);
+    }
+
+    private static HttpURLConnection get(String url, String etag) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        if (etag != null) {
+            connection.setRequestProperty("If-None-Match", etag);
+        }
+        return connection;
+    }
+
+    @Test
+    void answers_the_filters_like_the_index() throws IOException {
+        List<Movie> movies = MovieFixtures.generate(2000, 29);
+        catalogue.replace(movies);
+        service = new QueryService(catalogue, 0, 2, 8);
+        service.start();
+        MovieAPI.setBaseUrl(service.getUrl());
+        MovieIndex index = new MovieIndex(movies);
+
+        assertEquals(movies, MovieAPI.fetchMovies(null, null, null, null));
+        assertEquals(index.query("the", Genre.DRAMA, null, "5"), MovieAPI.fetchMovies("the", Genre.DRAMA, null, "5"));
+        assertEquals(index.query(null, null, "1995", null), MovieAPI.fetchMovies(null, null, "1995", null));
+        MovieAPI.MoviePage page = MovieAPI.fetchPage(null, Genre.DRAMA, null, null, 2, 10);
+        List<Movie> dramas = index.query(null, Genre.DRAMA, null, null);
+        assertEquals(dramas.subList(20, 30), page.movies());
+        assertEquals(dramas.size(), page.totalCount());
+        assertEquals(400, get(service.getUrl() + "?genre=NOPE", null).getResponseCode());
+    }
+
+    @Test
+    void serves_the_newest_snapshot_with_its_version_as_etag() throws IOException {
+        catalogue.replace(MovieFixtures.sample());
+        service = new QueryService(catalogue, 0, 2, 8);
+        service.start();
+        MovieAPI.setBaseUrl(service.getUrl());
+
+        String etag = get(service.getUrl(), null).getHeaderField("ETag");
+        assertEquals(304, get(service.getUrl(), etag).getResponseCode());
+
+        List<Movie> refreshed = MovieFixtures.sample().subList(0, 3);
+        catalogue.replace(refreshed);
+        assertEquals(200, get(service.getUrl(), etag).getResponseCode());
+        assertEquals(refreshed, MovieAPI.fetchMovies(null, null, null, null));
+    }
+
+    @Test
+    void requests_beyond_threads_and_queue_are_shed() throws Exception {
+        // the first request holds the only thread until the test lets it go
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CatalogueStore blocking = new CatalogueStore() {
+            @Override
+            public CatalogueSnapshot current() {
+                busy.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.current();
+            }
+        };
+        blocking.replace(MovieFixtures.sample());
+        service = new QueryService(blocking, 0, 1, 0);
+        service.start();
+
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return get(service.getUrl(), null).getResponseCode();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        assertTrue(busy.await(5, TimeUnit.SECONDS));
+
+        HttpURLConnection shed = get(service.getUrl() + "?query=the", null);
+        assertEquals(503, shed.getResponseCode());
+        assertEquals("1", shed.getHeaderField("Retry-After"));
+        assertEquals(1, service.getShed());
+
+        release.countDown();
+        assertEquals(200, first.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,119 @@
+package at.ac.fhcampuswien.fhmdb.sync;
+
+import at.ac.fhcampuswien.fhmdb.fixture.MovieFixtures;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogueStoreTest {
+    private final List<Movie> movies = MovieFixtures.generate(500, 17);
+
+    @Test
+    void snapshots_are_versioned_and_not_changed_by_the_next_one() {
+        CatalogueStore store = new CatalogueStore();
+        CatalogueSnapshot first = store.replace(movies);
+        CatalogueSnapshot second = store.replace(movies.subList(0, 100));
+
+        assertEquals(1, first.getVersion());
+        assertEquals(2, second.getVersion());
+        assertSame(second, store.current());
+        assertEquals(movies.size(), first.getMovies().size());
+        assertEquals(movies.size(), first.getIndex().liveCount());
+        assertEquals(movies.size(), first.getSummary().getMovies());
+        assertEquals(100, second.getSummary().getMovies());
+        assertThrows(UnsupportedOperationException.class, () -> first.getMovies().clear());
+    }
+
+    @Test
+    void outdated_updates_are_not_published() {
+        CatalogueStore store = new CatalogueStore();
+        CatalogueSnapshot base = store.replace(movies);
+        CatalogueSnapshot newer = store.replace(movies.subList(0, 10));
+
+        assertFalse(store.publish(base, base.next(movies.subList(0, 20))));
+        assertSame(newer, store.current());
+        assertEquals(1, store.getConflicts());
+    }
+
+    @Test
+    void snapshots_can_be_merged_from_a_sync() {
+        CatalogueStore store = new CatalogueStore();
+        CatalogueSnapshot base = store.replace(movies);
+        List<Movie> refreshed = new ArrayList<>(movies.subList(5, movies.size()));
+        CatalogueSync sync = new CatalogueSync(base.getIndex());
+        CatalogueSnapshot next = base.next(sync.apply(sync.diff(refreshed)));
+
+        assertTrue(store.publish(base, next));
+        assertEquals(refreshed.size(), store.current().getMovies().size());
+        assertEquals(refreshed.size(), store.current().getSummary().getMovies());
+    }
+
+    @Test
+    void readers_always_see_a_complete_snapshot_while_writers_publish() throws InterruptedException {
+        CatalogueStore store = new CatalogueStore();
+        store.replace(movies);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(2);
+
+        // every snapshot has as many movies as its version says, mixed parts would not add up
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (int round = 0; round < 20; round++) {
+                        store.update(snapshot -> snapshot.next(movies.subList(0, (int) (snapshot.getVersion() + 1) * 10)));
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }));
+        }
+        threads.add(new Thread(() -> {
+            while (running.get()) {
+                CatalogueSnapshot snapshot = store.current();
+                int expected = snapshot.getVersion() == 1 ? movies.size() : (int) snapshot.getVersion() * 10;
+                if (snapshot.getMovies().size() != expected || snapshot.getIndex().liveCount() != expected
+                        || snapshot.getCatalog().size() != expected) {
+                    failure.set("inconsistent snapshot " + snapshot.getVersion());
+                }
+            }
+        }));
+        threads.forEach(Thread::start);
+        done.await();
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(41, store.current().getVersion());
+        assertEquals(41, store.getPublished());
+    }
+
+    @Test
+    void the_fuzzy_index_of_a_snapshot_is_built_once_for_all_readers() throws InterruptedException {
+        CatalogueSnapshot snapshot = new CatalogueStore().replace(movies);
+        List<Thread> readers = new ArrayList<>();
+        List<Object> futures = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 8; i++) {
+            readers.add(new Thread(() -> futures.add(snapshot.getFuzzyIndex())));
+        }
+        readers.forEach(Thread::start);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertEquals(8, futures.stream().filter(future -> future == snapshot.getFuzzyIndex()).count());
+        assertTrue(snapshot.getFuzzyIndex().join().wordCount() > 0);
+        assertNull(CatalogueSnapshot.EMPTY.getFuzzyIndex());
+    }
+}
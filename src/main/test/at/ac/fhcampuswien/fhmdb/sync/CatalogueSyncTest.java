@@ -0,0 +1,145 @@
+package at.ac.fhcampuswien.fhmdb.sync;
+
+import at.ac.fhcampuswien.fhmdb.fixture.MovieFixtures;
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.search.MovieIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogueSyncTest {
+    private final List<Movie> movies = MovieFixtures.generate(3000, 11);
+
+    private static Movie withTitle(Movie movie, String title) {
+        return new Movie(movie.getId(), title, movie.getDescription(), movie.getGenres(), movie.getReleaseYear(),
+                movie.getImgUrl(), movie.getLengthInMinutes(), movie.getDirectors(), movie.getWriters(),
+                movie.getMainCast(), movie.getRating());
+    }
+
+    private static Movie withRating(Movie movie, double rating) {
+        return new Movie(movie.getId(), movie.getTitle(), movie.getDescription(), movie.getGenres(),
+                movie.getReleaseYear(), movie.getImgUrl(), movie.getLengthInMinutes(), movie.getDirectors(),
+                movie.getWriters(), movie.getMainCast(), rating);
+    }
+
+    // removes movies 0-9, renames 10-19, re-rates 20-29 and adds two new movies
+    private List<Movie> refreshed() {
+        List<Movie> refreshed = new ArrayList<>(movies.subList(10, movies.size()));
+        for (int i = 0; i < 10; i++) {
+            refreshed.set(i, withTitle(refreshed.get(i), "Zyxwv Renamed " + i));
+            refreshed.set(10 + i, withRating(refreshed.get(10 + i), 9.95));
+        }
+        refreshed.add(new Movie("new-1", "Brand New Film", "Qwerty plot", List.of(Genre.HORROR), 2030,
+                null, 90, List.of("A B"), List.of(), List.of(), 2.5));
+        refreshed.add(new Movie("new-2", "Another New Film", "Asdf plot", List.of(Genre.WESTERN), 1951,
+                null, 90, List.of(), List.of(), List.of(), 7.0));
+        return refreshed;
+    }
+
+    private static Set<String> ids(List<Movie> movies) {
+        Set<String> ids = new HashSet<>();
+        movies.forEach(movie -> ids.add(movie.getId()));
+        return ids;
+    }
+
+    private static Set<String> ids(MovieIndex index, BitSet docs) {
+        return ids(index.toMovies(docs));
+    }
+
+    @Test
+    void diff_finds_added_updated_and_removed_movies() {
+        CatalogueSync sync = new CatalogueSync(new MovieIndex(movies));
+        CatalogueDelta delta = sync.diff(refreshed());
+
+        assertEquals(Set.of("new-1", "new-2"), ids(delta.added()));
+        assertEquals(ids(movies.subList(10, 30)), ids(delta.updated()));
+        assertEquals(ids(movies.subList(0, 10)), new HashSet<>(delta.removed()));
+        assertTrue(sync.diff(movies).isEmpty());
+    }
+
+    @Test
+    void merged_index_answers_like_a_new_index() {
+        List<Movie> refreshed = refreshed();
+        MovieIndex base = new MovieIndex(movies);
+        CatalogueSync sync = new CatalogueSync(base);
+        MovieIndex merged = sync.apply(sync.diff(refreshed));
+        MovieIndex rebuilt = new MovieIndex(refreshed);
+
+        assertEquals(0, sync.getCompactions());
+        assertEquals(refreshed.size(), merged.liveCount());
+        assertEquals(22, merged.getTailSize());
+        assertEquals(ids(refreshed), ids(merged.query(null, null, null, null)));
+        List<String[]> filters = List.of(
+                new String[]{"zyxwv", null, null, null},
+                new String[]{"renamed 3", null, null, null},
+                new String[]{"plot", null, null, null},
+                new String[]{null, "HORROR", null, null},
+                new String[]{null, null, "1951", null},
+                new String[]{null, null, null, "9.5"},
+                new String[]{"the", "DRAMA", null, "5"},
+                new String[]{movies.get(0).getTitle().toLowerCase(), null, null, null});
+        for (String[] filter : filters) {
+            Genre genre = filter[1] == null ? null : Genre.valueOf(filter[1]);
+            assertEquals(ids(rebuilt.query(filter[0], genre, filter[2], filter[3])),
+                    ids(merged.query(filter[0], genre, filter[2], filter[3])), Arrays.toString(filter));
+        }
+        assertEquals(ids(rebuilt, rebuilt.matchTokens("zyxwv ren")), ids(merged, merged.matchTokens("zyxwv ren")));
+        assertEquals(ids(rebuilt, rebuilt.matchTokens(movies.get(1).getTitle())),
+                ids(merged, merged.matchTokens(movies.get(1).getTitle())));
+    }
+
+    @Test
+    void previous_index_is_not_changed() {
+        MovieIndex base = new MovieIndex(movies);
+        CatalogueSync sync = new CatalogueSync(base);
+        sync.apply(sync.diff(refreshed()));
+
+        assertEquals(movies.size(), base.liveCount());
+        assertEquals(ids(movies), ids(base.query(null, null, null, null)));
+        assertTrue(base.query("zyxwv", null, null, null).isEmpty());
+    }
+
+    @Test
+    void repeated_changes_compact_the_index() {
+        CatalogueSync sync = new CatalogueSync(new MovieIndex(movies));
+        List<Movie> current = movies;
+        for (int round = 0; round < 5; round++) {
+            List<Movie> next = new ArrayList<>(current);
+            for (int i = 0; i < 300; i++) {
+                next.set(i, withRating(next.get(i), 1 + round));
+            }
+            sync.apply(sync.diff(next));
+            current = next;
+        }
+
+        // every second round the tombstones and the tail exceed the limit
+        assertEquals(2, sync.getCompactions());
+        assertTrue(sync.diff(current).isEmpty());
+        MovieIndex rebuilt = new MovieIndex(current);
+        assertEquals(ids(rebuilt.query(null, null, null, "5")), ids(sync.getIndex().query(null, null, null, "5")));
+        assertEquals(ids(rebuilt.query("the", null, null, "4")), ids(sync.getIndex().query("the", null, null, "4")));
+    }
+
+    @Test
+    void catalogues_without_unique_ids_cannot_be_synced() {
+        Movie movie = movies.get(0);
+        assertTrue(CatalogueSync.canSync(movies));
+        assertFalse(CatalogueSync.canSync(List.of(movie, movie)));
+        assertFalse(CatalogueSync.canSync(List.of(new Movie("Title", "Description", List.of()))));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CatalogueSync(new MovieIndex(List.of(movie, movie))));
+    }
+
+    @Test
+    void fingerprint_covers_every_field() {
+        Movie movie = movies.get(0);
+        assertEquals(MovieFingerprint.of(movie), MovieFingerprint.of(withTitle(movie, movie.getTitle())));
+        assertNotEquals(MovieFingerprint.of(movie), MovieFingerprint.of(withRating(movie, movie.getRating() + 0.1)));
+        assertNotEquals(MovieFingerprint.of(movie), MovieFingerprint.of(withTitle(movie, movie.getTitle() + " ")));
+        // equal movies have equal hash codes
+        assertEquals(movie.hashCode(), withRating(movie, 1.0).hashCode());
+    }
+}
@@ -0,0 +1,32 @@
+package at.ac.fhcampuswien.fhmdb.ui;
+
+import at.ac.fhcampuswien.fhmdb.models.Genre;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenreTextTest {
+    @Test
+    void joins_the_genres_of_a_movie() {
+        Movie movie = new Movie("Title", "Description", List.of(Genre.DRAMA, Genre.SCIENCE_FICTION));
+
+        assertEquals("DRAMA, SCIENCE_FICTION", GenreText.of(movie));
+    }
+
+    @Test
+    void is_computed_once_per_movie() {
+        Movie movie = new Movie("Title", "Description", List.of(Genre.ACTION, Genre.WAR));
+
+        assertSame(GenreText.of(movie), GenreText.of(movie));
+    }
+
+    @Test
+    void movie_without_genres_has_an_empty_text() {
+        Movie movie = new Movie("Title", "Description", List.of());
+
+        assertEquals("", GenreText.of(movie));
+    }
+}
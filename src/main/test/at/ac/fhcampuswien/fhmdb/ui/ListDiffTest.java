@@ -0,0 +1,80 @@
+package at.ac.fhcampuswien.fhmdb.ui;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListDiffTest {
+    private final List<ListChangeListener.Change<? extends String>> changes = new ArrayList<>();
+
+    private ObservableList<String> observed(String... items) {
+        ObservableList<String> list = FXCollections.observableArrayList(items);
+        list.addListener((ListChangeListener<String>) change -> changes.add(change));
+        return list;
+    }
+
+    @Test
+    void narrowing_the_result_only_removes_items() {
+        // given
+        ObservableList<String> target = observed("a", "b", "c", "d", "e");
+
+        // when
+        ListDiff.apply(target, List.of(target.get(1), target.get(3)));
+
+        // then
+        assertEquals(List.of("b", "d"), target);
+        assertEquals(1, changes.size());
+        ListChangeListener.Change<? extends String> change = changes.get(0);
+        while (change.next()) {
+            assertTrue(change.wasRemoved());
+            assertFalse(change.wasAdded());
+        }
+    }
+
+    @Test
+    void widening_the_result_inserts_the_missing_items_in_place() {
+        // given
+        String a = "a", b = "b", c = "c", d = "d";
+        ObservableList<String> target = observed(b, d);
+
+        // when
+        ListDiff.apply(target, List.of(a, b, c, d));
+
+        // then
+        assertEquals(List.of("a", "b", "c", "d"), target);
+        assertEquals(2, changes.size());
+        for (ListChangeListener.Change<? extends String> change : changes) {
+            while (change.next()) {
+                assertTrue(change.wasAdded());
+                assertFalse(change.wasRemoved());
+                assertEquals(1, change.getAddedSize());
+            }
+        }
+    }
+
+    @Test
+    void changed_order_replaces_the_content() {
+        ObservableList<String> target = observed("a", "b", "c");
+        List<String> reversed = List.of(target.get(2), target.get(1), target.get(0));
+
+        ListDiff.apply(target, reversed);
+
+        assertEquals(reversed, target);
+        assertEquals(1, changes.size());
+    }
+
+    @Test
+    void unchanged_content_fires_no_change() {
+        ObservableList<String> target = observed("a", "b");
+
+        ListDiff.apply(target, new ArrayList<>(target));
+
+        assertTrue(changes.isEmpty());
+    }
+}
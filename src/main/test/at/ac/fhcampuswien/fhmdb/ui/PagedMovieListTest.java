@@ -0,0 +1,78 @@
+package at.ac.fhcampuswien.fhmdb.ui;
+
+import at.ac.fhcampuswien.fhmdb.fixture.MovieFixtures;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.search.LocalMoviePageSource;
+import at.ac.fhcampuswien.fhmdb.search.MoviePageSource;
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedMovieListTest {
+    private final List<Movie> movies = MovieFixtures.generate(1000, 1);
+
+    @Test
+    void rows_are_loaded_page_by_page() {
+        // given
+        List<Integer> loadedPages = new ArrayList<>();
+        MoviePageSource source = new LocalMoviePageSource(movies) {
+            @Override
+            public List<Movie> loadPage(int page, int pageSize) {
+                loadedPages.add(page);
+                return super.loadPage(page, pageSize);
+            }
+        };
+        PagedMovieList list = new PagedMovieList(source, 100, 4, Runnable::run, Runnable::run);
+
+        // when
+        Movie movie = list.get(450);
+
+        // then
+        assertEquals(1000, list.size());
+        assertSame(movies.get(450), movie);
+        assertEquals(List.of(4), loadedPages);
+    }
+
+    @Test
+    void pages_far_away_from_the_viewport_are_dropped() {
+        PagedMovieList list = new PagedMovieList(new LocalMoviePageSource(movies), 100, 3, Runnable::run, Runnable::run);
+
+        for (int index = 0; index < movies.size(); index++) {
+            assertSame(movies.get(index), list.get(index));
+        }
+
+        assertEquals(3, list.getLoadedPages());
+    }
+
+    @Test
+    void rows_of_a_page_that_is_still_loading_are_updated_once_it_arrives() {
+        // given
+        Queue<Runnable> pending = new ArrayDeque<>();
+        PagedMovieList list = new PagedMovieList(new LocalMoviePageSource(movies), 100, 4, Runnable::run, pending::add);
+        List<Integer> updated = new ArrayList<>();
+        list.addListener((ListChangeListener<Movie>) change -> {
+            while (change.next()) {
+                if (change.wasUpdated()) {
+                    for (int index = change.getFrom(); index < change.getTo(); index++) {
+                        updated.add(index);
+                    }
+                }
+            }
+        });
+
+        // when
+        Movie loading = list.get(250);
+        pending.forEach(Runnable::run);
+
+        // then
+        assertNull(loading);
+        assertTrue(updated.contains(250));
+        assertSame(movies.get(250), list.get(250));
+    }
+}
@@ -0,0 +1,175 @@
+package at.ac.fhcampuswien.fhmdb.ui;
+
+import at.ac.fhcampuswien.fhmdb.api.MovieAPI;
+import at.ac.fhcampuswien.fhmdb.fixture.MovieFixtures;
+import at.ac.fhcampuswien.fhmdb.models.Movie;
+import at.ac.fhcampuswien.fhmdb.server.MovieServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PosterLoaderTest {
+    // reads the size from the png header instead of decoding the pixels
+    private record Poster(int width, int height) {
+    }
+
+    private static final PosterDecoder<Poster> DECODER = new PosterDecoder<>() {
+        @Override
+        public Poster decode(byte[] bytes, double width, double height) throws IOException {
+            if (bytes.length < 24 || bytes[1] != 'P' || bytes[2] != 'N' || bytes[3] != 'G') {
+                throw new IOException("not a png");
+            }
+            return new Poster(ByteBuffer.wrap(bytes, 16, 4).getInt(), ByteBuffer.wrap(bytes, 20, 4).getInt());
+        }
+
+        @Override
+        public long sizeOf(Poster image) {
+            return (long) image.width() * image.height() * 4;
+        }
+    };
+    private static final long POSTER_BYTES = 200 * 300 * 4;
+
+    private final List<Movie> movies = MovieFixtures.generate(20, 3);
+    private MovieServer movieServer;
+    private ExecutorService decodeExecutor;
+
+    @TempDir
+    Path cacheDir;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        movieServer = new MovieServer(movies, 0);
+        movieServer.start();
+        decodeExecutor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void stopServer() {
+        movieServer.stop();
+        decodeExecutor.shutdownNow();
+    }
+
+    private PosterLoader<Poster> loader(long maxMemoryBytes) {
+        return new PosterLoader<>(DECODER, 80, 120, maxMemoryBytes, cacheDir, 10 * 1024 * 1024,
+                decodeExecutor, Runnable::run);
+    }
+
+    private String posterUrl(int movie) {
+        return movieServer.getPosterUrl(movies.get(movie).getId());
+    }
+
+    private static Poster await(PosterLoader<Poster> loader, String url) throws Exception {
+        CompletableFuture<Poster> loaded = new CompletableFuture<>();
+        loader.load(url, loaded::complete);
+        return loaded.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void poster_is_downloaded_once_and_then_served_from_memory() throws Exception {
+        PosterLoader<Poster> loader = loader(POSTER_BYTES * 10);
+
+        assertEquals(new Poster(200, 300), await(loader, posterUrl(0)));
+        assertEquals(new Poster(200, 300), await(loader, posterUrl(0)));
+
+        assertEquals(1, loader.getDownloads());
+        assertEquals(1, loader.getMemoryHits());
+        assertNotNull(loader.getCached(posterUrl(0)));
+    }
+
+    @Test
+    void concurrent_requests_share_one_download() throws Exception {
+        movieServer.setLatency(200, 200);
+        PosterLoader<Poster> loader = loader(POSTER_BYTES * 10);
+        CountDownLatch loaded = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            loader.load(posterUrl(1), poster -> loaded.countDown());
+        }
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+        assertEquals(1, loader.getDownloads());
+    }
+
+    @Test
+    void second_loader_reads_the_poster_from_disk() throws Exception {
+        await(loader(POSTER_BYTES * 10), posterUrl(2));
+
+        PosterLoader<Poster> restarted = loader(POSTER_BYTES * 10);
+        assertEquals(new Poster(200, 300), await(restarted, posterUrl(2)));
+        assertEquals(0, restarted.getDownloads());
+        assertEquals(1, restarted.getDiskHits());
+    }
+
+    @Test
+    void memory_cache_evicts_the_least_recently_used_poster() throws Exception {
+        PosterLoader<Poster> loader = loader(POSTER_BYTES * 2);
+        await(loader, posterUrl(0));
+        await(loader, posterUrl(1));
+        await(loader, posterUrl(0));
+        await(loader, posterUrl(2));
+
+        assertEquals(POSTER_BYTES * 2, loader.getMemoryBytes());
+        assertNotNull(loader.getCached(posterUrl(0)));
+        assertNull(loader.getCached(posterUrl(1)));
+        assertNotNull(loader.getCached(posterUrl(2)));
+    }
+
+    @Test
+    void cancelled_load_is_not_delivered() throws Exception {
+        movieServer.setLatency(300, 300);
+        PosterLoader<Poster> loader = loader(POSTER_BYTES * 10);
+        AtomicInteger delivered = new AtomicInteger();
+
+        PosterLoader.Ticket ticket = loader.load(posterUrl(3), poster -> delivered.incrementAndGet());
+        ticket.cancel();
+        Thread.sleep(600);
+
+        assertEquals(0, delivered.get());
+        assertEquals(1, loader.getCancelled());
+        assertEquals(0, loader.getPendingCount());
+        assertNull(loader.getCached(posterUrl(3)));
+    }
+
+    @Test
+    void prefetched_poster_is_kept_even_without_listeners() throws Exception {
+        PosterLoader<Poster> loader = loader(POSTER_BYTES * 10);
+        loader.prefetch(posterUrl(4));
+        for (int i = 0; i < 100 && loader.getCached(posterUrl(4)) == null; i++) {
+            Thread.sleep(50);
+        }
+        assertNotNull(loader.getCached(posterUrl(4)));
+    }
+
+    @Test
+    void missing_poster_is_not_delivered() throws Exception {
+        PosterLoader<Poster> loader = loader(POSTER_BYTES * 10);
+        AtomicInteger delivered = new AtomicInteger();
+        loader.load(movieServer.getPosterUrl("unknown"), poster -> delivered.incrementAndGet());
+        for (int i = 0; i < 100 && loader.getPendingCount() > 0; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, loader.getPendingCount());
+        assertEquals(0, delivered.get());
+    }
+
+    @Test
+    void server_points_image_urls_at_local_posters() throws Exception {
+        movieServer.setLocalPosters(true);
+        MovieAPI.setBaseUrl(movieServer.getUrl());
+        try {
+            List<Movie> served = MovieAPI.fetchMovies(null, null, null, null);
+            assertEquals(posterUrl(0), served.get(0).getImgUrl());
+            assertEquals(new Poster(200, 300), await(loader(POSTER_BYTES), served.get(0).getImgUrl()));
+        } finally {
+            MovieAPI.setBaseUrl(null);
+        }
+    }
+}